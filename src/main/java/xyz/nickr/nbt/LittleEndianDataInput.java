@@ -0,0 +1,108 @@
+package xyz.nickr.nbt;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link DataInput} which reads multi-byte values in little-endian order. <br>
+ * This allows tags to be read from little-endian streams using the same
+ * code as big-endian ones.
+ *
+ * @author Nick Robson
+ */
+public final class LittleEndianDataInput implements DataInput {
+
+    private final DataInputStream in;
+
+    /**
+     * Creates a LittleEndianDataInput reading from the given stream.
+     *
+     * @param in The stream to read from.
+     */
+    public LittleEndianDataInput(InputStream in) {
+        this.in = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        in.readFully(b);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        in.readFully(b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) throws IOException {
+        return in.skipBytes(n);
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return in.readBoolean();
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return in.readByte();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return in.readUnsignedByte();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return Short.reverseBytes(in.readShort());
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return Character.reverseBytes(in.readChar());
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return Integer.reverseBytes(in.readInt());
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return Long.reverseBytes(in.readLong());
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String readLine() throws IOException {
+        return in.readLine();
+    }
+
+    /**
+     * Reads a string as {@link DataInputStream#readUTF()} does, with a big-endian length prefix.
+     * NBT strings are read through {@link xyz.nickr.nbt.tags.NBTTag#readString(DataInput)} instead.
+     */
+    @Override
+    public String readUTF() throws IOException {
+        return in.readUTF();
+    }
+
+}
@@ -0,0 +1,103 @@
+package xyz.nickr.nbt;
+
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link DataOutput} which writes multi-byte values in little-endian order. <br>
+ * This allows tags to be written to little-endian streams using the same
+ * code as big-endian ones.
+ *
+ * @author Nick Robson
+ */
+public final class LittleEndianDataOutput implements DataOutput {
+
+    private final DataOutputStream out;
+
+    /**
+     * Creates a LittleEndianDataOutput writing to the given stream.
+     *
+     * @param out The stream to write to.
+     */
+    public LittleEndianDataOutput(OutputStream out) {
+        this.out = out instanceof DataOutputStream ? (DataOutputStream) out : new DataOutputStream(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+        out.writeBoolean(v);
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+        out.writeByte(v);
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        out.writeShort(Short.reverseBytes((short) v));
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        out.writeChar(Character.reverseBytes((char) v));
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        out.writeInt(Integer.reverseBytes(v));
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        out.writeLong(Long.reverseBytes(v));
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        writeInt(Float.floatToRawIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        writeLong(Double.doubleToRawLongBits(v));
+    }
+
+    @Override
+    public void writeBytes(String s) throws IOException {
+        out.writeBytes(s);
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++)
+            writeChar(s.charAt(i));
+    }
+
+    /**
+     * Writes a string as {@link DataOutputStream#writeUTF(String)} does, with a big-endian length prefix.
+     * NBT strings are written through {@link xyz.nickr.nbt.tags.NBTTag#writeString(DataOutput, String)} instead.
+     */
+    @Override
+    public void writeUTF(String s) throws IOException {
+        out.writeUTF(s);
+    }
+
+}
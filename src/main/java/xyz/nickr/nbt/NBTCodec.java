@@ -1,19 +1,28 @@
 package xyz.nickr.nbt;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
-import java.lang.reflect.Constructor;
 import java.nio.ByteOrder;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
+import java.util.zip.Deflater;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.NBTNameCache;
 import xyz.nickr.nbt.tags.NBTTag;
-import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
+import xyz.nickr.nbt.tags.NBTTagRegistry;
 
 /**
  * The main controlling class for the NBT API. <br>
@@ -23,53 +32,121 @@ import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
  */
 public class NBTCodec {
 
-    private static final Map<Byte, Class<? extends NBTTag>> types = new HashMap<>();
-
-    static {
-        String pkg = NBTCodec.class.getPackage().getName();
-        for (String s : Arrays.asList("End", "Byte", "Short", "Int", "Long", "Float", "Double", "ByteArray", "String", "List", "Compound", "IntArray")) {
-            try {
-                Class<? extends NBTTag> cl = Class.forName(pkg + ".tags." + s + "Tag").asSubclass(NBTTag.class);
-                NBTTagType type = cl.getAnnotation(NBTTagType.class);
-                if (type != null)
-                    types.put(type.value(), cl);
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
     /**
      * Attempts to create an NBTTag given a type ID.
      *
      * @param id The type ID.
      *
      * @return A newly constructed NBTTag.
+     *
+     * @see NBTTagRegistry
      */
     public static NBTTag createTag(byte id) {
-        Class<? extends NBTTag> cls = types.get(id);
-        try {
-            Constructor<? extends NBTTag> constr = cls.getDeclaredConstructor();
-            constr.setAccessible(true);
-            return constr.newInstance();
-        } catch (Exception ex) {
-            throw new IllegalStateException("no valid tag found for id=" + id, ex);
-        }
+        return NBTTagRegistry.create(id);
     }
 
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
     private final ByteOrder order;
+    private final ByteBufAllocator alloc;
+    private final int compressionLevel;
+    private final int compressionStrategy;
+    private final NBTNameCache names;
 
     /**
-     * Creates a NBTCodec object with a given byte order.
+     * Creates a NBTCodec object with a given byte order,
+     * allocating buffers from {@link PooledByteBufAllocator#DEFAULT}. <br>
+     * Buffers returned by the codec, such as those from {@link #encode(NBTTag, NBTCompression)}, must be released.
      *
      * @param order The byte order.
      */
     public NBTCodec(ByteOrder order) {
+        this(order, PooledByteBufAllocator.DEFAULT);
+    }
+
+    /**
+     * Creates a NBTCodec object with a given byte order and buffer allocator. <br>
+     * A pooled allocator, such as {@link PooledByteBufAllocator#DEFAULT}, reuses memory between calls,
+     * but then every buffer the codec returns must be released, or its memory is lost to the pool.
+     *
+     * @param order The byte order.
+     * @param alloc The allocator used for temporary and output buffers.
+     */
+    public NBTCodec(ByteOrder order, ByteBufAllocator alloc) {
+        this(order, alloc, Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+    }
+
+    /**
+     * Creates a NBTCodec object with a given byte order, buffer allocator, and compression settings.
+     *
+     * @param order The byte order.
+     * @param alloc The allocator used for temporary and output buffers.
+     * @param compressionLevel The level used when compressing, from {@link Deflater#DEFAULT_COMPRESSION}
+     *                         to {@link Deflater#BEST_COMPRESSION}.
+     * @param compressionStrategy The strategy used when compressing, one of {@link Deflater#DEFAULT_STRATEGY},
+     *                            {@link Deflater#FILTERED}, or {@link Deflater#HUFFMAN_ONLY}.
+     */
+    public NBTCodec(ByteOrder order, ByteBufAllocator alloc, int compressionLevel, int compressionStrategy) {
+        this(order, alloc, compressionLevel, compressionStrategy, new NBTNameCache());
+    }
+
+    /**
+     * Creates a NBTCodec object with a given byte order, buffer allocator, compression settings, and name cache.
+     *
+     * @param order The byte order.
+     * @param alloc The allocator used for temporary and output buffers.
+     * @param compressionLevel The level used when compressing, from {@link Deflater#DEFAULT_COMPRESSION}
+     *                         to {@link Deflater#BEST_COMPRESSION}.
+     * @param compressionStrategy The strategy used when compressing, one of {@link Deflater#DEFAULT_STRATEGY},
+     *                            {@link Deflater#FILTERED}, or {@link Deflater#HUFFMAN_ONLY}.
+     * @param names The cache tag names and short strings are looked up in when decoding,
+     *              or null to decode every string.
+     */
+    public NBTCodec(ByteOrder order, ByteBufAllocator alloc, int compressionLevel, int compressionStrategy, NBTNameCache names) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("invalid compression level: " + compressionLevel);
+        if (compressionStrategy != Deflater.DEFAULT_STRATEGY && compressionStrategy != Deflater.FILTERED && compressionStrategy != Deflater.HUFFMAN_ONLY)
+            throw new IllegalArgumentException("invalid compression strategy: " + compressionStrategy);
         this.order = Objects.requireNonNull(order, "byte order cannot be null");
+        this.alloc = Objects.requireNonNull(alloc, "allocator cannot be null");
+        this.compressionLevel = compressionLevel;
+        this.compressionStrategy = compressionStrategy;
+        this.names = names;
+    }
+
+    /**
+     * Gets the byte order this codec reads and writes.
+     *
+     * @return The byte order.
+     */
+    public ByteOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Gets the cache this codec looks up tag names and short strings in when decoding.
+     * Unless given one, each codec has its own {@link NBTNameCache}.
+     *
+     * @return The cache, or null if strings are always decoded.
+     */
+    public NBTNameCache getNameCache() {
+        return names;
+    }
+
+    /**
+     * Gets the allocator this codec allocates buffers from.
+     *
+     * @return The allocator.
+     */
+    public ByteBufAllocator getAllocator() {
+        return alloc;
     }
 
     /**
-     * Decodes a {@link NBTTag} from a given ByteBuf, using a specified {@link NBTCompression} method.
+     * Decodes a {@link NBTTag} from a given ByteBuf, using a specified {@link NBTCompression} method. <br>
+     * Uncompressed data is read in place, advancing the buffer's reader index past the decoded tag only,
+     * so that multiple tags can be decoded from the same buffer one after another.
+     * Compressed data consumes the rest of the buffer.
      *
      * @param buf The buffer to decode from.
      * @param compression The compression method used.
@@ -77,16 +154,215 @@ public class NBTCodec {
      * @return The decoded NBTTag.
      */
     public NBTTag decode(ByteBuf buf, NBTCompression compression) {
-        if (compression != null)
-            buf = compression.extract(buf);
+        if (compression == NBTCompression.DETECTED)
+            compression = NBTCompression.detect(buf);
+        if (compression == null || compression == NBTCompression.UNCOMPRESSED)
+            return read(buf);
+        ByteBuf extracted = compression.extract(buf, alloc);
+        try {
+            return read(extracted);
+        } finally {
+            extracted.release();
+        }
+    }
+
+    /**
+     * Decodes a {@link NBTTag} from a given ByteBuf, using a specified {@link NBTCompression} method,
+     * keeping the decoded data so that unchanged entries can be copied as they are. <br>
+     * See {@link NBTTag#readWithOrigins(ByteBuf, ByteOrder, NBTNameCache)}. The tree keeps a heap copy of the decoded data,
+     * and the entries of its compounds which have not been changed are copied from it
+     * when it is encoded in the same byte order. The given buffer may be released or reused afterwards.
+     * The buffer is consumed in the same way as by {@link #decode(ByteBuf, NBTCompression)}.
+     *
+     * @param buf The buffer to decode from.
+     * @param compression The compression method used.
+     *
+     * @return The decoded NBTTag.
+     */
+    public NBTTag decodeWithOrigins(ByteBuf buf, NBTCompression compression) {
+        if (compression == NBTCompression.DETECTED)
+            compression = NBTCompression.detect(buf);
+        if (compression == null || compression == NBTCompression.UNCOMPRESSED)
+            return readWithOrigins(copyTag(buf));
+        return readWithOrigins(compression.extract(buf));
+    }
+
+    /**
+     * Decodes a {@link NBTTag} from a given ByteBuf, using a specified {@link NBTCompression} method,
+     * with byte arrays holding retained slices of the decoded data instead of copies. <br>
+     * See {@link NBTTag#readRetained(ByteBuf, ByteOrder)}. For uncompressed data the slices share the given buffer's memory;
+     * compressed data is extracted into a buffer which is freed once the tree no longer needs it.
+     * Either way, the tree must be released with {@link NBTTag#release()} once it is no longer needed.
+     * The buffer is consumed in the same way as by {@link #decode(ByteBuf, NBTCompression)}.
+     *
+     * @param buf The buffer to decode from.
+     * @param compression The compression method used.
+     *
+     * @return The decoded NBTTag.
+     */
+    public NBTTag decodeRetained(ByteBuf buf, NBTCompression compression) {
+        if (compression == NBTCompression.DETECTED)
+            compression = NBTCompression.detect(buf);
+        if (compression == null || compression == NBTCompression.UNCOMPRESSED)
+            return readRetained(buf);
+        ByteBuf extracted = compression.extract(buf, alloc);
+        try {
+            return readRetained(extracted);
+        } finally {
+            extracted.release();
+        }
+    }
+
+    /**
+     * Decodes a compound tag from a given ByteBuf, using a specified {@link NBTCompression} method,
+     * leaving its entries to be decoded as they are accessed. <br>
+     * See {@link CompoundTag#lazy(ByteBuf, ByteOrder)}. The encoded compound is copied into a heap buffer
+     * which the tag keeps, so the given buffer may be released or reused afterwards.
+     * The buffer is consumed in the same way as by {@link #decode(ByteBuf, NBTCompression)}.
+     *
+     * @param buf The buffer to decode from.
+     * @param compression The compression method used.
+     *
+     * @return The root compound.
+     *
+     * @throws IllegalStateException If the root tag is not a compound.
+     */
+    public CompoundTag decodeLazy(ByteBuf buf, NBTCompression compression) {
+        if (compression == NBTCompression.DETECTED)
+            compression = NBTCompression.detect(buf);
+        ByteBuf data;
+        if (compression == null || compression == NBTCompression.UNCOMPRESSED) {
+            data = copyRoot(buf);
+        } else {
+            ByteBuf extracted = compression.extract(buf, alloc);
+            try {
+                data = copyRoot(extracted);
+            } finally {
+                extracted.release();
+            }
+        }
+        data.skipBytes(1);
+        String name = NBTTag.readString(data, order);
+        return CompoundTag.lazy(data, order).setName(name);
+    }
+
+    private ByteBuf copyRoot(ByteBuf buf) {
+        byte type = buf.getByte(buf.readerIndex());
+        if (type != NBTParser.COMPOUND)
+            throw new IllegalStateException("root tag is not a compound: " + type);
+        return copyTag(buf);
+    }
+
+    /**
+     * Copies the tag at the buffer's reader index into a heap buffer, advancing the reader index past it.
+     */
+    private ByteBuf copyTag(ByteBuf buf) {
+        int start = buf.readerIndex();
+        byte type = buf.readByte();
+        NBTParser.skip(buf, order, NBTParser.STRING);
+        NBTParser.skip(buf, order, type);
+        return Unpooled.wrappedBuffer(ByteBufUtil.getBytes(buf, start, buf.readerIndex() - start));
+    }
+
+    /**
+     * Decodes only the given paths of an uncompressed compound tag from a given ByteBuf, reading it in place. <br>
+     * See {@link #decodePaths(ByteBuf, NBTCompression, String...)}.
+     *
+     * @param buf The buffer to decode from.
+     * @param paths The paths to decode.
+     *
+     * @return The root compound, containing only the selected tags.
+     */
+    public CompoundTag decodePaths(ByteBuf buf, String... paths) {
+        return decodePaths(buf, NBTCompression.UNCOMPRESSED, paths);
+    }
+
+    /**
+     * Decodes only the given paths of a compound tag from a given ByteBuf, using a specified {@link NBTCompression} method. <br>
+     * Paths are the dot-separated names of the tags leading from the root compound (whose own name is not included),
+     * such as {@code "Level.xPos"}. A path selects the whole of the tag it names. Where a path passes through a list
+     * of compounds, it applies to every compound in the list. Everything not on a path is skipped without being decoded,
+     * and compounds and lists on a path keep only the selected tags. <br>
+     * The buffer is consumed in the same way as by {@link #decode(ByteBuf, NBTCompression)}.
+     *
+     * @param buf The buffer to decode from.
+     * @param compression The compression method used.
+     * @param paths The paths to decode.
+     *
+     * @return The root compound, containing only the selected tags.
+     */
+    public CompoundTag decodePaths(ByteBuf buf, NBTCompression compression, String... paths) {
+        if (compression == NBTCompression.DETECTED)
+            compression = NBTCompression.detect(buf);
+        if (compression == null || compression == NBTCompression.UNCOMPRESSED)
+            return NBTParser.decodePaths(buf, order, paths);
+        ByteBuf extracted = compression.extract(buf, alloc);
+        try {
+            return NBTParser.decodePaths(extracted, order, paths);
+        } finally {
+            extracted.release();
+        }
+    }
+
+    /**
+     * Passes the contents of a {@link NBTTag} encoded in a given ByteBuf to a visitor, without creating any tags. <br>
+     * The buffer is consumed in the same way as by {@link #decode(ByteBuf, NBTCompression)}.
+     *
+     * @param buf The buffer to read from.
+     * @param compression The compression method used.
+     * @param visitor The visitor.
+     */
+    public void visit(ByteBuf buf, NBTCompression compression, NBTVisitor visitor) {
+        if (compression == NBTCompression.DETECTED)
+            compression = NBTCompression.detect(buf);
+        if (compression == null || compression == NBTCompression.UNCOMPRESSED) {
+            NBTParser.accept(buf, order, visitor);
+            return;
+        }
+        ByteBuf extracted = compression.extract(buf, alloc);
+        try {
+            NBTParser.accept(extracted, order, visitor);
+        } finally {
+            extracted.release();
+        }
+    }
+
+    /**
+     * Creates a {@link NBTJsonWriter} appending to a given Appendable, which reads arrays in this codec's byte order.
+     * Pass it to this codec's {@link #visit(ByteBuf, NBTCompression, NBTVisitor)}, or feed it from any {@link NBTReader}.
+     *
+     * @param out The appendable to write to.
+     *
+     * @return The writer.
+     */
+    public NBTJsonWriter jsonWriter(Appendable out) {
+        return new NBTJsonWriter(out, order);
+    }
+
+    private NBTTag read(ByteBuf buf) {
+        byte type = buf.readByte();
+        NBTTag tag = createTag(type);
+        tag.read(buf, order, names);
+        return tag;
+    }
+
+    private NBTTag readWithOrigins(ByteBuf buf) {
         byte type = buf.readByte();
         NBTTag tag = createTag(type);
-        tag.read(buf, order);
+        tag.readWithOrigins(buf, order, names);
+        return tag;
+    }
+
+    private NBTTag readRetained(ByteBuf buf) {
+        byte type = buf.readByte();
+        NBTTag tag = createTag(type);
+        tag.readRetained(buf, order, names);
         return tag;
     }
 
     /**
-     * Decodes a {@link NBTTag} from a given InputStream, using a specified {@link NBTCompression} method.
+     * Decodes a {@link NBTTag} from a given InputStream, using a specified {@link NBTCompression} method. <br>
+     * Tags are read directly from the (extracted) stream, so the stream's contents are never held in memory all at once.
      *
      * @param in The input stream to decode from.
      * @param compression The compression method used.
@@ -94,19 +370,62 @@ public class NBTCodec {
      * @return The decoded NBTTag.
      */
     public NBTTag decode(InputStream in, NBTCompression compression) {
-        ByteBuf buf = Unpooled.buffer();
-        byte[] tmp = new byte[4096];
+        if (compression == null)
+            compression = NBTCompression.UNCOMPRESSED;
+        try (InputStream extracted = compression.extract(in)) {
+            DataInput input = createInput(extracted);
+            NBTTag tag = createTag(input.readByte());
+            tag.read(input, names);
+            return tag;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Creates a {@link NBTReader} over a given ByteBuf, using a specified {@link NBTCompression} method. <br>
+     * Uncompressed data is read in place. Compressed data is extracted first, and the extracted buffer
+     * is released when the reader is closed.
+     *
+     * @param buf The buffer to read from.
+     * @param compression The compression method used.
+     *
+     * @return The reader.
+     */
+    public NBTReader reader(ByteBuf buf, NBTCompression compression) {
+        if (compression == NBTCompression.DETECTED)
+            compression = NBTCompression.detect(buf);
+        if (compression == null || compression == NBTCompression.UNCOMPRESSED)
+            return new NBTReader(buf, null, order, null, names);
+        ByteBuf extracted = compression.extract(buf, alloc);
+        return new NBTReader(extracted, null, order, extracted::release, names);
+    }
+
+    /**
+     * Creates a {@link NBTReader} over a given InputStream, using a specified {@link NBTCompression} method. <br>
+     * Closing the reader releases any resources used for extraction, but does not close the given stream.
+     *
+     * @param in The input stream to read from.
+     * @param compression The compression method used.
+     *
+     * @return The reader.
+     */
+    public NBTReader reader(InputStream in, NBTCompression compression) {
+        if (compression == null)
+            compression = NBTCompression.UNCOMPRESSED;
         try {
-            while (true) {
-                int c = in.read(tmp);
-                if (c == -1)
-                    break;
-                buf.writeBytes(tmp, 0, c);
-            }
+            InputStream extracted = compression.extract(in);
+            return new NBTReader(null, createInput(extracted), order, extracted, names);
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
-        return decode(buf, compression);
+    }
+
+    private DataInput createInput(InputStream in) {
+        in = new BufferedInputStream(in, STREAM_BUFFER_SIZE);
+        if (order == ByteOrder.BIG_ENDIAN)
+            return new DataInputStream(in);
+        return new LittleEndianDataInput(in);
     }
 
     /**
@@ -117,48 +436,77 @@ public class NBTCodec {
      * @param compression The compression method to be used.
      */
     public void encode(ByteBuf buf, NBTTag tag, NBTCompression compression) {
-        ByteBuf tmp = Unpooled.buffer();
-        tag.write(tmp, order);
-        if (compression != null)
-            tmp = compression.compress(tmp);
-        buf.writeBytes(tmp);
+        if (compression == null || compression == NBTCompression.UNCOMPRESSED || compression == NBTCompression.DETECTED) {
+            tag.write(buf, order);
+        } else {
+            encode(new ByteBufOutputStream(buf), tag, compression);
+        }
+    }
+
+    /**
+     * Encodes an {@link NBTTag} to a new buffer from this codec's allocator,
+     * using a specified {@link NBTCompression} method. <br>
+     * The returned buffer is owned by the caller, who must release it,
+     * as it comes from a pool unless the codec was given an unpooled allocator.
+     *
+     * @param tag The tag to be encoded.
+     * @param compression The compression method to be used.
+     *
+     * @return The buffer containing the encoded tag.
+     */
+    public ByteBuf encode(NBTTag tag, NBTCompression compression) {
+        ByteBuf buf = alloc.buffer();
+        boolean release = true;
+        try {
+            encode(buf, tag, compression);
+            release = false;
+            return buf;
+        } finally {
+            if (release)
+                buf.release();
+        }
     }
 
     /**
-     * Encodes an {@link NBTTag} to a given OutputStream, using a specified {@link NBTCompression} method.
+     * Encodes an {@link NBTTag} to a given OutputStream, using a specified {@link NBTCompression} method. <br>
+     * Tags are compressed as they are written, so no intermediate copy of the encoded data is made.
      *
      * @param out The output stream to encode to.
      * @param tag The tag to be encoded.
      * @param compression The compression method to be used.
      */
     public void encode(OutputStream out, NBTTag tag, NBTCompression compression) {
-        ByteBuf tmp = Unpooled.buffer();
-        tag.write(tmp, order);
-        if (compression != null)
-            tmp = compression.compress(tmp);
-        try {
-            out.write(toByteArray(tmp));
+        if (compression == null)
+            compression = NBTCompression.UNCOMPRESSED;
+        try (OutputStream compressed = new BufferedOutputStream(compression.compress(out, compressionLevel, compressionStrategy), STREAM_BUFFER_SIZE)) {
+            tag.write(createOutput(compressed));
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
     }
 
+    private DataOutput createOutput(OutputStream out) {
+        if (order == ByteOrder.BIG_ENDIAN)
+            return new DataOutputStream(out);
+        return new LittleEndianDataOutput(out);
+    }
+
     /**
      * Gets a byte array representing the contents of a given ByteBuf.
+     * The buffer's backing array is only returned if it holds exactly those contents.
      *
      * @param buf The ByteBuf.
      *
      * @return The byte array.
      */
     public static byte[] toByteArray(ByteBuf buf) {
-        if (buf.hasArray())
-            return buf.array();
         int ridx = buf.readerIndex();
         buf.resetReaderIndex();
-        byte[] bytes = new byte[buf.readableBytes()];
-        buf.readBytes(bytes);
-        buf.readerIndex(ridx);
-        return bytes;
+        try {
+            return ByteBufUtil.getBytes(buf, buf.readerIndex(), buf.readableBytes(), false);
+        } finally {
+            buf.readerIndex(ridx);
+        }
     }
 
 }
@@ -1,17 +1,16 @@
 package xyz.nickr.nbt;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.ByteBufOutputStream;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
-import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.Inflater;
 
 /**
  * Represents the different compression options supported by NBT.
@@ -24,14 +23,43 @@ public enum NBTCompression {
      * Represents an uncompressed data stream.
      */
     UNCOMPRESSED {
+        /**
+         * Returns a retained slice of the given buffer's readable bytes, without copying them.
+         */
         @Override
-        public ByteBuf extract(ByteBuf buf) {
-            return Unpooled.copiedBuffer(buf);
+        public ByteBuf extract(ByteBuf buf, ByteBufAllocator alloc) {
+            return buf.readRetainedSlice(buf.readableBytes());
         }
 
+        /**
+         * Returns a retained slice of the given buffer's readable bytes, without copying them.
+         */
         @Override
-        public ByteBuf compress(ByteBuf buf) {
-            return Unpooled.copiedBuffer(buf);
+        public ByteBuf compress(ByteBuf buf, ByteBufAllocator alloc, int level, int strategy) {
+            return buf.retainedSlice();
+        }
+
+        @Override
+        public InputStream extract(InputStream in) {
+            return new FilterInputStream(in) {
+                @Override
+                public void close() {}
+            };
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out, int level, int strategy) {
+            return new FilterOutputStream(out) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
         }
     },
 
@@ -40,37 +68,23 @@ public enum NBTCompression {
      */
     GZIP {
         @Override
-        public ByteBuf extract(ByteBuf buf) {
-            byte[] buffer = new byte[1024];
-            ByteBuf out = Unpooled.buffer();
-            try {
-                GZIPInputStream gz = new GZIPInputStream(new ByteBufInputStream(buf));
-                int len;
-                while ((len = gz.read(buffer)) > 0) {
-                    out.writeBytes(buffer, 0, len);
-                }
-                gz.close();
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
-            return out;
-        }
-
-        @Override
-        public ByteBuf compress(ByteBuf buf) {
-            ByteBuf out = Unpooled.buffer();
-            try {
-                GZIPOutputStream gz = new GZIPOutputStream(new ByteBufOutputStream(out));
-                int readerIndex = buf.readerIndex();
-                byte[] bytes = new byte[buf.resetReaderIndex().readableBytes()];
-                buf.readBytes(bytes);
-                buf.readerIndex(readerIndex);
-                gz.write(bytes);
-                gz.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            return out;
+        public ByteBuf extract(ByteBuf buf, ByteBufAllocator alloc) {
+            return ZlibBuffers.inflate(buf, alloc, true);
+        }
+
+        @Override
+        public ByteBuf compress(ByteBuf buf, ByteBufAllocator alloc, int level, int strategy) {
+            return ZlibBuffers.deflate(buf, alloc, level, strategy, true);
+        }
+
+        @Override
+        public InputStream extract(InputStream in) throws IOException {
+            return new ZlibStreams.GzipInputStream(UNCOMPRESSED.extract(in), STREAM_BUFFER_SIZE);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out, int level, int strategy) throws IOException {
+            return new ZlibStreams.GzipOutputStream(UNCOMPRESSED.compress(out), level, strategy, STREAM_BUFFER_SIZE);
         }
     },
 
@@ -79,47 +93,23 @@ public enum NBTCompression {
      */
     ZLIB {
         @Override
-        public ByteBuf extract(ByteBuf buf) {
-            int readerIndex = buf.readerIndex();
-            byte[] bytes = new byte[buf.resetReaderIndex().readableBytes()];
-            buf.readBytes(bytes);
-            buf.readerIndex(readerIndex);
-
-            Inflater inflater = new Inflater();
-            inflater.setInput(bytes);
-            byte[] buffer = new byte[1024];
-            ByteBuf out = Unpooled.buffer();
-
-            try {
-                while (!inflater.finished()) {
-                    int len = inflater.inflate(buffer);
-                    out.writeBytes(buffer, 0, len);
-                }
-            } catch (DataFormatException e) {
-                e.printStackTrace();
-            }
-            return out;
+        public ByteBuf extract(ByteBuf buf, ByteBufAllocator alloc) {
+            return ZlibBuffers.inflate(buf, alloc, false);
         }
 
         @Override
-        public ByteBuf compress(ByteBuf buf) {
-            int readerIndex = buf.readerIndex();
-            byte[] bytes = new byte[buf.resetReaderIndex().readableBytes()];
-            buf.readBytes(bytes);
-            buf.readerIndex(readerIndex);
-
-            Deflater deflater = new Deflater();
-            deflater.setInput(bytes);
-            deflater.finish();
+        public ByteBuf compress(ByteBuf buf, ByteBufAllocator alloc, int level, int strategy) {
+            return ZlibBuffers.deflate(buf, alloc, level, strategy, false);
+        }
 
-            byte[] buffer = new byte[1024];
-            ByteBuf out = Unpooled.buffer();
+        @Override
+        public InputStream extract(InputStream in) throws IOException {
+            return new ZlibStreams.PooledInflaterInputStream(UNCOMPRESSED.extract(in), false, STREAM_BUFFER_SIZE);
+        }
 
-            while (!deflater.finished()) {
-                int len = deflater.deflate(buffer);
-                out.writeBytes(buffer, 0, len);
-            }
-            return out;
+        @Override
+        public OutputStream compress(OutputStream out, int level, int strategy) throws IOException {
+            return new ZlibStreams.PooledDeflaterOutputStream(UNCOMPRESSED.compress(out), level, strategy, false, STREAM_BUFFER_SIZE);
         }
     },
 
@@ -129,33 +119,153 @@ public enum NBTCompression {
      */
     DETECTED {
         @Override
-        public ByteBuf extract(ByteBuf buf) {
-            return detect(buf).extract(buf);
+        public ByteBuf extract(ByteBuf buf, ByteBufAllocator alloc) {
+            return detect(buf).extract(buf, alloc);
+        }
+
+        @Override
+        public ByteBuf compress(ByteBuf buf, ByteBufAllocator alloc, int level, int strategy) {
+            return detect(buf).compress(buf, alloc, level, strategy);
+        }
+
+        @Override
+        public InputStream extract(InputStream in) throws IOException {
+            if (!in.markSupported())
+                in = new BufferedInputStream(in, STREAM_BUFFER_SIZE);
+            return detect(in).extract(in);
         }
 
+        /**
+         * Uncompressed data cannot be detected as compressed,
+         * so this is the same as {@link #UNCOMPRESSED}.
+         */
         @Override
-        public ByteBuf compress(ByteBuf buf) {
-            return detect(buf).compress(buf);
+        public OutputStream compress(OutputStream out, int level, int strategy) throws IOException {
+            return UNCOMPRESSED.compress(out, level, strategy);
         }
     };
 
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    private static final ByteBufAllocator HEAP_ALLOCATOR = new UnpooledByteBufAllocator(false);
+
+    /**
+     * Extracts a given ByteBuf into a new, unpooled heap buffer. <br>
+     * The returned buffer is owned by the caller, who should release it.
+     *
+     * @param buf The buffer to be extracted.
+     *
+     * @return The extracted buffer.
+     */
+    public ByteBuf extract(ByteBuf buf) {
+        return extract(buf, HEAP_ALLOCATOR);
+    }
+
     /**
-     * Extracts a given ByteBuf.
+     * Extracts a given ByteBuf into a buffer from the given allocator. <br>
+     * The given buffer's reader index is advanced past the compressed data.
+     * The returned buffer is owned by the caller, who must release it.
      *
      * @param buf The buffer to be extracted.
+     * @param alloc The allocator to allocate the extracted buffer with.
      *
      * @return The extracted buffer.
      */
-    public abstract ByteBuf extract(ByteBuf buf);
+    public abstract ByteBuf extract(ByteBuf buf, ByteBufAllocator alloc);
+
+    /**
+     * Compresses a given ByteBuf into a new, unpooled heap buffer. <br>
+     * The returned buffer is owned by the caller, who should release it.
+     *
+     * @param buf The buffer to be compressed.
+     *
+     * @return The compressed buffer.
+     */
+    public ByteBuf compress(ByteBuf buf) {
+        return compress(buf, HEAP_ALLOCATOR);
+    }
+
+    /**
+     * Compresses a given ByteBuf into a buffer from the given allocator,
+     * using the default compression level and strategy. <br>
+     * The given buffer's readable bytes are compressed, without changing its reader index.
+     * The returned buffer is owned by the caller, who must release it.
+     *
+     * @param buf The buffer to be compressed.
+     * @param alloc The allocator to allocate the compressed buffer with.
+     *
+     * @return The compressed buffer.
+     */
+    public ByteBuf compress(ByteBuf buf, ByteBufAllocator alloc) {
+        return compress(buf, alloc, Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+    }
 
     /**
-     * Compresses a given ByteBuf.
+     * Compresses a given ByteBuf into a buffer from the given allocator. <br>
+     * The given buffer's readable bytes are compressed, without changing its reader index.
+     * The returned buffer is owned by the caller, who must release it.
      *
      * @param buf The buffer to be compressed.
+     * @param alloc The allocator to allocate the compressed buffer with.
+     * @param level The compression level, see {@link Deflater#setLevel(int)}.
+     * @param strategy The compression strategy, see {@link Deflater#setStrategy(int)}.
      *
      * @return The compressed buffer.
      */
-    public abstract ByteBuf compress(ByteBuf buf);
+    public abstract ByteBuf compress(ByteBuf buf, ByteBufAllocator alloc, int level, int strategy);
+
+    /**
+     * Wraps a given InputStream so that reading from it yields the extracted data. <br>
+     * Closing the returned stream releases any resources used for extraction,
+     * but does not close the given stream.
+     *
+     * @param in The stream to be extracted.
+     *
+     * @return The extracting stream.
+     *
+     * @throws IOException If the stream's header could not be read.
+     */
+    public abstract InputStream extract(InputStream in) throws IOException;
+
+    /**
+     * Wraps a given OutputStream so that data written to the returned stream is compressed into it,
+     * using the default compression level and strategy. <br>
+     * Closing the returned stream finishes compression and releases any resources used for it,
+     * but does not close the given stream.
+     *
+     * @param out The stream to write compressed data to.
+     *
+     * @return The compressing stream.
+     *
+     * @throws IOException If the stream's header could not be written.
+     */
+    public OutputStream compress(OutputStream out) throws IOException {
+        return compress(out, Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+    }
+
+    /**
+     * Wraps a given OutputStream so that data written to the returned stream is compressed into it. <br>
+     * Closing the returned stream finishes compression and releases any resources used for it,
+     * but does not close the given stream.
+     *
+     * @param out The stream to write compressed data to.
+     * @param level The compression level, see {@link Deflater#setLevel(int)}.
+     * @param strategy The compression strategy, see {@link Deflater#setStrategy(int)}.
+     *
+     * @return The compressing stream.
+     *
+     * @throws IOException If the stream's header could not be written.
+     */
+    public abstract OutputStream compress(OutputStream out, int level, int strategy) throws IOException;
+
+    /**
+     * Ends the inflaters and deflaters cached for the calling thread. <br>
+     * Compression reuses one of each per thread. Worker threads that are finished with NBT can call this
+     * to free their native zlib memory straight away rather than when the thread dies.
+     */
+    public static void releaseThreadResources() {
+        ZlibPool.clear();
+    }
 
     private static NBTCompression detect(byte a, byte b) {
         if (a == (byte) 0x1F && b == (byte) 0x8B)
@@ -175,7 +285,8 @@ public enum NBTCompression {
     public static NBTCompression detect(ByteBuf buf) {
         if (buf.readableBytes() < 2)
             return UNCOMPRESSED;
-        byte a = buf.getByte(0), b = buf.getByte(1);
+        int idx = buf.readerIndex();
+        byte a = buf.getByte(idx), b = buf.getByte(idx + 1);
         return detect(a, b);
     }
 
@@ -188,7 +299,7 @@ public enum NBTCompression {
      */
     public static NBTCompression detect(InputStream is) {
         try {
-            if (is.available() < 2)
+            if (!is.markSupported() && is.available() < 2)
                 return UNCOMPRESSED;
             if (is.markSupported())
                 is.mark(3);
@@ -0,0 +1,548 @@
+package xyz.nickr.nbt;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Reads JSON, as written by {@link NBTJsonWriter}, and encodes it as NBT as it goes, without any tags being created. <br>
+ * The JSON is read a block at a time, and each value is written to the buffer as soon as it is read,
+ * with the types and lengths of lists and arrays filled in once their ends are reached,
+ * so only the encoded NBT is ever held in memory. <br>
+ * Besides the typed objects {@link NBTJsonWriter} writes, plain JSON is also accepted:
+ * integers become ints, or longs if they are too large for an int, other numbers become doubles,
+ * and booleans become the bytes 1 and 0. Lists must have elements of a single type, and {@code null} is not allowed.
+ * Plain empty arrays become lists with no element type.
+ * The root tag is given the name {@code ""}.
+ *
+ * @author Nick Robson
+ */
+public final class NBTJsonParser {
+
+    private static final int MAX_DEPTH = 512;
+
+    /**
+     * Parses JSON into a tag.
+     *
+     * @param json The JSON.
+     *
+     * @return The tag.
+     *
+     * @throws IllegalStateException If the JSON is malformed, or cannot be represented as NBT.
+     */
+    public static NBTTag parse(CharSequence json) {
+        ByteBuf buf = Unpooled.buffer(json.length());
+        parse(new StringReader(json.toString()), buf, ByteOrder.BIG_ENDIAN);
+        NBTTag tag = NBTCodec.createTag(buf.readByte());
+        return tag.read(buf, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Parses JSON from a reader, encoding it as a named root tag into the given buffer.
+     * The reader is read to its end, but not closed.
+     *
+     * @param in The reader to read from.
+     * @param out The buffer to write to.
+     * @param order The byte order.
+     *
+     * @throws UncheckedIOException If reading from the reader fails.
+     * @throws IllegalStateException If the JSON is malformed, or cannot be represented as NBT.
+     */
+    public static void parse(Reader in, ByteBuf out, ByteOrder order) {
+        try {
+            new NBTJsonParser(in, out, order).parseRoot();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private final Reader in;
+    private final ByteBuf out;
+    private final ByteOrder order;
+    private final boolean be;
+    private final char[] chars = new char[8192];
+    private final StringBuilder text = new StringBuilder();
+    private int pos, limit;
+    private long offset;
+    private int depth;
+
+    private boolean integral;
+    private long integer;
+
+    private NBTJsonParser(Reader in, ByteBuf out, ByteOrder order) {
+        this.in = in;
+        this.out = out;
+        this.order = order;
+        this.be = order == ByteOrder.BIG_ENDIAN;
+    }
+
+    private void parseRoot() throws IOException {
+        int typeIndex = out.writerIndex();
+        out.writeByte(NBTParser.END);
+        NBTTag.writeString(out, order, "");
+        out.setByte(typeIndex, value());
+        if (peek() != -1)
+            throw error("unexpected trailing data");
+    }
+
+    /**
+     * Reads a value, writing its payload.
+     *
+     * @return The value's type ID.
+     */
+    private byte value() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '{':
+                pos++;
+                return object();
+            case '[':
+                pos++;
+                list(NBTParser.END);
+                return NBTParser.LIST;
+            case '"':
+                pos++;
+                NBTTag.writeString(out, order, string());
+                return NBTParser.STRING;
+            case 't':
+                literal("true");
+                out.writeByte(1);
+                return NBTParser.BYTE;
+            case 'f':
+                literal("false");
+                out.writeByte(0);
+                return NBTParser.BYTE;
+            case 'n':
+                throw error("null cannot be represented as NBT");
+            case -1:
+                throw error("expected a value");
+            default:
+                number();
+                if (!integral) {
+                    writeLong(Double.doubleToRawLongBits(doubleValue()));
+                    return NBTParser.DOUBLE;
+                }
+                if (integer == (int) integer) {
+                    writeInt((int) integer);
+                    return NBTParser.INT;
+                }
+                writeLong(integer);
+                return NBTParser.LONG;
+        }
+    }
+
+    private byte object() throws IOException {
+        enter();
+        int c = peek();
+        if (c == '}') {
+            pos++;
+            out.writeByte(NBTParser.END);
+            depth--;
+            return NBTParser.COMPOUND;
+        }
+        expect('"');
+        String key = string();
+        if (key.startsWith("@") && !key.startsWith("@@")) {
+            byte type = typed(key);
+            expect('}');
+            depth--;
+            return type;
+        }
+        while (true) {
+            expect(':');
+            int typeIndex = out.writerIndex();
+            out.writeByte(NBTParser.END);
+            NBTTag.writeString(out, order, key.startsWith("@") ? key.substring(1) : key);
+            out.setByte(typeIndex, value());
+            c = peek();
+            pos++;
+            if (c == '}')
+                break;
+            if (c != ',') {
+                pos--;
+                throw error("expected ',' or '}'");
+            }
+            expect('"');
+            key = string();
+            if (key.startsWith("@") && !key.startsWith("@@"))
+                throw error("unexpected typed value key: " + key);
+        }
+        out.writeByte(NBTParser.END);
+        depth--;
+        return NBTParser.COMPOUND;
+    }
+
+    /**
+     * Reads the value of a typed object such as {@code {"@byte":1}}, after its key.
+     */
+    private byte typed(String key) throws IOException {
+        expect(':');
+        switch (key) {
+            case "@byte":
+                out.writeByte((int) integer(Byte.MIN_VALUE, Byte.MAX_VALUE));
+                return NBTParser.BYTE;
+            case "@short":
+                writeShort((int) integer(Short.MIN_VALUE, Short.MAX_VALUE));
+                return NBTParser.SHORT;
+            case "@int":
+                writeInt((int) integer(Integer.MIN_VALUE, Integer.MAX_VALUE));
+                return NBTParser.INT;
+            case "@long":
+                writeLong(integer(Long.MIN_VALUE, Long.MAX_VALUE));
+                return NBTParser.LONG;
+            case "@float":
+                writeInt(Float.floatToRawIntBits((float) floatingPoint(true)));
+                return NBTParser.FLOAT;
+            case "@double":
+                writeLong(Double.doubleToRawLongBits(floatingPoint(false)));
+                return NBTParser.DOUBLE;
+            case "@bytes":
+                array(NBTParser.BYTE_ARRAY, Byte.MIN_VALUE, Byte.MAX_VALUE);
+                return NBTParser.BYTE_ARRAY;
+            case "@ints":
+                array(NBTParser.INT_ARRAY, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                return NBTParser.INT_ARRAY;
+            case "@longs":
+                array(NBTParser.LONG_ARRAY, Long.MIN_VALUE, Long.MAX_VALUE);
+                return NBTParser.LONG_ARRAY;
+            case "@list": {
+                expect('"');
+                byte elementType = typeId(string());
+                expect(',');
+                expect('"');
+                if (!string().equals("values"))
+                    throw error("expected \"values\"");
+                expect(':');
+                expect('[');
+                list(elementType);
+                return NBTParser.LIST;
+            }
+            default:
+                throw error("unknown typed value key: " + key);
+        }
+    }
+
+    private void array(byte type, long min, long max) throws IOException {
+        expect('[');
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        int length = 0;
+        if (peek() == ']') {
+            pos++;
+        } else {
+            while (true) {
+                long value = integer(min, max);
+                if (type == NBTParser.BYTE_ARRAY) {
+                    out.writeByte((int) value);
+                } else if (type == NBTParser.INT_ARRAY) {
+                    writeInt((int) value);
+                } else {
+                    writeLong(value);
+                }
+                length++;
+                if (!next(']'))
+                    break;
+            }
+        }
+        setInt(lengthIndex, length);
+    }
+
+    private byte typeId(String name) {
+        for (byte type = 1; type < NBTJsonWriter.TYPE_NAMES.length; type++) {
+            if (NBTJsonWriter.TYPE_NAMES[type].equals(name))
+                return type;
+        }
+        throw error("unknown list type: " + name);
+    }
+
+    /**
+     * Reads a list, after its opening bracket.
+     *
+     * @param listType The type its elements must have, or {@link NBTParser#END} if any type is allowed.
+     */
+    private void list(byte listType) throws IOException {
+        enter();
+        int typeIndex = out.writerIndex();
+        out.writeByte(NBTParser.END);
+        int sizeIndex = out.writerIndex();
+        out.writeInt(0);
+        int size = 0;
+        if (peek() == ']') {
+            pos++;
+            out.setByte(typeIndex, listType);
+        } else {
+            byte elementType = listType;
+            while (true) {
+                long start = offset + pos;
+                byte type = value();
+                if (size == 0 && listType == NBTParser.END) {
+                    elementType = type;
+                } else if (type != elementType) {
+                    throw new IllegalStateException("list elements must all be of one type at index " + start + " of JSON");
+                }
+                size++;
+                if (!next(']'))
+                    break;
+            }
+            out.setByte(typeIndex, elementType);
+        }
+        setInt(sizeIndex, size);
+        depth--;
+    }
+
+    /**
+     * Reads the separator after an element of an array.
+     *
+     * @return True if there is another element, false if the array has ended.
+     */
+    private boolean next(char end) throws IOException {
+        int c = peek();
+        pos++;
+        if (c == ',')
+            return true;
+        if (c == end)
+            return false;
+        pos--;
+        throw error("expected ',' or '" + end + "'");
+    }
+
+    private long integer(long min, long max) throws IOException {
+        number();
+        if (!integral || integer < min || integer > max)
+            throw error("expected an integer from " + min + " to " + max);
+        return integer;
+    }
+
+    /**
+     * Reads a float or double, parsing a float's digits as a float so that it is not rounded twice.
+     */
+    private double floatingPoint(boolean single) throws IOException {
+        if (peek() == '"') {
+            pos++;
+            String value = string();
+            switch (value) {
+                case "NaN":
+                    return Double.NaN;
+                case "Infinity":
+                    return Double.POSITIVE_INFINITY;
+                case "-Infinity":
+                    return Double.NEGATIVE_INFINITY;
+                default:
+                    throw error("expected a number, NaN or an infinity");
+            }
+        }
+        number();
+        if (integral)
+            return single ? (float) integer : integer;
+        return single ? floatValue() : doubleValue();
+    }
+
+    /**
+     * Reads a number into {@link #text}, and if it is an integer which fits in a long, into {@link #integer}.
+     */
+    private void number() throws IOException {
+        text.setLength(0);
+        integral = true;
+        boolean negative = false;
+        int digits = 0;
+        long value = 0;
+        int c = peek();
+        if (c == '-') {
+            negative = true;
+            text.append('-');
+            pos++;
+        }
+        while ((c = read()) != -1) {
+            if (c >= '0' && c <= '9') {
+                if (integral) {
+                    // accumulate negatively, which can reach Long.MIN_VALUE
+                    long next = value * 10 - (c - '0');
+                    if (value < Long.MIN_VALUE / 10 || next > value)
+                        integral = false;
+                    value = next;
+                }
+                digits++;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || (c == '-' && text.length() > 1)) {
+                integral = false;
+            } else {
+                pos--;
+                break;
+            }
+            text.append((char) c);
+        }
+        if (digits == 0)
+            throw error("expected a value");
+        if (integral) {
+            if (!negative && value == Long.MIN_VALUE) {
+                integral = false;
+            } else {
+                integer = negative ? value : -value;
+            }
+        }
+    }
+
+    private float floatValue() {
+        try {
+            return Float.parseFloat(text.toString());
+        } catch (NumberFormatException ex) {
+            throw new IllegalStateException("invalid number: " + text + " at index " + (offset + pos) + " of JSON", ex);
+        }
+    }
+
+    private double doubleValue() {
+        try {
+            return Double.parseDouble(text.toString());
+        } catch (NumberFormatException ex) {
+            throw new IllegalStateException("invalid number: " + text + " at index " + (offset + pos) + " of JSON", ex);
+        }
+    }
+
+    /**
+     * Reads a string, after its opening quote.
+     */
+    private String string() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '"')
+                return text.toString();
+            if (c == -1)
+                throw error("unterminated string");
+            if (c < 0x20)
+                throw error("unescaped control character in string");
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            c = read();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    text.append((char) c);
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'u': {
+                    int value = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0)
+                            throw error("invalid unicode escape");
+                        value = (value << 4) | digit;
+                    }
+                    text.append((char) value);
+                    break;
+                }
+                default:
+                    throw error("invalid escape");
+            }
+        }
+    }
+
+    private void literal(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i))
+                throw error("expected " + literal);
+        }
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH)
+            throw error("too deeply nested");
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peek() != expected)
+            throw error("expected '" + expected + "'");
+        pos++;
+    }
+
+    /**
+     * Skips whitespace, and gets the next character without reading it.
+     *
+     * @return The character, or -1 at the end of the input.
+     */
+    private int peek() throws IOException {
+        while (true) {
+            if (pos == limit && !fill())
+                return -1;
+            char c = chars[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t')
+                return c;
+            pos++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill())
+            return -1;
+        return chars[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        pos = 0;
+        limit = 0;
+        int n = in.read(chars);
+        if (n <= 0)
+            return false;
+        limit = n;
+        return true;
+    }
+
+    private void writeShort(int value) {
+        if (be) {
+            out.writeShort(value);
+        } else {
+            out.writeShortLE(value);
+        }
+    }
+
+    private void writeInt(int value) {
+        if (be) {
+            out.writeInt(value);
+        } else {
+            out.writeIntLE(value);
+        }
+    }
+
+    private void writeLong(long value) {
+        if (be) {
+            out.writeLong(value);
+        } else {
+            out.writeLongLE(value);
+        }
+    }
+
+    private void setInt(int index, int value) {
+        if (be) {
+            out.setInt(index, value);
+        } else {
+            out.setIntLE(index, value);
+        }
+    }
+
+    private IllegalStateException error(String message) {
+        return new IllegalStateException(message + " at index " + (offset + pos) + " of JSON");
+    }
+
+}
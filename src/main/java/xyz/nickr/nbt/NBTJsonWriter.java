@@ -0,0 +1,377 @@
+package xyz.nickr.nbt;
+
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Writes encoded NBT as JSON to an {@link Appendable} as it is visited, without any tags being created. <br>
+ * Writers are created by {@link NBTCodec#jsonWriter(Appendable)}, so that they read arrays in the codec's byte order.
+ * Either pass the writer to the same codec's {@link NBTCodec#visit(ByteBuf, NBTCompression, NBTVisitor)},
+ * or feed it from a {@link NBTReader} with {@link #write(NBTReader)}, which also works over streams. <br>
+ * The JSON keeps every tag's type, so that {@link NBTJsonParser} reads it back as the same tags:
+ * <ul>
+ *     <li>Compounds are objects, lists are arrays, and strings are strings. Empty lists whose elements have a type
+ *         are objects naming it, such as {@code {"@list":"compound","values":[]}}.</li>
+ *     <li>Ints are integers, and doubles are numbers with a fraction or exponent, such as {@code 1.0}.</li>
+ *     <li>Other numbers are objects with one member naming their type, such as {@code {"@byte":1}},
+ *         {@code {"@short":1}}, {@code {"@long":1}} or {@code {"@float":1.0}}.
+ *         Floats and doubles which are not finite are written as strings, such as {@code {"@double":"NaN"}}.</li>
+ *     <li>Arrays are objects with one member, such as {@code {"@bytes":[1,2]}}, {@code {"@ints":[]}} or {@code {"@longs":[3]}}.</li>
+ *     <li>Compound keys which start with {@code @} have another {@code @} added, so {@code "@id"} is written as {@code "@@id"}.</li>
+ * </ul>
+ * The root tag's name is not written.
+ *
+ * @author Nick Robson
+ */
+public class NBTJsonWriter implements NBTVisitor {
+
+    /**
+     * The names of the standard types in typed lists, indexed by type ID.
+     */
+    static final String[] TYPE_NAMES = {
+            null, "byte", "short", "int", "long", "float", "double", "bytes", "string", "list", "compound", "ints", "longs"
+    };
+
+    private final Appendable out;
+    private final StringBuilder builder;
+    private final boolean be;
+
+    private boolean[] first = new boolean[8];
+    private int depth;
+    private boolean typedList;
+
+    /**
+     * Creates a writer appending to a given Appendable.
+     *
+     * @param out The appendable to write to.
+     * @param order The byte order of the arrays it visits, which is that of the codec visiting them.
+     */
+    NBTJsonWriter(Appendable out, ByteOrder order) {
+        this.out = out;
+        this.builder = out instanceof StringBuilder ? (StringBuilder) out : null;
+        this.be = order == ByteOrder.BIG_ENDIAN;
+    }
+
+    /**
+     * Writes the tag a reader is over, from its next token to the end of the root tag.
+     *
+     * @param reader The reader.
+     *
+     * @return This writer.
+     *
+     * @throws UncheckedIOException If appending fails.
+     * @throws IllegalStateException If a tag is of a type which cannot be written as JSON.
+     */
+    public NBTJsonWriter write(NBTReader reader) {
+        for (NBTReader.Token token = reader.next(); token != NBTReader.Token.END; token = reader.next()) {
+            String name = reader.name();
+            switch (token) {
+                case BYTE:
+                    visitByte(name, reader.byteValue());
+                    break;
+                case SHORT:
+                    visitShort(name, reader.shortValue());
+                    break;
+                case INT:
+                    visitInt(name, reader.intValue());
+                    break;
+                case LONG:
+                    visitLong(name, reader.longValue());
+                    break;
+                case FLOAT:
+                    visitFloat(name, reader.floatValue());
+                    break;
+                case DOUBLE:
+                    visitDouble(name, reader.doubleValue());
+                    break;
+                case STRING:
+                    visitString(name, reader.stringValue());
+                    break;
+                case BYTE_ARRAY: {
+                    byte[] value = reader.byteArrayValue();
+                    begin(name);
+                    append("{\"@bytes\":[");
+                    for (int i = 0; i < value.length; i++)
+                        element(i, value[i]);
+                    append("]}");
+                    break;
+                }
+                case INT_ARRAY: {
+                    int[] value = reader.intArrayValue();
+                    begin(name);
+                    append("{\"@ints\":[");
+                    for (int i = 0; i < value.length; i++)
+                        element(i, value[i]);
+                    append("]}");
+                    break;
+                }
+                case LONG_ARRAY: {
+                    long[] value = reader.longArrayValue();
+                    begin(name);
+                    append("{\"@longs\":[");
+                    for (int i = 0; i < value.length; i++)
+                        element(i, value[i]);
+                    append("]}");
+                    break;
+                }
+                case COMPOUND_START:
+                    visitCompoundStart(name);
+                    break;
+                case COMPOUND_END:
+                    visitCompoundEnd();
+                    break;
+                case LIST_START:
+                    visitListStart(name, reader.listType(), reader.length());
+                    break;
+                case LIST_END:
+                    visitListEnd();
+                    break;
+                case TAG:
+                    visitTag(name, reader.tagValue());
+                    break;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public boolean visitCompoundStart(String name) {
+        begin(name);
+        append('{');
+        push();
+        return true;
+    }
+
+    @Override
+    public void visitCompoundEnd() {
+        depth--;
+        append('}');
+    }
+
+    @Override
+    public boolean visitListStart(String name, byte elementType, int size) {
+        begin(name);
+        if (size == 0 && elementType != 0) {
+            if (elementType < 0 || elementType >= TYPE_NAMES.length)
+                throw new IllegalStateException("list of type " + elementType + " cannot be written as JSON");
+            append("{\"@list\":\"").append(TYPE_NAMES[elementType]).append("\",\"values\":[");
+            // the list is empty, so its end is the next thing visited
+            typedList = true;
+        } else {
+            append('[');
+        }
+        push();
+        return true;
+    }
+
+    @Override
+    public void visitListEnd() {
+        depth--;
+        append(']');
+        if (typedList) {
+            typedList = false;
+            append('}');
+        }
+    }
+
+    @Override
+    public void visitByte(String name, byte value) {
+        begin(name);
+        append("{\"@byte\":");
+        appendLong(value);
+        append('}');
+    }
+
+    @Override
+    public void visitShort(String name, short value) {
+        begin(name);
+        append("{\"@short\":");
+        appendLong(value);
+        append('}');
+    }
+
+    @Override
+    public void visitInt(String name, int value) {
+        begin(name);
+        appendLong(value);
+    }
+
+    @Override
+    public void visitLong(String name, long value) {
+        begin(name);
+        append("{\"@long\":");
+        appendLong(value);
+        append('}');
+    }
+
+    @Override
+    public void visitFloat(String name, float value) {
+        begin(name);
+        append("{\"@float\":");
+        if (Float.isFinite(value)) {
+            append(Float.toString(value));
+        } else {
+            append('"').append(Float.toString(value)).append('"');
+        }
+        append('}');
+    }
+
+    @Override
+    public void visitDouble(String name, double value) {
+        begin(name);
+        if (Double.isFinite(value)) {
+            append(Double.toString(value));
+        } else {
+            append("{\"@double\":\"").append(Double.toString(value)).append("\"}");
+        }
+    }
+
+    @Override
+    public void visitString(String name, String value) {
+        begin(name);
+        appendString(value, false);
+    }
+
+    @Override
+    public void visitByteArray(String name, ByteBuf value) {
+        begin(name);
+        append("{\"@bytes\":[");
+        for (int i = 0, start = value.readerIndex(), length = value.readableBytes(); i < length; i++)
+            element(i, value.getByte(start + i));
+        append("]}");
+    }
+
+    @Override
+    public void visitIntArray(String name, ByteBuf value) {
+        begin(name);
+        append("{\"@ints\":[");
+        for (int i = 0, start = value.readerIndex(), length = value.readableBytes() / 4; i < length; i++)
+            element(i, be ? value.getInt(start + i * 4) : value.getIntLE(start + i * 4));
+        append("]}");
+    }
+
+    @Override
+    public void visitLongArray(String name, ByteBuf value) {
+        begin(name);
+        append("{\"@longs\":[");
+        for (int i = 0, start = value.readerIndex(), length = value.readableBytes() / 8; i < length; i++)
+            element(i, be ? value.getLong(start + i * 8) : value.getLongLE(start + i * 8));
+        append("]}");
+    }
+
+    @Override
+    public void visitTag(String name, NBTTag tag) {
+        throw new IllegalStateException("tag cannot be written as JSON: " + tag.getClass().getName());
+    }
+
+    /**
+     * Writes the separator and key, if any, before a value.
+     */
+    private void begin(String name) {
+        if (depth == 0)
+            return;
+        if (first[depth - 1]) {
+            first[depth - 1] = false;
+        } else {
+            append(',');
+        }
+        if (name != null) {
+            appendString(name, name.startsWith("@"));
+            append(':');
+        }
+    }
+
+    private void push() {
+        if (depth == first.length)
+            first = Arrays.copyOf(first, depth * 2);
+        first[depth++] = true;
+    }
+
+    private void element(int index, long value) {
+        if (index > 0)
+            append(',');
+        appendLong(value);
+    }
+
+    private void appendString(String value, boolean escapeKey) {
+        append('"');
+        if (escapeKey)
+            append('@');
+        int start = 0;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\')
+                continue;
+            append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    append("\\\"");
+                    break;
+                case '\\':
+                    append("\\\\");
+                    break;
+                case '\n':
+                    append("\\n");
+                    break;
+                case '\r':
+                    append("\\r");
+                    break;
+                case '\t':
+                    append("\\t");
+                    break;
+                case '\b':
+                    append("\\b");
+                    break;
+                case '\f':
+                    append("\\f");
+                    break;
+                default:
+                    append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            }
+        }
+        append(value, start, value.length());
+        append('"');
+    }
+
+    private void appendLong(long value) {
+        if (builder != null) {
+            builder.append(value);
+        } else {
+            append(Long.toString(value));
+        }
+    }
+
+    private NBTJsonWriter append(char c) {
+        try {
+            out.append(c);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return this;
+    }
+
+    private NBTJsonWriter append(CharSequence s) {
+        try {
+            out.append(s);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return this;
+    }
+
+    private void append(CharSequence s, int start, int end) {
+        if (start == end)
+            return;
+        try {
+            out.append(s, start, end);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+package xyz.nickr.nbt;
+
+import io.netty.buffer.ByteBuf;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.ModifiedUtf8;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.NBTTagRegistry;
+
+/**
+ * Walks encoded NBT in a ByteBuf without creating tags, either passing its contents to a {@link NBTVisitor}
+ * or skipping over it, or decodes only selected parts of it. <br>
+ * Skipping is done by {@link NBTTagRegistry#skipPayload(byte, ByteBuf, ByteOrder)}, which only reads length prefixes,
+ * and the sizes of arrays are taken from the same table it uses.
+ *
+ * @author Nick Robson
+ */
+final class NBTParser {
+
+    static final byte END = 0, BYTE = 1, SHORT = 2, INT = 3, LONG = 4, FLOAT = 5, DOUBLE = 6,
+            BYTE_ARRAY = 7, STRING = 8, LIST = 9, COMPOUND = 10, INT_ARRAY = 11, LONG_ARRAY = 12;
+
+    private NBTParser() {}
+
+    /**
+     * Reads a named root tag and passes it to the visitor.
+     */
+    static void accept(ByteBuf buf, ByteOrder order, NBTVisitor visitor) {
+        byte type = buf.readByte();
+        if (type == END)
+            return;
+        accept(buf, order, type, NBTTag.readString(buf, order), visitor);
+    }
+
+    /**
+     * Reads the payload of a tag of the given type and passes it to the visitor.
+     */
+    static void accept(ByteBuf buf, ByteOrder order, byte type, String name, NBTVisitor visitor) {
+        boolean be = order == ByteOrder.BIG_ENDIAN;
+        switch (type) {
+            case END:
+                break;
+            case BYTE:
+                visitor.visitByte(name, buf.readByte());
+                break;
+            case SHORT:
+                visitor.visitShort(name, be ? buf.readShort() : buf.readShortLE());
+                break;
+            case INT:
+                visitor.visitInt(name, be ? buf.readInt() : buf.readIntLE());
+                break;
+            case LONG:
+                visitor.visitLong(name, be ? buf.readLong() : buf.readLongLE());
+                break;
+            case FLOAT:
+                visitor.visitFloat(name, Float.intBitsToFloat(be ? buf.readInt() : buf.readIntLE()));
+                break;
+            case DOUBLE:
+                visitor.visitDouble(name, Double.longBitsToDouble(be ? buf.readLong() : buf.readLongLE()));
+                break;
+            case BYTE_ARRAY:
+                visitor.visitByteArray(name, buf.readSlice(NBTTagRegistry.readArraySize(type, buf, order)));
+                break;
+            case STRING:
+                visitor.visitString(name, NBTTag.readString(buf, order));
+                break;
+            case LIST: {
+                byte elementType = buf.readByte();
+                int size = NBTTagRegistry.readLength(buf, order);
+                if (!visitor.visitListStart(name, elementType, size)) {
+                    skipElements(buf, order, elementType, size);
+                    break;
+                }
+                for (int i = 0; i < size; i++)
+                    accept(buf, order, elementType, null, visitor);
+                visitor.visitListEnd();
+                break;
+            }
+            case COMPOUND: {
+                if (!visitor.visitCompoundStart(name)) {
+                    skip(buf, order, COMPOUND);
+                    break;
+                }
+                byte entryType;
+                while ((entryType = buf.readByte()) != END)
+                    accept(buf, order, entryType, NBTTag.readString(buf, order), visitor);
+                visitor.visitCompoundEnd();
+                break;
+            }
+            case INT_ARRAY:
+                visitor.visitIntArray(name, buf.readSlice(NBTTagRegistry.readArraySize(type, buf, order)));
+                break;
+            case LONG_ARRAY:
+                visitor.visitLongArray(name, buf.readSlice(NBTTagRegistry.readArraySize(type, buf, order)));
+                break;
+            default:
+                visitor.visitTag(name, NBTTagRegistry.readPayload(type, buf, order));
+        }
+    }
+
+    /**
+     * Reads a named root compound, decoding only the entries selected by the given paths and skipping the rest.
+     */
+    static CompoundTag decodePaths(ByteBuf buf, ByteOrder order, String... paths) {
+        PathNode root = new PathNode();
+        for (String path : paths)
+            root.add(path);
+        byte type = buf.readByte();
+        if (type != COMPOUND)
+            throw new IllegalStateException("root tag is not a compound: " + type);
+        String name = NBTTag.readString(buf, order);
+        CompoundTag tag = readCompound(buf, order, root);
+        tag.setName(name);
+        return tag;
+    }
+
+    private static CompoundTag readCompound(ByteBuf buf, ByteOrder order, PathNode node) {
+        CompoundTag compound = new CompoundTag();
+        byte type;
+        while ((type = buf.readByte()) != END) {
+            int start = buf.readerIndex();
+            int length = order == ByteOrder.BIG_ENDIAN ? buf.readUnsignedShort() : buf.readUnsignedShortLE();
+            PathNode child = node.find(buf, length);
+            buf.skipBytes(length);
+            if (child == null) {
+                skip(buf, order, type);
+            } else if (child.isLeaf()) {
+                buf.readerIndex(start);
+                NBTTag tag = NBTTagRegistry.create(type);
+                tag.read(buf, order);
+                compound.add(tag);
+            } else {
+                NBTTag tag = readSelected(buf, order, type, child);
+                if (tag != null)
+                    compound.add(tag.setName(child.name));
+            }
+        }
+        return compound;
+    }
+
+    /**
+     * Reads the entries of a compound, or of each compound in a list, selected by a path node.
+     * Other tags have no entries to select, so are skipped.
+     */
+    private static NBTTag readSelected(ByteBuf buf, ByteOrder order, byte type, PathNode node) {
+        if (type == COMPOUND)
+            return readCompound(buf, order, node);
+        if (type != LIST) {
+            skip(buf, order, type);
+            return null;
+        }
+        byte elementType = buf.readByte();
+        int size = NBTTagRegistry.readLength(buf, order);
+        if (elementType != COMPOUND) {
+            skipElements(buf, order, elementType, size);
+            return null;
+        }
+        ListTag list = new ListTag();
+        list.ensureCapacity(Math.min(size, buf.readableBytes()));
+        for (int i = 0; i < size; i++)
+            list.add(readCompound(buf, order, node));
+        return list;
+    }
+
+    /**
+     * A tree of the names in a set of dot-separated paths. A node with no children selects its whole subtree.
+     * Names are matched against their UTF-8 bytes in the buffer, so that skipped names are never decoded.
+     */
+    private static final class PathNode {
+
+        private String name;
+        private byte[] bytes;
+        private PathNode[] children = new PathNode[0];
+        private boolean whole;
+
+        void add(String path) {
+            PathNode node = this;
+            for (String segment : path.split("\\.", -1)) {
+                if (node.whole)
+                    return;
+                PathNode child = node.child(segment);
+                if (child == null) {
+                    child = new PathNode();
+                    child.name = segment;
+                    child.bytes = ModifiedUtf8.encode(segment);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.children[node.children.length - 1] = child;
+                }
+                node = child;
+            }
+            node.whole = true;
+            node.children = new PathNode[0];
+        }
+
+        boolean isLeaf() {
+            return whole;
+        }
+
+        private PathNode child(String name) {
+            for (PathNode child : children) {
+                if (child.name.equals(name))
+                    return child;
+            }
+            return null;
+        }
+
+        PathNode find(ByteBuf buf, int length) {
+            int index = buf.readerIndex();
+            outer:
+            for (PathNode child : children) {
+                if (child.bytes.length != length)
+                    continue;
+                for (int i = 0; i < length; i++) {
+                    if (buf.getByte(index + i) != child.bytes[i])
+                        continue outer;
+                }
+                return child;
+            }
+            return null;
+        }
+
+    }
+
+    /**
+     * Skips the payload of a tag of the given type.
+     */
+    static void skip(ByteBuf buf, ByteOrder order, byte type) {
+        NBTTagRegistry.skipPayload(type, buf, order);
+    }
+
+    static void skipElements(ByteBuf buf, ByteOrder order, byte type, int size) {
+        NBTTagRegistry.skipPayloads(type, size, buf, order);
+    }
+
+}
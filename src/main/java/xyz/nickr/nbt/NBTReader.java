@@ -0,0 +1,557 @@
+package xyz.nickr.nbt;
+
+import io.netty.buffer.ByteBuf;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import xyz.nickr.nbt.tags.ArrayBuffers;
+import xyz.nickr.nbt.tags.NBTNameCache;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.NBTTagRegistry;
+
+/**
+ * A cursor over encoded NBT, which reads one token at a time without creating tags. <br>
+ * Each call to {@link #next()} moves to the next token. Numbers are read as they are reached,
+ * while strings and arrays are only read if their value is asked for, and are otherwise skipped.
+ * A compound or list can be skipped as a whole with {@link #skipValue()}. <br>
+ * Readers can be created over a ByteBuf or a {@link DataInput}, or from a {@link NBTCodec},
+ * which handles byte order and compression.
+ *
+ * @author Nick Robson
+ */
+public class NBTReader implements Closeable {
+
+    /**
+     * The kinds of token a reader moves through.
+     */
+    public enum Token {
+        BYTE, SHORT, INT, LONG, FLOAT, DOUBLE, STRING, BYTE_ARRAY, INT_ARRAY, LONG_ARRAY,
+        COMPOUND_START, COMPOUND_END, LIST_START, LIST_END,
+
+        /**
+         * A tag of a type registered through {@link NBTTagRegistry} other than the standard ones,
+         * available from {@link #tagValue()}.
+         */
+        TAG,
+
+        /**
+         * The end of the root tag.
+         */
+        END
+    }
+
+    private final ByteBuf buf;
+    private final DataInput in;
+    private final ByteOrder order;
+    private final Closeable resource;
+    private final NBTNameCache names;
+
+    private byte[] frameTypes = new byte[8];
+    private byte[] elementTypes = new byte[8];
+    private int[] remaining = new int[8];
+    private int depth;
+    private boolean started;
+
+    private Token token;
+    private String name;
+    private long longValue;
+    private double doubleValue;
+    private int length;
+    private byte elementType;
+    private boolean pending;
+    private String stringValue;
+    private NBTTag tagValue;
+
+    /**
+     * Creates a reader over the given buffer, advancing its reader index as tokens are read.
+     *
+     * @param buf The buffer to read from.
+     * @param order The byte order.
+     */
+    public NBTReader(ByteBuf buf, ByteOrder order) {
+        this(buf, null, order, null, null);
+    }
+
+    /**
+     * Creates a reader over the given input. <br>
+     * The input is expected to be in the byte order the data was written with,
+     * see {@link LittleEndianDataInput}.
+     *
+     * @param in The input to read from.
+     */
+    public NBTReader(DataInput in) {
+        this(null, in, null, null, null);
+    }
+
+    NBTReader(ByteBuf buf, DataInput in, ByteOrder order, Closeable resource, NBTNameCache names) {
+        this.buf = buf;
+        this.in = in;
+        this.order = order;
+        this.resource = resource;
+        this.names = names;
+    }
+
+    /**
+     * Moves to the next token, skipping the value of the current token if it has not been read.
+     *
+     * @return The token.
+     */
+    public Token next() {
+        if (pending)
+            skipPayload();
+        name = null;
+        stringValue = null;
+        tagValue = null;
+        if (depth == 0) {
+            if (started)
+                return token = Token.END;
+            started = true;
+            byte type = readByte();
+            if (type == NBTParser.END)
+                return token = Token.END;
+            name = readName();
+            return token = begin(type);
+        }
+        int frame = depth - 1;
+        if (frameTypes[frame] == NBTParser.COMPOUND) {
+            byte type = readByte();
+            if (type == NBTParser.END) {
+                depth--;
+                return token = Token.COMPOUND_END;
+            }
+            name = readName();
+            return token = begin(type);
+        }
+        if (remaining[frame] == 0) {
+            depth--;
+            return token = Token.LIST_END;
+        }
+        remaining[frame]--;
+        return token = begin(elementTypes[frame]);
+    }
+
+    private Token begin(byte type) {
+        switch (type) {
+            case NBTParser.BYTE:
+                longValue = readByte();
+                return Token.BYTE;
+            case NBTParser.SHORT:
+                longValue = readShort();
+                return Token.SHORT;
+            case NBTParser.INT:
+                longValue = readInt();
+                return Token.INT;
+            case NBTParser.LONG:
+                longValue = readLong();
+                return Token.LONG;
+            case NBTParser.FLOAT:
+                doubleValue = Float.intBitsToFloat(readInt());
+                return Token.FLOAT;
+            case NBTParser.DOUBLE:
+                doubleValue = Double.longBitsToDouble(readLong());
+                return Token.DOUBLE;
+            case NBTParser.STRING:
+                pending = true;
+                return Token.STRING;
+            case NBTParser.BYTE_ARRAY:
+                beginArray(type);
+                return Token.BYTE_ARRAY;
+            case NBTParser.INT_ARRAY:
+                beginArray(type);
+                return Token.INT_ARRAY;
+            case NBTParser.LONG_ARRAY:
+                beginArray(type);
+                return Token.LONG_ARRAY;
+            case NBTParser.LIST:
+                elementType = readByte();
+                length = readLength();
+                push(NBTParser.LIST, elementType, elementType == NBTParser.END ? 0 : length);
+                return Token.LIST_START;
+            case NBTParser.COMPOUND:
+                push(NBTParser.COMPOUND, NBTParser.END, 0);
+                return Token.COMPOUND_START;
+            default:
+                tagValue = readPayload(type);
+                return Token.TAG;
+        }
+    }
+
+    private void beginArray(byte type) {
+        elementType = type;
+        length = readLength();
+        pending = true;
+    }
+
+    private void push(byte frameType, byte elementType, int count) {
+        if (depth == frameTypes.length) {
+            frameTypes = Arrays.copyOf(frameTypes, depth * 2);
+            elementTypes = Arrays.copyOf(elementTypes, depth * 2);
+            remaining = Arrays.copyOf(remaining, depth * 2);
+        }
+        frameTypes[depth] = frameType;
+        elementTypes[depth] = elementType;
+        remaining[depth] = count;
+        depth++;
+    }
+
+    /**
+     * Gets the current token.
+     *
+     * @return The token, or null if {@link #next()} has not been called.
+     */
+    public Token token() {
+        return token;
+    }
+
+    /**
+     * Gets the name of the current tag.
+     *
+     * @return The name, or null for the elements of a list and for end tokens.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Gets how deeply nested the reader is, which is the number of compounds and lists it is inside.
+     * At a start token, the reader is already inside the new compound or list, and at an end token it has left it.
+     *
+     * @return The depth.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Skips the contents of the current compound or list, or the value of the current string or array,
+     * so that the next token is the one after it. For other tokens, this does nothing.
+     */
+    public void skipValue() {
+        if (pending) {
+            skipPayload();
+            return;
+        }
+        if (token != Token.COMPOUND_START && token != Token.LIST_START)
+            return;
+        int frame = depth - 1;
+        if (buf != null) {
+            if (frameTypes[frame] == NBTParser.COMPOUND)
+                NBTParser.skip(buf, order, NBTParser.COMPOUND);
+            else
+                NBTParser.skipElements(buf, order, elementTypes[frame], remaining[frame]);
+        } else {
+            int target = depth - 1;
+            while (depth > target)
+                next();
+        }
+        depth = frame;
+        token = token == Token.COMPOUND_START ? Token.COMPOUND_END : Token.LIST_END;
+    }
+
+    private void skipPayload() {
+        pending = false;
+        switch (token) {
+            case STRING:
+                skipBytes(readUnsignedShort());
+                break;
+            case BYTE_ARRAY:
+            case INT_ARRAY:
+            case LONG_ARRAY:
+                skipBytes(Math.multiplyExact(length, NBTTagRegistry.elementWidth(elementType)));
+                break;
+        }
+    }
+
+    private boolean isFloatingPoint() {
+        if (token != null) {
+            switch (token) {
+                case BYTE:
+                case SHORT:
+                case INT:
+                case LONG:
+                    return false;
+                case FLOAT:
+                case DOUBLE:
+                    return true;
+            }
+        }
+        throw new IllegalStateException("not a number: " + token);
+    }
+
+    /**
+     * Gets the value of the current number, which may be any of the numeric tokens.
+     *
+     * @return The value, converted to a byte.
+     */
+    public byte byteValue() {
+        return (byte) longValue();
+    }
+
+    /**
+     * Gets the value of the current number, which may be any of the numeric tokens.
+     *
+     * @return The value, converted to a short.
+     */
+    public short shortValue() {
+        return (short) longValue();
+    }
+
+    /**
+     * Gets the value of the current number, which may be any of the numeric tokens.
+     *
+     * @return The value, converted to an int.
+     */
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    /**
+     * Gets the value of the current number, which may be any of the numeric tokens.
+     *
+     * @return The value, converted to a long.
+     */
+    public long longValue() {
+        return isFloatingPoint() ? (long) doubleValue : longValue;
+    }
+
+    /**
+     * Gets the value of the current number, which may be any of the numeric tokens.
+     *
+     * @return The value, converted to a float.
+     */
+    public float floatValue() {
+        return (float) doubleValue();
+    }
+
+    /**
+     * Gets the value of the current number, which may be any of the numeric tokens.
+     *
+     * @return The value, converted to a double.
+     */
+    public double doubleValue() {
+        return isFloatingPoint() ? doubleValue : longValue;
+    }
+
+    /**
+     * Reads the value of the current string.
+     *
+     * @return The string.
+     */
+    public String stringValue() {
+        expect(Token.STRING);
+        if (pending) {
+            pending = false;
+            stringValue = readString();
+        }
+        return stringValue;
+    }
+
+    /**
+     * Reads the value of the current byte array. This can only be done once per array.
+     *
+     * @return The array.
+     */
+    public byte[] byteArrayValue() {
+        expect(Token.BYTE_ARRAY);
+        checkPending();
+        try {
+            return buf != null ? ArrayBuffers.readBytes(buf, length) : ArrayBuffers.readBytes(in, length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads the value of the current int array. This can only be done once per array.
+     *
+     * @return The array.
+     */
+    public int[] intArrayValue() {
+        expect(Token.INT_ARRAY);
+        checkPending();
+        try {
+            return buf != null ? ArrayBuffers.readInts(buf, length, order) : ArrayBuffers.readInts(in, length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads the value of the current long array. This can only be done once per array.
+     *
+     * @return The array.
+     */
+    public long[] longArrayValue() {
+        expect(Token.LONG_ARRAY);
+        checkPending();
+        try {
+            return buf != null ? ArrayBuffers.readLongs(buf, length, order) : ArrayBuffers.readLongs(in, length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Gets the length of the current array, or the number of elements in the current list.
+     *
+     * @return The length.
+     */
+    public int length() {
+        if (token != Token.BYTE_ARRAY && token != Token.INT_ARRAY && token != Token.LONG_ARRAY && token != Token.LIST_START)
+            throw new IllegalStateException("not an array or list: " + token);
+        return length;
+    }
+
+    /**
+     * Gets the type ID of the elements of the current list.
+     *
+     * @return The type ID.
+     */
+    public byte listType() {
+        expect(Token.LIST_START);
+        return elementType;
+    }
+
+    /**
+     * Gets the current tag of a non-standard type.
+     *
+     * @return The tag.
+     */
+    public NBTTag tagValue() {
+        expect(Token.TAG);
+        return tagValue;
+    }
+
+    /**
+     * Releases the buffer or closes the stream this reader was created with by a {@link NBTCodec}, if any.
+     * Buffers and inputs given to the constructors are left alone.
+     */
+    @Override
+    public void close() {
+        if (resource == null)
+            return;
+        try {
+            resource.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void expect(Token expected) {
+        if (token != expected)
+            throw new IllegalStateException("expected " + expected + " but was " + token);
+    }
+
+    private void checkPending() {
+        if (!pending)
+            throw new IllegalStateException(token + " value has already been read");
+        pending = false;
+    }
+
+    private byte readByte() {
+        if (buf != null)
+            return buf.readByte();
+        try {
+            return in.readByte();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private short readShort() {
+        if (buf != null)
+            return order == ByteOrder.BIG_ENDIAN ? buf.readShort() : buf.readShortLE();
+        try {
+            return in.readShort();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private int readUnsignedShort() {
+        return readShort() & 0xFFFF;
+    }
+
+    private int readInt() {
+        if (buf != null)
+            return order == ByteOrder.BIG_ENDIAN ? buf.readInt() : buf.readIntLE();
+        try {
+            return in.readInt();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private int readLength() {
+        int length = readInt();
+        if (length < 0)
+            throw new IllegalStateException("negative length: " + length);
+        return length;
+    }
+
+    private long readLong() {
+        if (buf != null)
+            return order == ByteOrder.BIG_ENDIAN ? buf.readLong() : buf.readLongLE();
+        try {
+            return in.readLong();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private String readName() {
+        if (names == null)
+            return readString();
+        if (buf != null)
+            return names.read(buf, order);
+        try {
+            return names.read(in);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private String readString() {
+        if (buf != null)
+            return NBTTag.readString(buf, order);
+        try {
+            return NBTTag.readString(in);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void skipBytes(int n) {
+        if (buf != null) {
+            buf.skipBytes(n);
+            return;
+        }
+        try {
+            while (n > 0) {
+                int skipped = in.skipBytes(n);
+                if (skipped > 0) {
+                    n -= skipped;
+                } else {
+                    in.readByte();
+                    n--;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private NBTTag readPayload(byte type) {
+        if (buf != null)
+            return NBTTagRegistry.readPayload(type, buf, order);
+        try {
+            return NBTTagRegistry.readPayload(type, in);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
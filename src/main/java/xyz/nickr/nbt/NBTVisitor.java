@@ -0,0 +1,145 @@
+package xyz.nickr.nbt;
+
+import io.netty.buffer.ByteBuf;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Receives the contents of encoded NBT as a series of events, without any tags being created. <br>
+ * See {@link NBTCodec#visit(ByteBuf, NBTCompression, NBTVisitor)}.
+ * Every method does nothing by default, so only the events of interest need to be overridden.
+ * Names are null for the elements of a list.
+ *
+ * @author Nick Robson
+ */
+public interface NBTVisitor {
+
+    /**
+     * Visits the start of a compound tag.
+     *
+     * @param name The compound's name.
+     *
+     * @return True to visit the compound's entries followed by {@link #visitCompoundEnd()},
+     *         false to skip past the compound.
+     */
+    default boolean visitCompoundStart(String name) {
+        return true;
+    }
+
+    /**
+     * Visits the end of a compound tag whose entries were visited.
+     */
+    default void visitCompoundEnd() {}
+
+    /**
+     * Visits the start of a list tag.
+     *
+     * @param name The list's name.
+     * @param elementType The type ID of the list's elements.
+     * @param size The number of elements.
+     *
+     * @return True to visit the list's elements followed by {@link #visitListEnd()},
+     *         false to skip past the list.
+     */
+    default boolean visitListStart(String name, byte elementType, int size) {
+        return true;
+    }
+
+    /**
+     * Visits the end of a list tag whose elements were visited.
+     */
+    default void visitListEnd() {}
+
+    /**
+     * Visits a byte tag.
+     *
+     * @param name The tag's name.
+     * @param value The tag's value.
+     */
+    default void visitByte(String name, byte value) {}
+
+    /**
+     * Visits a short tag.
+     *
+     * @param name The tag's name.
+     * @param value The tag's value.
+     */
+    default void visitShort(String name, short value) {}
+
+    /**
+     * Visits an int tag.
+     *
+     * @param name The tag's name.
+     * @param value The tag's value.
+     */
+    default void visitInt(String name, int value) {}
+
+    /**
+     * Visits a long tag.
+     *
+     * @param name The tag's name.
+     * @param value The tag's value.
+     */
+    default void visitLong(String name, long value) {}
+
+    /**
+     * Visits a float tag.
+     *
+     * @param name The tag's name.
+     * @param value The tag's value.
+     */
+    default void visitFloat(String name, float value) {}
+
+    /**
+     * Visits a double tag.
+     *
+     * @param name The tag's name.
+     * @param value The tag's value.
+     */
+    default void visitDouble(String name, double value) {}
+
+    /**
+     * Visits a string tag.
+     *
+     * @param name The tag's name.
+     * @param value The tag's value.
+     */
+    default void visitString(String name, String value) {}
+
+    /**
+     * Visits a byte array tag.
+     *
+     * @param name The tag's name.
+     * @param value A slice of the encoded data holding the array, which is only valid until this method returns.
+     */
+    default void visitByteArray(String name, ByteBuf value) {}
+
+    /**
+     * Visits an int array tag.
+     *
+     * @param name The tag's name.
+     * @param value A slice of the encoded data holding the array, which is only valid until this method returns.
+     *              Its ints are in the codec's byte order, so are read with {@link ByteBuf#getInt(int)}
+     *              or {@link ByteBuf#getIntLE(int)}.
+     */
+    default void visitIntArray(String name, ByteBuf value) {}
+
+    /**
+     * Visits a long array tag.
+     *
+     * @param name The tag's name.
+     * @param value A slice of the encoded data holding the array, which is only valid until this method returns.
+     *              Its longs are in the codec's byte order, so are read with {@link ByteBuf#getLong(int)}
+     *              or {@link ByteBuf#getLongLE(int)}.
+     */
+    default void visitLongArray(String name, ByteBuf value) {}
+
+    /**
+     * Visits a tag of a type registered through {@link xyz.nickr.nbt.tags.NBTTagRegistry}
+     * other than the standard ones, which is decoded in order to be visited.
+     *
+     * @param name The tag's name.
+     * @param tag The tag.
+     */
+    default void visitTag(String name, NBTTag tag) {}
+
+}
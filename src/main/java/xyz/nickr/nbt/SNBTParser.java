@@ -0,0 +1,459 @@
+package xyz.nickr.nbt;
+
+import java.util.Arrays;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.ByteTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.DoubleTag;
+import xyz.nickr.nbt.tags.FloatTag;
+import xyz.nickr.nbt.tags.IntArrayTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.LongArrayTag;
+import xyz.nickr.nbt.tags.LongTag;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.ShortTag;
+import xyz.nickr.nbt.tags.StringTag;
+
+/**
+ * Parses SNBT (stringified NBT), such as {@code {id:"minecraft:stone",Count:1b}}, into tags in a single pass. <br>
+ * Numbers are suffixed with their type ({@code b}, {@code s}, {@code L}, {@code f} or {@code d}, in either case),
+ * unsuffixed whole numbers are ints and other unsuffixed numbers are doubles; {@code true} and {@code false} are bytes.
+ * Anything else unquoted, including numbers out of their type's range, is a string.
+ * Arrays are written {@code [B;1b,2b]}, {@code [I;1,2]} and {@code [L;1L,2L]}, and their elements are read
+ * straight into a primitive array. Whitespace is allowed between any two tokens. <br>
+ * The root tag is named {@code ""}, so that it can be encoded.
+ *
+ * @author Nick Robson
+ */
+public final class SNBTParser {
+
+    private static final int MAX_DEPTH = 512;
+
+    /**
+     * Parses a tag.
+     *
+     * @param text The SNBT.
+     *
+     * @return The tag.
+     *
+     * @throws IllegalStateException If the text is not valid SNBT.
+     */
+    public static NBTTag parse(CharSequence text) {
+        SNBTParser parser = new SNBTParser(text);
+        NBTTag tag = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.pos < parser.length)
+            throw parser.error("trailing data");
+        return tag.setName("");
+    }
+
+    /**
+     * Parses a compound tag.
+     *
+     * @param text The SNBT.
+     *
+     * @return The compound.
+     *
+     * @throws IllegalStateException If the text is not valid SNBT, or not a compound.
+     */
+    public static CompoundTag parseCompound(CharSequence text) {
+        NBTTag tag = parse(text);
+        if (!tag.isCompoundTag())
+            throw new IllegalStateException("SNBT is not a compound");
+        return tag.getAsCompoundTag();
+    }
+
+    /**
+     * Checks whether or not a character may appear in an unquoted name or string.
+     */
+    static boolean isUnquoted(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                || c == '_' || c == '-' || c == '.' || c == '+';
+    }
+
+    /**
+     * Checks whether or not a string may be written unquoted.
+     */
+    static boolean isUnquoted(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (!isUnquoted(s.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    private final CharSequence text;
+    private final int length;
+    private int pos;
+    private int depth;
+
+    private SNBTParser(CharSequence text) {
+        this.text = text;
+        this.length = text.length();
+    }
+
+    private NBTTag readValue() {
+        skipWhitespace();
+        if (pos >= length)
+            throw error("expected value");
+        char c = text.charAt(pos);
+        switch (c) {
+            case '{': {
+                enter();
+                NBTTag tag = readCompound();
+                depth--;
+                return tag;
+            }
+            case '[': {
+                enter();
+                NBTTag tag = readListOrArray();
+                depth--;
+                return tag;
+            }
+            case '"':
+            case '\'':
+                return new StringTag(readQuoted());
+            default:
+                return readUnquotedValue();
+        }
+    }
+
+    private CompoundTag readCompound() {
+        CompoundTag compound = new CompoundTag();
+        pos++;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return compound;
+        }
+        while (true) {
+            skipWhitespace();
+            String key = readKey();
+            skipWhitespace();
+            expect(':');
+            NBTTag tag = readValue();
+            compound.add(tag.setName(key));
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect('}');
+                return compound;
+            }
+        }
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH)
+            throw error("too deeply nested");
+    }
+
+    private String readKey() {
+        char c = peek();
+        if (c == '"' || c == '\'')
+            return readQuoted();
+        int start = pos;
+        while (pos < length && isUnquoted(text.charAt(pos)))
+            pos++;
+        if (pos == start)
+            throw error("expected key");
+        return text.subSequence(start, pos).toString();
+    }
+
+    private NBTTag readListOrArray() {
+        if (pos + 2 < length && text.charAt(pos + 2) == ';') {
+            char kind = text.charAt(pos + 1);
+            if (kind == 'B' || kind == 'I' || kind == 'L') {
+                pos += 3;
+                return readArray(kind);
+            }
+        }
+        pos++;
+        ListTag list = new ListTag();
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return list;
+        }
+        byte type = 0;
+        while (true) {
+            int start = pos;
+            NBTTag tag = readValue();
+            if (list.size() == 0) {
+                type = tag.getTypeId();
+            } else if (tag.getTypeId() != type) {
+                pos = start;
+                throw error("list elements must all be of the same type");
+            }
+            list.add(tag);
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect(']');
+                return list;
+            }
+        }
+    }
+
+    private NBTTag readArray(char kind) {
+        long[] values = new long[16];
+        int size = 0;
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                int start = pos;
+                int end = unquotedEnd();
+                char suffix = end > start ? Character.toLowerCase(text.charAt(end - 1)) : '\0';
+                char expected = kind == 'B' ? 'b' : kind == 'L' ? 'l' : '\0';
+                long min = kind == 'B' ? Byte.MIN_VALUE : kind == 'I' ? Integer.MIN_VALUE : Long.MIN_VALUE;
+                long max = kind == 'B' ? Byte.MAX_VALUE : kind == 'I' ? Integer.MAX_VALUE : Long.MAX_VALUE;
+                int digitsEnd = suffix == expected && expected != '\0' ? end - 1 : end;
+                if (!isInteger(start, digitsEnd) || !inRange(start, digitsEnd, min, max))
+                    throw error("invalid element of " + kind + " array");
+                if (size == values.length)
+                    values = Arrays.copyOf(values, size * 2);
+                values[size++] = parseLong(start, digitsEnd);
+                pos = end;
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    break;
+                }
+            }
+        }
+        switch (kind) {
+            case 'B': {
+                byte[] array = new byte[size];
+                for (int i = 0; i < size; i++)
+                    array[i] = (byte) values[i];
+                return new ByteArrayTag(array);
+            }
+            case 'I': {
+                int[] array = new int[size];
+                for (int i = 0; i < size; i++)
+                    array[i] = (int) values[i];
+                return new IntArrayTag(array);
+            }
+            default:
+                return new LongArrayTag(Arrays.copyOf(values, size));
+        }
+    }
+
+    private String readQuoted() {
+        char quote = text.charAt(pos++);
+        int start = pos;
+        StringBuilder builder = null;
+        while (true) {
+            if (pos >= length)
+                throw error("unterminated string");
+            char c = text.charAt(pos);
+            if (c == quote) {
+                String value = builder != null
+                        ? builder.append(text, start, pos).toString()
+                        : text.subSequence(start, pos).toString();
+                pos++;
+                return value;
+            }
+            if (c == '\\') {
+                if (builder == null)
+                    builder = new StringBuilder(pos - start + 16);
+                builder.append(text, start, pos);
+                if (++pos >= length)
+                    throw error("unterminated string");
+                builder.append(unescape(text.charAt(pos)));
+                start = ++pos;
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    private char unescape(char c) {
+        switch (c) {
+            case '\\':
+            case '"':
+            case '\'':
+                return c;
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            case 'r':
+                return '\r';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            default:
+                throw error("invalid escape");
+        }
+    }
+
+    private NBTTag readUnquotedValue() {
+        int start = pos;
+        int end = unquotedEnd();
+        if (end == start)
+            throw error("expected value");
+        pos = end;
+        char last = text.charAt(end - 1);
+        switch (last) {
+            case 'b':
+            case 'B':
+                if (isInteger(start, end - 1) && inRange(start, end - 1, Byte.MIN_VALUE, Byte.MAX_VALUE))
+                    return new ByteTag((byte) parseLong(start, end - 1));
+                break;
+            case 's':
+            case 'S':
+                if (isInteger(start, end - 1) && inRange(start, end - 1, Short.MIN_VALUE, Short.MAX_VALUE))
+                    return new ShortTag((short) parseLong(start, end - 1));
+                break;
+            case 'l':
+            case 'L':
+                if (isInteger(start, end - 1) && inRange(start, end - 1, Long.MIN_VALUE, Long.MAX_VALUE))
+                    return new LongTag(parseLong(start, end - 1));
+                break;
+            case 'f':
+            case 'F':
+                if (isDecimal(start, end - 1))
+                    return new FloatTag(Float.parseFloat(text.subSequence(start, end - 1).toString()));
+                break;
+            case 'd':
+            case 'D':
+                if (isDecimal(start, end - 1))
+                    return new DoubleTag(Double.parseDouble(text.subSequence(start, end - 1).toString()));
+                break;
+            default:
+                if (isInteger(start, end)) {
+                    if (inRange(start, end, Integer.MIN_VALUE, Integer.MAX_VALUE))
+                        return new IntTag((int) parseLong(start, end));
+                } else if (isDecimal(start, end)) {
+                    return new DoubleTag(Double.parseDouble(text.subSequence(start, end).toString()));
+                }
+        }
+        String value = text.subSequence(start, end).toString();
+        if (value.equals("true"))
+            return new ByteTag(1);
+        if (value.equals("false"))
+            return new ByteTag(0);
+        return new StringTag(value);
+    }
+
+    private int unquotedEnd() {
+        int end = pos;
+        while (end < length && isUnquoted(text.charAt(end)))
+            end++;
+        return end;
+    }
+
+    /**
+     * Checks for an optional sign followed by at most 19 digits.
+     */
+    private boolean isInteger(int start, int end) {
+        if (start < end && (text.charAt(start) == '-' || text.charAt(start) == '+'))
+            start++;
+        if (start == end || end - start > 19)
+            return false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks for an optional sign, digits with at most one point, and an optional exponent.
+     */
+    private boolean isDecimal(int start, int end) {
+        int i = start;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+'))
+            i++;
+        int digits = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0)
+            return false;
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+'))
+                i++;
+            int exponent = i;
+            while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9')
+                i++;
+            if (i == exponent)
+                return false;
+        }
+        return i == end;
+    }
+
+    /**
+     * Checks whether an integer, as checked by {@link #isInteger(int, int)}, is within the given range.
+     */
+    private boolean inRange(int start, int end, long min, long max) {
+        boolean negative = text.charAt(start) == '-';
+        if (negative || text.charAt(start) == '+')
+            start++;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            // accumulate negatively, as the negative range is larger
+            if (value < (Long.MIN_VALUE + digit) / 10)
+                return false;
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE)
+                return false;
+            value = -value;
+        }
+        return value >= min && value <= max;
+    }
+
+    private long parseLong(int start, int end) {
+        boolean negative = text.charAt(start) == '-';
+        if (negative || text.charAt(start) == '+')
+            start++;
+        long value = 0;
+        for (int i = start; i < end; i++)
+            value = value * 10 - (text.charAt(i) - '0');
+        return negative ? value : -value;
+    }
+
+    private void skipWhitespace() {
+        while (pos < length && Character.isWhitespace(text.charAt(pos)))
+            pos++;
+    }
+
+    private char peek() {
+        if (pos >= length)
+            throw error("unexpected end");
+        return text.charAt(pos);
+    }
+
+    private void expect(char c) {
+        if (peek() != c)
+            throw error("expected '" + c + "'");
+        pos++;
+    }
+
+    private IllegalStateException error(String message) {
+        return new IllegalStateException(message + " at index " + pos + " of SNBT");
+    }
+
+}
@@ -0,0 +1,337 @@
+package xyz.nickr.nbt;
+
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import xyz.nickr.nbt.tags.ByteTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.DoubleTag;
+import xyz.nickr.nbt.tags.FloatTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.LongTag;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.ShortTag;
+
+/**
+ * Writes tags as SNBT (stringified NBT), such as {@code {id:"minecraft:stone",Count:1b}}, to an {@link Appendable}. <br>
+ * In compact mode nothing but the tags is written. In pretty mode, compounds and lists of compounds, lists or arrays
+ * have one entry per line, indented by four spaces per level, and other lists and arrays are written on one line. <br>
+ * Compounds are written in their own order, and names are quoted only when they need to be.
+ * The tags' names are not written, except as the keys of compounds.
+ * Nothing is ever marked as dirty, and packed lists stay packed. Tags can be read back with {@link SNBTParser}.
+ *
+ * @author Nick Robson
+ */
+public class SNBTWriter {
+
+    private static final String INDENT = "    ";
+
+    /**
+     * Writes a tag as compact SNBT.
+     *
+     * @param tag The tag.
+     *
+     * @return The SNBT.
+     */
+    public static String toString(NBTTag tag) {
+        StringBuilder builder = new StringBuilder();
+        new SNBTWriter(builder, false).write(tag);
+        return builder.toString();
+    }
+
+    /**
+     * Writes a tag as pretty SNBT.
+     *
+     * @param tag The tag.
+     *
+     * @return The SNBT.
+     */
+    public static String toPrettyString(NBTTag tag) {
+        StringBuilder builder = new StringBuilder();
+        new SNBTWriter(builder, true).write(tag);
+        return builder.toString();
+    }
+
+    private final Appendable out;
+    private final StringBuilder builder;
+    private final boolean pretty;
+
+    /**
+     * Creates a writer appending to a given Appendable.
+     *
+     * @param out The appendable to write to.
+     * @param pretty True to write pretty SNBT, false to write compact SNBT.
+     */
+    public SNBTWriter(Appendable out, boolean pretty) {
+        this.out = out;
+        this.builder = out instanceof StringBuilder ? (StringBuilder) out : null;
+        this.pretty = pretty;
+    }
+
+    /**
+     * Writes a tag.
+     *
+     * @param tag The tag.
+     *
+     * @return This writer.
+     *
+     * @throws UncheckedIOException If appending fails.
+     * @throws IllegalStateException If a tag is of a type which SNBT cannot represent.
+     */
+    public SNBTWriter write(NBTTag tag) {
+        try {
+            writeTag(tag, 0);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return this;
+    }
+
+    private void writeTag(NBTTag tag, int depth) throws IOException {
+        switch (tag.getTypeId()) {
+            case NBTParser.BYTE:
+                writeLong(((ByteTag) tag).get(), 'b');
+                break;
+            case NBTParser.SHORT:
+                writeLong(((ShortTag) tag).get(), 's');
+                break;
+            case NBTParser.INT:
+                writeLong(((IntTag) tag).get(), '\0');
+                break;
+            case NBTParser.LONG:
+                writeLong(((LongTag) tag).get(), 'L');
+                break;
+            case NBTParser.FLOAT:
+                writeFloat(((FloatTag) tag).get());
+                break;
+            case NBTParser.DOUBLE:
+                writeDouble(((DoubleTag) tag).get());
+                break;
+            case NBTParser.STRING:
+                writeString(tag.getAsString());
+                break;
+            case NBTParser.BYTE_ARRAY:
+                writeByteArray(tag.getAsByteArrayTag().getBuffer());
+                break;
+            case NBTParser.INT_ARRAY:
+                writeIntArray(tag.getAsIntArrayTag().getBuffer());
+                break;
+            case NBTParser.LONG_ARRAY:
+                writeLongArray(tag.getAsLongArrayTag().getBuffer());
+                break;
+            case NBTParser.LIST:
+                writeList(tag.getAsListTag(), depth);
+                break;
+            case NBTParser.COMPOUND:
+                writeCompound(tag.getAsCompoundTag(), depth);
+                break;
+            default:
+                throw new IllegalStateException("tag cannot be written as SNBT: " + tag.getClass().getName());
+        }
+    }
+
+    private void writeCompound(CompoundTag compound, int depth) throws IOException {
+        if (compound.size() == 0) {
+            append("{}");
+            return;
+        }
+        append('{');
+        boolean first = true;
+        for (NBTTag tag : compound) {
+            if (!first)
+                append(',');
+            first = false;
+            newLine(depth + 1);
+            writeKey(tag.getName().orElse(""));
+            append(':');
+            if (pretty)
+                append(' ');
+            writeTag(tag, depth + 1);
+        }
+        newLine(depth);
+        append('}');
+    }
+
+    private void writeList(ListTag list, int depth) throws IOException {
+        int size = list.size();
+        byte type = list.getElementType();
+        if (size == 0) {
+            append("[]");
+            return;
+        }
+        append('[');
+        if (type >= NBTParser.BYTE && type <= NBTParser.DOUBLE) {
+            for (int i = 0; i < size; i++) {
+                if (i > 0)
+                    separator();
+                switch (type) {
+                    case NBTParser.BYTE:
+                        writeLong(list.getByte(i), 'b');
+                        break;
+                    case NBTParser.SHORT:
+                        writeLong(list.getShort(i), 's');
+                        break;
+                    case NBTParser.INT:
+                        writeLong(list.getInt(i), '\0');
+                        break;
+                    case NBTParser.LONG:
+                        writeLong(list.getLong(i), 'L');
+                        break;
+                    case NBTParser.FLOAT:
+                        writeFloat(list.getFloat(i));
+                        break;
+                    default:
+                        writeDouble(list.getDouble(i));
+                }
+            }
+        } else {
+            boolean multiline = type != NBTParser.STRING;
+            for (int i = 0; i < size; i++) {
+                if (i > 0)
+                    append(',');
+                if (multiline) {
+                    newLine(depth + 1);
+                } else if (i > 0 && pretty) {
+                    append(' ');
+                }
+                writeTag(list.get(i), depth + 1);
+            }
+            if (multiline)
+                newLine(depth);
+        }
+        append(']');
+    }
+
+    private void writeByteArray(ByteBuf value) throws IOException {
+        append("[B;");
+        for (int i = value.readerIndex(), end = value.writerIndex(); i < end; i++) {
+            if (i > value.readerIndex())
+                separator();
+            else if (pretty)
+                append(' ');
+            writeLong(value.getByte(i), 'b');
+        }
+        append(']');
+    }
+
+    private void writeIntArray(IntBuffer value) throws IOException {
+        append("[I;");
+        for (int i = 0; i < value.limit(); i++) {
+            if (i > 0)
+                separator();
+            else if (pretty)
+                append(' ');
+            writeLong(value.get(i), '\0');
+        }
+        append(']');
+    }
+
+    private void writeLongArray(LongBuffer value) throws IOException {
+        append("[L;");
+        for (int i = 0; i < value.limit(); i++) {
+            if (i > 0)
+                separator();
+            else if (pretty)
+                append(' ');
+            writeLong(value.get(i), 'L');
+        }
+        append(']');
+    }
+
+    private void writeLong(long value, char suffix) throws IOException {
+        if (builder != null) {
+            builder.append(value);
+        } else {
+            out.append(Long.toString(value));
+        }
+        if (suffix != '\0')
+            append(suffix);
+    }
+
+    private void writeFloat(float value) throws IOException {
+        if (builder != null) {
+            builder.append(value);
+        } else {
+            out.append(Float.toString(value));
+        }
+        append('f');
+    }
+
+    private void writeDouble(double value) throws IOException {
+        if (builder != null) {
+            builder.append(value);
+        } else {
+            out.append(Double.toString(value));
+        }
+        append('d');
+    }
+
+    private void writeKey(String key) throws IOException {
+        if (!key.isEmpty() && SNBTParser.isUnquoted(key)) {
+            append(key);
+        } else {
+            writeString(key);
+        }
+    }
+
+    /**
+     * Writes a quoted string, choosing single quotes if that avoids escaping double quotes.
+     */
+    private void writeString(String value) throws IOException {
+        char quote = value.indexOf('"') >= 0 && value.indexOf('\'') < 0 ? '\'' : '"';
+        append(quote);
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == quote || c == '\\') {
+                append(value, start, i);
+                append('\\');
+                start = i;
+            }
+        }
+        append(value, start, value.length());
+        append(quote);
+    }
+
+    private void separator() throws IOException {
+        append(',');
+        if (pretty)
+            append(' ');
+    }
+
+    private void newLine(int depth) throws IOException {
+        if (!pretty)
+            return;
+        append('\n');
+        for (int i = 0; i < depth; i++)
+            append(INDENT);
+    }
+
+    private void append(char c) throws IOException {
+        if (builder != null) {
+            builder.append(c);
+        } else {
+            out.append(c);
+        }
+    }
+
+    private void append(CharSequence s) throws IOException {
+        if (builder != null) {
+            builder.append(s);
+        } else {
+            out.append(s);
+        }
+    }
+
+    private void append(CharSequence s, int start, int end) throws IOException {
+        if (builder != null) {
+            builder.append(s, start, end);
+        } else {
+            out.append(s, start, end);
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+package xyz.nickr.nbt;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Compresses and extracts ByteBufs using pooled inflaters and deflaters from {@link ZlibPool}. <br>
+ * Heap buffers are passed straight to zlib through their backing arrays, so no stream or intermediate
+ * copy is involved. Direct buffers have no array to hand over before Java 11, so they are staged
+ * through a small chunk instead. Extracted buffers are sized up front from the GZip trailer's size
+ * field where there is one, or from the compressed size otherwise, and grow from there if that is too small.
+ * Neither is trusted for more than a few times the compressed size.
+ *
+ * @author Nick Robson
+ */
+final class ZlibBuffers {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * The most the GZip trailer's size field is trusted to expand data by, as it may be wrong
+     * or may not be the trailer at all when more data follows the stream.
+     */
+    private static final int MAX_RATIO = 16;
+
+    /**
+     * The largest buffer allocated up front, however large the data is.
+     */
+    private static final int MAX_HINT = 1 << 24;
+
+    /**
+     * The expansion assumed for ZLib data, which has no size field.
+     */
+    private static final int ZLIB_RATIO = 4;
+
+    private ZlibBuffers() {}
+
+    /**
+     * Extracts one ZLib or GZip stream from the given buffer, advancing its reader index past it.
+     *
+     * @param in The buffer to extract from.
+     * @param alloc The allocator to allocate the extracted buffer with.
+     * @param gzip True for GZip data, false for ZLib data.
+     *
+     * @return The extracted buffer, owned by the caller.
+     */
+    static ByteBuf inflate(ByteBuf in, ByteBufAllocator alloc, boolean gzip) {
+        ByteBuf out = alloc.buffer(inflatedSizeHint(in, gzip));
+        Inflater inf = ZlibPool.inflater(gzip);
+        boolean release = true;
+        try {
+            if (gzip)
+                ZlibStreams.readHeader(new ByteBufInputStream(in));
+            int start = in.readerIndex(), len = in.readableBytes(), fed = 0;
+            byte[] chunk = in.hasArray() ? null : new byte[Math.min(len, CHUNK_SIZE)];
+            byte[] scratch = out.hasArray() ? null : new byte[CHUNK_SIZE];
+            while (!inf.finished()) {
+                if (inf.needsInput()) {
+                    if (fed == len)
+                        throw new EOFException("Unexpected end of compressed data");
+                    fed += setInput(inf, in, start + fed, len - fed, chunk);
+                }
+                if (inf.needsDictionary())
+                    throw new ZipException("Preset dictionaries are not supported");
+                inflate(inf, out, scratch);
+            }
+            in.readerIndex(start + fed - inf.getRemaining());
+            if (gzip)
+                readTrailer(in, out);
+            release = false;
+            return out;
+        } catch (DataFormatException ex) {
+            throw new UncheckedIOException(new ZipException(ex.getMessage()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            ZlibPool.release(inf, gzip);
+            if (release)
+                out.release();
+        }
+    }
+
+    /**
+     * Compresses the given buffer's readable bytes into ZLib or GZip data, without changing its reader index.
+     *
+     * @param in The buffer to compress.
+     * @param alloc The allocator to allocate the compressed buffer with.
+     * @param level The compression level.
+     * @param strategy The compression strategy.
+     * @param gzip True for GZip data, false for ZLib data.
+     *
+     * @return The compressed buffer, owned by the caller.
+     */
+    static ByteBuf deflate(ByteBuf in, ByteBufAllocator alloc, int level, int strategy, boolean gzip) {
+        int start = in.readerIndex(), len = in.readableBytes(), fed = 0;
+        ByteBuf out = alloc.buffer(deflatedSizeBound(len, gzip));
+        Deflater def = ZlibPool.deflater(level, strategy, gzip);
+        boolean release = true;
+        try {
+            if (gzip)
+                out.writeBytes(ZlibStreams.GZIP_HEADER);
+            byte[] chunk = in.hasArray() ? null : new byte[Math.min(len, CHUNK_SIZE)];
+            byte[] scratch = out.hasArray() ? null : new byte[CHUNK_SIZE];
+            while (fed < len) {
+                fed += setInput(def, in, start + fed, len - fed, chunk);
+                while (!def.needsInput())
+                    deflate(def, out, scratch);
+            }
+            def.finish();
+            while (!def.finished())
+                deflate(def, out, scratch);
+            if (gzip) {
+                CRC32 crc = new CRC32();
+                crc.update(in.nioBuffer(start, len));
+                out.writeIntLE((int) crc.getValue());
+                out.writeIntLE(len);
+            }
+            release = false;
+            return out;
+        } finally {
+            ZlibPool.release(def, gzip);
+            if (release)
+                out.release();
+        }
+    }
+
+    private static int inflatedSizeHint(ByteBuf in, boolean gzip) {
+        int len = in.readableBytes();
+        long max = Math.min((long) len * MAX_RATIO, MAX_HINT);
+        if (gzip && len >= ZlibStreams.GZIP_HEADER.length + ZlibStreams.GZIP_TRAILER_SIZE) {
+            long size = in.getUnsignedIntLE(in.writerIndex() - 4);
+            if (size > 0 && size <= max)
+                return (int) size;
+        }
+        return (int) Math.min((long) len * ZLIB_RATIO, max);
+    }
+
+    private static int deflatedSizeBound(int len, boolean gzip) {
+        int bound = len + (len >> 12) + (len >> 14) + (len >> 25) + 13;
+        return gzip ? bound + ZlibStreams.GZIP_HEADER.length + ZlibStreams.GZIP_TRAILER_SIZE : bound;
+    }
+
+    private static int setInput(Inflater inf, ByteBuf in, int index, int len, byte[] chunk) {
+        if (chunk == null) {
+            inf.setInput(in.array(), in.arrayOffset() + index, len);
+            return len;
+        }
+        int n = Math.min(len, chunk.length);
+        in.getBytes(index, chunk, 0, n);
+        inf.setInput(chunk, 0, n);
+        return n;
+    }
+
+    private static int setInput(Deflater def, ByteBuf in, int index, int len, byte[] chunk) {
+        if (chunk == null) {
+            def.setInput(in.array(), in.arrayOffset() + index, len);
+            return len;
+        }
+        int n = Math.min(len, chunk.length);
+        in.getBytes(index, chunk, 0, n);
+        def.setInput(chunk, 0, n);
+        return n;
+    }
+
+    private static void inflate(Inflater inf, ByteBuf out, byte[] scratch) throws DataFormatException {
+        if (scratch != null) {
+            out.writeBytes(scratch, 0, inf.inflate(scratch));
+            return;
+        }
+        if (!out.isWritable())
+            out.ensureWritable(CHUNK_SIZE);
+        int n = inf.inflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+        out.writerIndex(out.writerIndex() + n);
+    }
+
+    private static void deflate(Deflater def, ByteBuf out, byte[] scratch) {
+        if (scratch != null) {
+            out.writeBytes(scratch, 0, def.deflate(scratch));
+            return;
+        }
+        if (!out.isWritable())
+            out.ensureWritable(CHUNK_SIZE);
+        int n = def.deflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+        out.writerIndex(out.writerIndex() + n);
+    }
+
+    private static void readTrailer(ByteBuf in, ByteBuf out) throws IOException {
+        if (in.readableBytes() < ZlibStreams.GZIP_TRAILER_SIZE)
+            throw new EOFException("Unexpected end of GZIP trailer");
+        CRC32 crc = new CRC32();
+        crc.update(out.nioBuffer(out.readerIndex(), out.readableBytes()));
+        long expectedCrc = in.readUnsignedIntLE();
+        long expectedSize = in.readUnsignedIntLE();
+        if (expectedCrc != crc.getValue() || expectedSize != (out.readableBytes() & 0xFFFFFFFFL))
+            throw new ZipException("Corrupt GZIP trailer");
+    }
+
+}
@@ -0,0 +1,113 @@
+package xyz.nickr.nbt;
+
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Caches {@link Inflater}s and {@link Deflater}s per thread, so that compressing
+ * and extracting does not allocate (and leave to finalization) native zlib state every time. <br>
+ * Each thread caches at most one instance of each kind. If one is acquired while the cached one
+ * is in use, a new instance is created, and ended when it is released.
+ *
+ * @author Nick Robson
+ */
+final class ZlibPool {
+
+    private static final int ZLIB = 0, RAW = 1;
+
+    private static final ThreadLocal<Inflater[]> inflaters = ThreadLocal.withInitial(() -> new Inflater[2]);
+    private static final ThreadLocal<Deflater[]> deflaters = ThreadLocal.withInitial(() -> new Deflater[2]);
+
+    private ZlibPool() {}
+
+    /**
+     * Acquires an inflater, which must be given back with {@link #release(Inflater, boolean)}.
+     *
+     * @param nowrap True for raw deflate data (as in GZip), false for ZLib-wrapped data.
+     *
+     * @return The inflater.
+     */
+    static Inflater inflater(boolean nowrap) {
+        Inflater[] cache = inflaters.get();
+        int slot = nowrap ? RAW : ZLIB;
+        Inflater inflater = cache[slot];
+        if (inflater == null)
+            return new Inflater(nowrap);
+        cache[slot] = null;
+        return inflater;
+    }
+
+    /**
+     * Resets an inflater and returns it to the calling thread's cache, or ends it if the cache is full.
+     *
+     * @param inflater The inflater.
+     * @param nowrap The value the inflater was acquired with.
+     */
+    static void release(Inflater inflater, boolean nowrap) {
+        Inflater[] cache = inflaters.get();
+        int slot = nowrap ? RAW : ZLIB;
+        if (cache[slot] == null) {
+            inflater.reset();
+            cache[slot] = inflater;
+        } else {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Acquires a deflater, which must be given back with {@link #release(Deflater, boolean)}.
+     *
+     * @param level The compression level, from {@link Deflater#DEFAULT_COMPRESSION} to {@link Deflater#BEST_COMPRESSION}.
+     * @param strategy The compression strategy, such as {@link Deflater#DEFAULT_STRATEGY}.
+     * @param nowrap True for raw deflate data (as in GZip), false for ZLib-wrapped data.
+     *
+     * @return The deflater.
+     */
+    static Deflater deflater(int level, int strategy, boolean nowrap) {
+        Deflater[] cache = deflaters.get();
+        int slot = nowrap ? RAW : ZLIB;
+        Deflater deflater = cache[slot];
+        if (deflater == null) {
+            deflater = new Deflater(level, nowrap);
+        } else {
+            cache[slot] = null;
+            deflater.setLevel(level);
+        }
+        deflater.setStrategy(strategy);
+        return deflater;
+    }
+
+    /**
+     * Resets a deflater and returns it to the calling thread's cache, or ends it if the cache is full.
+     *
+     * @param deflater The deflater.
+     * @param nowrap The value the deflater was acquired with.
+     */
+    static void release(Deflater deflater, boolean nowrap) {
+        Deflater[] cache = deflaters.get();
+        int slot = nowrap ? RAW : ZLIB;
+        if (cache[slot] == null) {
+            deflater.reset();
+            cache[slot] = deflater;
+        } else {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Ends and forgets the inflaters and deflaters cached by the calling thread.
+     */
+    static void clear() {
+        Inflater[] inflaterCache = inflaters.get();
+        Deflater[] deflaterCache = deflaters.get();
+        for (int i = 0; i < 2; i++) {
+            if (inflaterCache[i] != null)
+                inflaterCache[i].end();
+            if (deflaterCache[i] != null)
+                deflaterCache[i].end();
+        }
+        inflaters.remove();
+        deflaters.remove();
+    }
+
+}
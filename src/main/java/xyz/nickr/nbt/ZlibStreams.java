@@ -0,0 +1,237 @@
+package xyz.nickr.nbt;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Compressing and extracting streams which use inflaters and deflaters from {@link ZlibPool}. <br>
+ * The GZip streams handle the GZip header and trailer themselves, so that they can use pooled raw
+ * (nowrap) inflaters and deflaters rather than the private ones created by {@link java.util.zip.GZIPInputStream}
+ * and {@link java.util.zip.GZIPOutputStream}. Only single-member GZip data is supported, as used by NBT.
+ *
+ * @author Nick Robson
+ */
+final class ZlibStreams {
+
+    static final int GZIP_MAGIC = 0x8B1F;
+    static final int GZIP_TRAILER_SIZE = 8;
+
+    /**
+     * A minimal GZip header: no flags, no modification time, unknown OS.
+     */
+    static final byte[] GZIP_HEADER = {(byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xFF};
+
+    private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16;
+
+    private ZlibStreams() {}
+
+    /**
+     * An InflaterInputStream which returns its inflater to the pool once closed.
+     */
+    static class PooledInflaterInputStream extends InflaterInputStream {
+
+        private final boolean nowrap;
+        private boolean closed;
+
+        PooledInflaterInputStream(InputStream in, boolean nowrap, int size) {
+            super(in, ZlibPool.inflater(nowrap), size);
+            this.nowrap = nowrap;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                ZlibPool.release(inf, nowrap);
+            }
+        }
+
+    }
+
+    /**
+     * A DeflaterOutputStream which returns its deflater to the pool once closed.
+     */
+    static class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+        private final boolean nowrap;
+        private boolean closed;
+
+        PooledDeflaterOutputStream(OutputStream out, int level, int strategy, boolean nowrap, int size) {
+            super(out, ZlibPool.deflater(level, strategy, nowrap), size);
+            this.nowrap = nowrap;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                ZlibPool.release(def, nowrap);
+            }
+        }
+
+    }
+
+    /**
+     * Reads GZip data using a pooled inflater, checking the trailer's CRC and size.
+     */
+    static final class GzipInputStream extends PooledInflaterInputStream {
+
+        private final CRC32 crc = new CRC32();
+        private boolean eos;
+
+        GzipInputStream(InputStream in, int size) throws IOException {
+            super(in, true, size);
+            boolean success = false;
+            try {
+                readHeader(in);
+                success = true;
+            } finally {
+                if (!success)
+                    ZlibPool.release(inf, true);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (eos)
+                return -1;
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                readTrailer();
+                eos = true;
+            } else {
+                crc.update(b, off, n);
+            }
+            return n;
+        }
+
+        private void readTrailer() throws IOException {
+            byte[] trailer = new byte[GZIP_TRAILER_SIZE];
+            int buffered = Math.min(inf.getRemaining(), GZIP_TRAILER_SIZE);
+            System.arraycopy(buf, len - inf.getRemaining(), trailer, 0, buffered);
+            for (int i = buffered; i < GZIP_TRAILER_SIZE; i++) {
+                int b = in.read();
+                if (b == -1)
+                    throw new EOFException("Unexpected end of GZIP trailer");
+                trailer[i] = (byte) b;
+            }
+            long expectedCrc = readIntLE(trailer, 0) & 0xFFFFFFFFL;
+            long expectedSize = readIntLE(trailer, 4) & 0xFFFFFFFFL;
+            if (expectedCrc != crc.getValue() || expectedSize != (inf.getBytesWritten() & 0xFFFFFFFFL))
+                throw new ZipException("Corrupt GZIP trailer");
+        }
+
+    }
+
+    /**
+     * Writes GZip data using a pooled deflater.
+     */
+    static final class GzipOutputStream extends PooledDeflaterOutputStream {
+
+        private final CRC32 crc = new CRC32();
+
+        GzipOutputStream(OutputStream out, int level, int strategy, int size) throws IOException {
+            super(out, level, strategy, true, size);
+            boolean success = false;
+            try {
+                out.write(GZIP_HEADER);
+                success = true;
+            } finally {
+                if (!success)
+                    ZlibPool.release(def, true);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (def.finished())
+                return;
+            super.finish();
+            byte[] trailer = new byte[GZIP_TRAILER_SIZE];
+            writeIntLE(trailer, 0, (int) crc.getValue());
+            writeIntLE(trailer, 4, (int) def.getBytesRead());
+            out.write(trailer);
+        }
+
+    }
+
+    /**
+     * Reads and checks a GZip header, leaving the stream positioned at the start of the deflate data.
+     *
+     * @param in The stream to read from.
+     *
+     * @throws IOException If the header is invalid or cannot be read.
+     */
+    static void readHeader(InputStream in) throws IOException {
+        if (readUnsignedShort(in) != GZIP_MAGIC)
+            throw new ZipException("Not in GZIP format");
+        if (readUnsignedByte(in) != 8)
+            throw new ZipException("Unsupported compression method");
+        int flags = readUnsignedByte(in);
+        skipBytes(in, 6);
+        if ((flags & FEXTRA) == FEXTRA)
+            skipBytes(in, readUnsignedShort(in));
+        if ((flags & FNAME) == FNAME)
+            skipString(in);
+        if ((flags & FCOMMENT) == FCOMMENT)
+            skipString(in);
+        if ((flags & FHCRC) == FHCRC)
+            skipBytes(in, 2);
+    }
+
+    static int readIntLE(byte[] b, int off) {
+        return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+    }
+
+    static void writeIntLE(byte[] b, int off, int v) {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) (v >> 8);
+        b[off + 2] = (byte) (v >> 16);
+        b[off + 3] = (byte) (v >> 24);
+    }
+
+    private static int readUnsignedByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1)
+            throw new EOFException("Unexpected end of GZIP header");
+        return b;
+    }
+
+    private static int readUnsignedShort(InputStream in) throws IOException {
+        return readUnsignedByte(in) | readUnsignedByte(in) << 8;
+    }
+
+    private static void skipBytes(InputStream in, int n) throws IOException {
+        while (n-- > 0)
+            readUnsignedByte(in);
+    }
+
+    private static void skipString(InputStream in) throws IOException {
+        int b;
+        do {
+            b = readUnsignedByte(in);
+        } while (b != 0);
+    }
+
+}
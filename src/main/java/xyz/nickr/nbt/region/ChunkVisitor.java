@@ -0,0 +1,23 @@
+package xyz.nickr.nbt.region;
+
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Receives the chunks found by a {@link WorldScanner}.
+ *
+ * @author Nick Robson
+ */
+@FunctionalInterface
+public interface ChunkVisitor {
+
+    /**
+     * Visits a chunk. <br>
+     * When scanning, this is called from several threads at once, so it must be thread-safe.
+     *
+     * @param x The chunk's x coordinate in the world.
+     * @param z The chunk's z coordinate in the world.
+     * @param chunk The chunk's root tag.
+     */
+    void visit(int x, int z, NBTTag chunk);
+
+}
@@ -0,0 +1,463 @@
+package xyz.nickr.nbt.region;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.NBTCompression;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * An Anvil region file (.mca), holding up to 32x32 compressed chunks. <br>
+ * The file starts with a header of 1024 locations (a 3-byte sector offset and 1-byte sector count)
+ * followed by 1024 timestamps. Each chunk is stored from the start of its first 4 KiB sector as a
+ * 4-byte length, a 1-byte compression type, and the compressed NBT. <br>
+ * Only the header is read up front. Chunks are read from a memory mapping of the file, so loading
+ * one chunk does not read the rest. Chunk coordinates may be given either relative to the region
+ * or as world chunk coordinates, as only their low 5 bits are used. <br>
+ * A RegionFile is not thread-safe.
+ *
+ * @author Nick Robson
+ */
+public class RegionFile implements Closeable {
+
+    /**
+     * The size of a sector, the unit in which chunk data is allocated.
+     */
+    public static final int SECTOR_SIZE = 4096;
+
+    /**
+     * The number of chunks in a region file.
+     */
+    public static final int CHUNK_COUNT = 1024;
+
+    /**
+     * The largest number of sectors a chunk can occupy.
+     */
+    public static final int MAX_CHUNK_SECTORS = 255;
+
+    private static final int HEADER_SECTORS = 2;
+    private static final int CHUNK_HEADER_SIZE = 5;
+    private static final int GZIP = 1, ZLIB = 2, UNCOMPRESSED = 3;
+
+    private final Path path;
+    private final boolean readOnly;
+    private final NBTCodec codec;
+    private final FileChannel channel;
+
+    private final int[] locations = new int[CHUNK_COUNT];
+    private final int[] timestamps = new int[CHUNK_COUNT];
+    private final BitSet usedSectors = new BitSet();
+
+    private ByteBuf mapped;
+
+    /**
+     * Opens a region file for reading and writing, creating it if it does not exist.
+     *
+     * @param path The path to the region file.
+     *
+     * @throws IOException If the file cannot be opened or its header cannot be read.
+     */
+    public RegionFile(Path path) throws IOException {
+        this(path, false);
+    }
+
+    /**
+     * Opens a region file.
+     *
+     * @param path The path to the region file.
+     * @param readOnly True to open the file for reading only, false to open it for reading and writing,
+     *                 creating it if it does not exist.
+     *
+     * @throws IOException If the file cannot be opened or its header cannot be read.
+     */
+    public RegionFile(Path path, boolean readOnly) throws IOException {
+        this(path, readOnly, new NBTCodec(ByteOrder.BIG_ENDIAN));
+    }
+
+    /**
+     * Opens a region file, which uses the given codec to decode and encode chunks.
+     *
+     * @param path The path to the region file.
+     * @param readOnly True to open the file for reading only, false to open it for reading and writing,
+     *                 creating it if it does not exist.
+     * @param codec The codec, which should be big-endian.
+     *
+     * @throws IOException If the file cannot be opened or its header cannot be read.
+     */
+    public RegionFile(Path path, boolean readOnly, NBTCodec codec) throws IOException {
+        this.path = path;
+        this.readOnly = readOnly;
+        this.codec = codec;
+        this.channel = readOnly
+                ? FileChannel.open(path, StandardOpenOption.READ)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        boolean success = false;
+        try {
+            readHeader();
+            success = true;
+        } finally {
+            if (!success)
+                channel.close();
+        }
+    }
+
+    private void readHeader() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SECTORS * SECTOR_SIZE) {
+            if (readOnly) {
+                if (size == 0)
+                    return;
+                throw new IOException("Truncated region file header: " + path);
+            }
+            writeFully(Unpooled.wrappedBuffer(new byte[(int) (HEADER_SECTORS * SECTOR_SIZE - size)]), size);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) == -1)
+                throw new IOException("Truncated region file header: " + path);
+        }
+        usedSectors.set(0, HEADER_SECTORS);
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            locations[i] = header.getInt(i * 4);
+            timestamps[i] = header.getInt(SECTOR_SIZE + i * 4);
+            int offset = locations[i] >>> 8, count = locations[i] & 0xFF;
+            if (offset >= HEADER_SECTORS)
+                usedSectors.set(offset, offset + count);
+        }
+    }
+
+    /**
+     * Gets the path this region file was opened from.
+     *
+     * @return The path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets whether this region file was opened for reading only.
+     *
+     * @return True if the file cannot be written to.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Checks whether a chunk is present in this region.
+     *
+     * @param x The chunk's x coordinate.
+     * @param z The chunk's z coordinate.
+     *
+     * @return True if the chunk is present.
+     */
+    public boolean hasChunk(int x, int z) {
+        return locations[index(x, z)] != 0;
+    }
+
+    /**
+     * Gets the time at which a chunk was last written.
+     *
+     * @param x The chunk's x coordinate.
+     * @param z The chunk's z coordinate.
+     *
+     * @return The time in seconds since the epoch, or 0 if the chunk is not present.
+     */
+    public int getTimestamp(int x, int z) {
+        return timestamps[index(x, z)];
+    }
+
+    /**
+     * Reads and decodes a chunk.
+     *
+     * @param x The chunk's x coordinate.
+     * @param z The chunk's z coordinate.
+     *
+     * @return The chunk's root tag, or null if the chunk is not present.
+     */
+    public NBTTag readChunk(int x, int z) {
+        int index = index(x, z);
+        ByteBuf data = chunkData(index);
+        return data != null ? codec.decode(data, compression(index, data)) : null;
+    }
+
+    /**
+     * Reads and extracts a chunk, without decoding it. <br>
+     * The returned buffer is owned by the caller, who must release it. It never shares memory with the file,
+     * so it stays valid when chunks are written or the region is compacted or closed.
+     *
+     * @param x The chunk's x coordinate.
+     * @param z The chunk's z coordinate.
+     *
+     * @return The chunk's uncompressed NBT, or null if the chunk is not present.
+     */
+    public ByteBuf readChunkBuffer(int x, int z) {
+        int index = index(x, z);
+        ByteBuf data = chunkData(index);
+        if (data == null)
+            return null;
+        NBTCompression compression = compression(index, data);
+        if (compression == NBTCompression.UNCOMPRESSED)
+            return codec.getAllocator().buffer(data.readableBytes()).writeBytes(data);
+        return compression.extract(data, codec.getAllocator());
+    }
+
+    /**
+     * Encodes and writes a chunk, compressed using {@link NBTCompression#ZLIB}.
+     *
+     * @param x The chunk's x coordinate.
+     * @param z The chunk's z coordinate.
+     * @param tag The chunk's root tag.
+     */
+    public void writeChunk(int x, int z, NBTTag tag) {
+        writeChunk(x, z, tag, NBTCompression.ZLIB);
+    }
+
+    /**
+     * Encodes and writes a chunk. <br>
+     * The chunk is written over its existing sectors if it still fits in them,
+     * and otherwise into the first free run of sectors large enough for it.
+     *
+     * @param x The chunk's x coordinate.
+     * @param z The chunk's z coordinate.
+     * @param tag The chunk's root tag.
+     * @param compression The compression to use: {@link NBTCompression#GZIP}, {@link NBTCompression#ZLIB},
+     *                    or {@link NBTCompression#UNCOMPRESSED}.
+     *
+     * @throws IllegalArgumentException If the compression is not supported in region files,
+     *                                  or the compressed chunk is larger than {@link #MAX_CHUNK_SECTORS} sectors.
+     */
+    public void writeChunk(int x, int z, NBTTag tag, NBTCompression compression) {
+        checkWritable();
+        byte type = compressionType(compression);
+        int index = index(x, z);
+        ByteBuf buf = codec.getAllocator().buffer(SECTOR_SIZE);
+        try {
+            buf.writerIndex(CHUNK_HEADER_SIZE);
+            codec.encode(buf, tag, compression);
+            int length = buf.writerIndex() - 4;
+            int sectors = (buf.writerIndex() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+            if (sectors > MAX_CHUNK_SECTORS)
+                throw new IllegalArgumentException("chunk " + x + "," + z + " is too large: " + length + " bytes");
+            buf.setInt(0, length);
+            buf.setByte(4, type);
+            buf.writeZero(sectors * SECTOR_SIZE - buf.writerIndex());
+
+            int offset = allocate(index, sectors);
+            writeFully(buf, (long) offset * SECTOR_SIZE);
+            setHeader(index, offset << 8 | sectors, (int) (System.currentTimeMillis() / 1000));
+            if (mapped != null && (long) (offset + sectors) * SECTOR_SIZE > mapped.capacity())
+                mapped = null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * Removes a chunk from this region, freeing its sectors.
+     *
+     * @param x The chunk's x coordinate.
+     * @param z The chunk's z coordinate.
+     */
+    public void deleteChunk(int x, int z) {
+        checkWritable();
+        int index = index(x, z);
+        int location = locations[index];
+        if (location == 0)
+            return;
+        try {
+            setHeader(index, 0, 0);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        int offset = location >>> 8;
+        if (offset >= HEADER_SECTORS)
+            usedSectors.clear(offset, offset + (location & 0xFF));
+    }
+
+    /**
+     * Moves every chunk down to close the gaps left by rewritten and deleted chunks,
+     * trims chunks to the sectors they use, and truncates the file.
+     */
+    public void compact() {
+        checkWritable();
+        int[] order = IntStream.range(0, CHUNK_COUNT)
+                .filter(i -> (locations[i] >>> 8) >= HEADER_SECTORS)
+                .boxed()
+                .sorted(Comparator.comparingInt(i -> locations[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        ByteBuf buf = Unpooled.buffer(SECTOR_SIZE);
+        try {
+            int next = HEADER_SECTORS;
+            for (int index : order) {
+                int offset = locations[index] >>> 8, count = locations[index] & 0xFF;
+                buf.clear();
+                readFully(buf, (long) offset * SECTOR_SIZE, 4);
+                int length = buf.readInt();
+                int sectors = length > 0 && length + 4 <= count * SECTOR_SIZE
+                        ? (length + 4 + SECTOR_SIZE - 1) / SECTOR_SIZE
+                        : count;
+                if (offset != next) {
+                    buf.clear();
+                    readFully(buf, (long) offset * SECTOR_SIZE, sectors * SECTOR_SIZE);
+                    writeFully(buf, (long) next * SECTOR_SIZE);
+                }
+                if (offset != next || sectors != count)
+                    setHeader(index, next << 8 | sectors, timestamps[index]);
+                next += sectors;
+            }
+            usedSectors.clear();
+            usedSectors.set(0, next);
+            mapped = null;
+            channel.truncate((long) next * SECTOR_SIZE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Forces any written chunks out to the storage device.
+     */
+    public void flush() {
+        try {
+            channel.force(false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        mapped = null;
+        channel.close();
+    }
+
+    private static int index(int x, int z) {
+        return (x & 31) | (z & 31) << 5;
+    }
+
+    private void checkWritable() {
+        if (readOnly)
+            throw new IllegalStateException("region file is read-only: " + path);
+    }
+
+    /**
+     * Gets a chunk's compression type and compressed data, as a slice of the mapped file.
+     */
+    private ByteBuf chunkData(int index) {
+        int location = locations[index];
+        if (location == 0)
+            return null;
+        int offset = location >>> 8, count = location & 0xFF;
+        ByteBuf file = mapped();
+        long start = (long) offset * SECTOR_SIZE;
+        if (offset < HEADER_SECTORS || start + CHUNK_HEADER_SIZE > file.capacity())
+            throw new IllegalStateException("chunk " + describe(index) + " has an invalid offset: " + offset);
+        int length = file.getInt((int) start);
+        if (length <= 0 || length + 4 > count * SECTOR_SIZE || start + 4 + length > file.capacity())
+            throw new IllegalStateException("chunk " + describe(index) + " has an invalid length: " + length);
+        return file.slice((int) start + 4, length);
+    }
+
+    /**
+     * Reads the compression type from the start of a chunk's data.
+     */
+    private static NBTCompression compression(int index, ByteBuf data) {
+        byte type = data.readByte();
+        switch (type) {
+            case GZIP:
+                return NBTCompression.GZIP;
+            case ZLIB:
+                return NBTCompression.ZLIB;
+            case UNCOMPRESSED:
+                return NBTCompression.UNCOMPRESSED;
+            default:
+                if ((type & 0x80) != 0)
+                    throw new IllegalStateException("chunk " + describe(index) + " is stored externally, which is not supported");
+                throw new IllegalStateException("chunk " + describe(index) + " has an unsupported compression type: " + type);
+        }
+    }
+
+    private static byte compressionType(NBTCompression compression) {
+        if (compression == NBTCompression.GZIP)
+            return GZIP;
+        if (compression == NBTCompression.ZLIB)
+            return ZLIB;
+        if (compression == NBTCompression.UNCOMPRESSED)
+            return UNCOMPRESSED;
+        throw new IllegalArgumentException("compression not supported in region files: " + compression);
+    }
+
+    private static String describe(int index) {
+        return (index & 31) + "," + (index >> 5);
+    }
+
+    private ByteBuf mapped() {
+        try {
+            if (mapped == null)
+                mapped = Unpooled.wrappedBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            return mapped;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Finds sectors for a chunk, reusing its current sectors if they are enough.
+     */
+    private int allocate(int index, int sectors) {
+        int location = locations[index];
+        int offset = location >>> 8, count = location & 0xFF;
+        if (offset >= HEADER_SECTORS) {
+            if (sectors <= count) {
+                usedSectors.clear(offset + sectors, offset + count);
+                return offset;
+            }
+            usedSectors.clear(offset, offset + count);
+        }
+        int start = usedSectors.nextClearBit(HEADER_SECTORS);
+        for (int end; (end = usedSectors.nextSetBit(start)) != -1 && end - start < sectors; )
+            start = usedSectors.nextClearBit(end);
+        usedSectors.set(start, start + sectors);
+        return start;
+    }
+
+    private void setHeader(int index, int location, int timestamp) throws IOException {
+        locations[index] = location;
+        timestamps[index] = timestamp;
+        ByteBuf entry = Unpooled.buffer(4);
+        writeFully(entry.writeInt(location), index * 4L);
+        writeFully(entry.clear().writeInt(timestamp), SECTOR_SIZE + index * 4L);
+    }
+
+    private void writeFully(ByteBuf buf, long position) throws IOException {
+        int start = buf.readerIndex(), end = buf.writerIndex();
+        for (int i = start; i < end; )
+            i += buf.getBytes(i, channel, position + i - start, end - i);
+    }
+
+    private void readFully(ByteBuf buf, long position, int length) throws IOException {
+        for (int i = 0; i < length; ) {
+            int n = buf.writeBytes(channel, position + i, length - i);
+            if (n == -1)
+                throw new IOException("Unexpected end of region file: " + path);
+            i += n;
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package xyz.nickr.nbt.region;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collector;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Reads every chunk of every region file in a directory, spreading the region files across a {@link ForkJoinPool}. <br>
+ * Each worker thread decodes with its own {@link NBTCodec}, and compression uses the inflaters cached per thread.
+ * Workers hand each chunk to the visitor or collector as soon as it is decoded, and only then read the next one.
+ * So at most one decoded chunk per worker is held at a time, however large the world is.
+ *
+ * @author Nick Robson
+ */
+public class WorldScanner {
+
+    private static final Pattern REGION_NAME = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<NBTCodec> codecs;
+
+    /**
+     * Creates a WorldScanner which uses the common pool and big-endian codecs.
+     */
+    public WorldScanner() {
+        this(ForkJoinPool.commonPool(), () -> new NBTCodec(ByteOrder.BIG_ENDIAN));
+    }
+
+    /**
+     * Creates a WorldScanner.
+     *
+     * @param pool The pool to scan region files in.
+     * @param codecs Creates the codec for each worker thread. The codecs should be big-endian.
+     */
+    public WorldScanner(ForkJoinPool pool, Supplier<NBTCodec> codecs) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.codecs = ThreadLocal.withInitial(Objects.requireNonNull(codecs, "codecs"));
+    }
+
+    /**
+     * Scans every chunk in a directory of region files, passing each to a visitor. <br>
+     * The visitor is called from several threads at once.
+     *
+     * @param directory The directory containing the region files, such as a world's "region" directory.
+     * @param visitor The visitor.
+     */
+    public void scan(Path directory, ChunkVisitor visitor) {
+        scan(listRegions(directory), region -> {
+            scanRegion(region, visitor);
+            return null;
+        }, (a, b) -> null);
+    }
+
+    /**
+     * Scans every chunk in a directory of region files, collecting them. <br>
+     * Each region file is accumulated into its own container, and containers are then combined,
+     * so the collector's functions need not be thread-safe.
+     *
+     * @param directory The directory containing the region files, such as a world's "region" directory.
+     * @param collector The collector.
+     * @param <A> The collector's container type.
+     * @param <R> The result type.
+     *
+     * @return The collected result.
+     */
+    public <A, R> R scan(Path directory, Collector<? super NBTTag, A, R> collector) {
+        Supplier<A> supplier = collector.supplier();
+        BiConsumer<A, ? super NBTTag> accumulator = collector.accumulator();
+        List<Path> regions = listRegions(directory);
+        A container = regions.isEmpty() ? supplier.get() : scan(regions, region -> {
+            A a = supplier.get();
+            scanRegion(region, (x, z, chunk) -> accumulator.accept(a, chunk));
+            return a;
+        }, collector.combiner());
+        return collector.finisher().apply(container);
+    }
+
+    private <A> A scan(List<Path> regions, Function<Path, A> leaf, BinaryOperator<A> combiner) {
+        if (regions.isEmpty())
+            return null;
+        return pool.invoke(new ScanTask<>(regions, 0, regions.size(), leaf, combiner));
+    }
+
+    private void scanRegion(Path path, ChunkVisitor visitor) {
+        Matcher matcher = REGION_NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches())
+            throw new IllegalArgumentException("not a region file: " + path);
+        int regionX = Integer.parseInt(matcher.group(1)), regionZ = Integer.parseInt(matcher.group(2));
+        try (RegionFile region = new RegionFile(path, true, codecs.get())) {
+            for (int z = 0; z < 32; z++) {
+                for (int x = 0; x < 32; x++) {
+                    if (!region.hasChunk(x, z))
+                        continue;
+                    NBTTag chunk;
+                    try {
+                        chunk = region.readChunk(x, z);
+                    } catch (RuntimeException ex) {
+                        throw new IllegalStateException("failed to read chunk " + x + "," + z + " of " + path, ex);
+                    }
+                    visitor.visit(regionX * 32 + x, regionZ * 32 + z, chunk);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Lists the region files in a directory, which are named "r.&lt;x&gt;.&lt;z&gt;.mca".
+     *
+     * @param directory The directory.
+     *
+     * @return The region files, sorted by name.
+     */
+    public static List<Path> listRegions(Path directory) {
+        List<Path> regions = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "r.*.*.mca")) {
+            for (Path path : stream) {
+                if (REGION_NAME.matcher(path.getFileName().toString()).matches())
+                    regions.add(path);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        Collections.sort(regions);
+        return regions;
+    }
+
+    /**
+     * Splits a range of region files in half until each task has one region file.
+     */
+    private static final class ScanTask<A> extends RecursiveTask<A> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> regions;
+        private final int from, to;
+        private final Function<Path, A> leaf;
+        private final BinaryOperator<A> combiner;
+
+        ScanTask(List<Path> regions, int from, int to, Function<Path, A> leaf, BinaryOperator<A> combiner) {
+            this.regions = regions;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from == 1)
+                return leaf.apply(regions.get(from));
+            int mid = (from + to) >>> 1;
+            ScanTask<A> right = new ScanTask<>(regions, mid, to, leaf, combiner);
+            right.fork();
+            A left = new ScanTask<>(regions, from, mid, leaf, combiner).compute();
+            return combiner.apply(left, right.join());
+        }
+
+    }
+
+}
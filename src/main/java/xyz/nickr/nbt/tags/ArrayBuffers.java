@@ -0,0 +1,257 @@
+package xyz.nickr.nbt.tags;
+
+import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import xyz.nickr.nbt.LittleEndianDataInput;
+import xyz.nickr.nbt.LittleEndianDataOutput;
+
+/**
+ * Copies arrays of numbers to and from buffers in bulk, through NIO views in the data's byte order,
+ * instead of reading or writing one number at a time. <br>
+ * The array readers are public so that {@link xyz.nickr.nbt.NBTReader} reads array values the same way the array tags do.
+ *
+ * @author Nick Robson
+ */
+public final class ArrayBuffers {
+
+    private static final int SCRATCH_SIZE = 8192;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private ArrayBuffers() {}
+
+    /**
+     * Reads an array length, which cannot be negative.
+     */
+    static int readLength(ByteBuf buf, ByteOrder order) {
+        int len = order == ByteOrder.BIG_ENDIAN ? buf.readInt() : buf.readIntLE();
+        if (len < 0)
+            throw new IllegalStateException("negative length: " + len);
+        return len;
+    }
+
+    /**
+     * Reads the given number of bytes, returning a view of them in the given byte order.
+     * The view may share the buffer's memory, so it must be used before the buffer is changed.
+     */
+    static ByteBuffer read(ByteBuf buf, int len, ByteOrder order) {
+        return buf.readSlice(len).nioBuffer().order(order);
+    }
+
+    /**
+     * Checks that a buffer holds the given number of values of the given width, before an array is allocated for them.
+     */
+    private static void checkReadable(ByteBuf buf, int len, int width) {
+        if (len > buf.readableBytes() / width)
+            throw new IndexOutOfBoundsException(len + " values of " + width + " bytes exceed readableBytes " + buf.readableBytes());
+    }
+
+    /**
+     * Reads a byte array's payload of the given length from a buffer.
+     *
+     * @param buf The buffer to read from.
+     * @param len The number of bytes.
+     *
+     * @return The array.
+     *
+     * @throws IndexOutOfBoundsException If the buffer holds fewer bytes.
+     */
+    public static byte[] readBytes(ByteBuf buf, int len) {
+        checkReadable(buf, len, 1);
+        byte[] dst = new byte[len];
+        buf.readBytes(dst);
+        return dst;
+    }
+
+    /**
+     * Reads an int array's payload of the given length from a buffer.
+     *
+     * @param buf The buffer to read from.
+     * @param len The number of ints.
+     * @param order The byte order.
+     *
+     * @return The array.
+     *
+     * @throws IndexOutOfBoundsException If the buffer holds fewer ints.
+     */
+    public static int[] readInts(ByteBuf buf, int len, ByteOrder order) {
+        checkReadable(buf, len, 4);
+        int[] dst = new int[len];
+        read(buf, len * 4, order).asIntBuffer().get(dst);
+        return dst;
+    }
+
+    /**
+     * Reads a long array's payload of the given length from a buffer.
+     *
+     * @param buf The buffer to read from.
+     * @param len The number of longs.
+     * @param order The byte order.
+     *
+     * @return The array.
+     *
+     * @throws IndexOutOfBoundsException If the buffer holds fewer longs.
+     */
+    public static long[] readLongs(ByteBuf buf, int len, ByteOrder order) {
+        checkReadable(buf, len, 8);
+        long[] dst = new long[len];
+        read(buf, len * 8, order).asLongBuffer().get(dst);
+        return dst;
+    }
+
+    /**
+     * Reserves the given number of bytes at the buffer's writer index and advances past them,
+     * returning a view of them in the given byte order to be filled in. <br>
+     * If the buffer's memory cannot be viewed directly, nothing is reserved and null is returned,
+     * so the caller must write the values itself.
+     */
+    static ByteBuffer write(ByteBuf buf, int len, ByteOrder order) {
+        buf.ensureWritable(len);
+        int index = buf.writerIndex();
+        ByteBuffer view;
+        if (buf.hasArray()) {
+            view = ByteBuffer.wrap(buf.array(), buf.arrayOffset() + index, len).slice();
+        } else if (buf.isDirect() && buf.nioBufferCount() == 1) {
+            view = buf.nioBuffer(index, len);
+        } else {
+            return null;
+        }
+        buf.writerIndex(index + len);
+        return view.order(order);
+    }
+
+    /**
+     * Reads an array length from an input, which cannot be negative.
+     */
+    static int readLength(DataInput in) throws IOException {
+        int len = in.readInt();
+        if (len < 0)
+            throw new IllegalStateException("negative length: " + len);
+        return len;
+    }
+
+    /**
+     * Grows an array being read into, so that it can hold the next chunk. <br>
+     * A stream cannot show that a length it gave is really followed by that much data,
+     * so arrays start small and double as data arrives, instead of trusting the length up front.
+     */
+    private static int grow(int capacity, int read, int len) {
+        if (read < capacity)
+            return capacity;
+        return (int) Math.min(len, Math.max(INITIAL_CAPACITY, capacity * 2L));
+    }
+
+    /**
+     * Reads a byte array's payload of the given length from an input in chunks.
+     *
+     * @param in The input to read from.
+     * @param len The number of bytes.
+     *
+     * @return The array.
+     *
+     * @throws IOException If reading from the input fails.
+     */
+    public static byte[] readBytes(DataInput in, int len) throws IOException {
+        byte[] dst = new byte[Math.min(len, INITIAL_CAPACITY)];
+        for (int i = 0; i < len; ) {
+            int capacity = grow(dst.length, i, len);
+            if (capacity != dst.length)
+                dst = Arrays.copyOf(dst, capacity);
+            int count = Math.min(SCRATCH_SIZE, capacity - i);
+            in.readFully(dst, i, count);
+            i += count;
+        }
+        return dst;
+    }
+
+    /**
+     * Reads an int array's payload of the given length from an input in chunks, which is assumed to be big-endian
+     * unless it is a {@link LittleEndianDataInput}.
+     *
+     * @param in The input to read from.
+     * @param len The number of ints.
+     *
+     * @return The array.
+     *
+     * @throws IOException If reading from the input fails.
+     */
+    public static int[] readInts(DataInput in, int len) throws IOException {
+        ByteOrder order = in instanceof LittleEndianDataInput ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        int[] dst = new int[Math.min(len, INITIAL_CAPACITY / 4)];
+        byte[] scratch = new byte[(int) Math.min(SCRATCH_SIZE, len * 4L)];
+        int per = scratch.length / 4;
+        for (int i = 0; i < len; ) {
+            int capacity = grow(dst.length, i, len);
+            if (capacity != dst.length)
+                dst = Arrays.copyOf(dst, capacity);
+            int count = Math.min(per, capacity - i);
+            in.readFully(scratch, 0, count * 4);
+            ByteBuffer.wrap(scratch, 0, count * 4).order(order).asIntBuffer().get(dst, i, count);
+            i += count;
+        }
+        return dst;
+    }
+
+    /**
+     * Reads a long array's payload of the given length from an input in chunks, which is assumed to be big-endian
+     * unless it is a {@link LittleEndianDataInput}.
+     *
+     * @param in The input to read from.
+     * @param len The number of longs.
+     *
+     * @return The array.
+     *
+     * @throws IOException If reading from the input fails.
+     */
+    public static long[] readLongs(DataInput in, int len) throws IOException {
+        ByteOrder order = in instanceof LittleEndianDataInput ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        long[] dst = new long[Math.min(len, INITIAL_CAPACITY / 8)];
+        byte[] scratch = new byte[(int) Math.min(SCRATCH_SIZE, len * 8L)];
+        int per = scratch.length / 8;
+        for (int i = 0; i < len; ) {
+            int capacity = grow(dst.length, i, len);
+            if (capacity != dst.length)
+                dst = Arrays.copyOf(dst, capacity);
+            int count = Math.min(per, capacity - i);
+            in.readFully(scratch, 0, count * 8);
+            ByteBuffer.wrap(scratch, 0, count * 8).order(order).asLongBuffer().get(dst, i, count);
+            i += count;
+        }
+        return dst;
+    }
+
+    /**
+     * Writes an int array's values to an output in chunks, in big-endian order unless it is a {@link LittleEndianDataOutput}.
+     */
+    static void writeInts(DataOutput out, int[] src) throws IOException {
+        ByteOrder order = out instanceof LittleEndianDataOutput ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        byte[] scratch = new byte[(int) Math.min(SCRATCH_SIZE, src.length * 4L)];
+        int per = scratch.length / 4;
+        for (int i = 0; i < src.length; ) {
+            int count = Math.min(per, src.length - i);
+            ByteBuffer.wrap(scratch, 0, count * 4).order(order).asIntBuffer().put(src, i, count);
+            out.write(scratch, 0, count * 4);
+            i += count;
+        }
+    }
+
+    /**
+     * Writes a long array's values to an output in chunks, in big-endian order unless it is a {@link LittleEndianDataOutput}.
+     */
+    static void writeLongs(DataOutput out, long[] src) throws IOException {
+        ByteOrder order = out instanceof LittleEndianDataOutput ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        byte[] scratch = new byte[(int) Math.min(SCRATCH_SIZE, src.length * 8L)];
+        int per = scratch.length / 8;
+        for (int i = 0; i < src.length; ) {
+            int count = Math.min(per, src.length - i);
+            ByteBuffer.wrap(scratch, 0, count * 8).order(order).asLongBuffer().put(src, i, count);
+            out.write(scratch, 0, count * 8);
+            i += count;
+        }
+    }
+
+}
@@ -1,13 +1,21 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Objects;
 import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
 
 /**
- * Represents a {@link NBTTag} containing a {@code byte array}.
+ * Represents a {@link NBTTag} containing a {@code byte array}. <br>
+ * When read with {@link NBTTag#readRetained(ByteBuf, ByteOrder)}, the tag holds a retained slice of the buffer
+ * it was read from instead of a copy, until {@link #get()} asks for an array or the tag is released.
  *
  * @author Nick Robson
  */
@@ -15,6 +23,7 @@ import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
 public class ByteArrayTag extends NBTTag {
 
     private byte[] payload;
+    private ByteBuf slice;
 
     ByteArrayTag() {}
 
@@ -28,14 +37,77 @@ public class ByteArrayTag extends NBTTag {
     }
 
     /**
-     * Gets this tag's value.
+     * Gets this tag's value. <br>
+     * As the array may be changed in place, getting it marks this tag as dirty.
+     * If the tag holds a slice of a buffer, its contents are copied into a new array and the slice is released.
      *
      * @return The value.
      */
     public byte[] get() {
+        if (slice != null) {
+            payload = ByteBufUtil.getBytes(slice);
+            slice.release();
+            slice = null;
+        }
+        markDirty();
         return payload;
     }
 
+    /**
+     * Gets a read-only buffer of this tag's value, without copying it. <br>
+     * The buffer shares the tag's memory, so it is only valid until the tag is set, released or its array is taken.
+     *
+     * @return The buffer.
+     */
+    public ByteBuf getBuffer() {
+        if (slice != null)
+            return slice.asReadOnly();
+        if (payload == null)
+            throw new IllegalStateException("byte array tag is missing value");
+        return Unpooled.wrappedBuffer(payload).asReadOnly();
+    }
+
+    /**
+     * Gets a read-only NIO buffer of this tag's value, without copying it where the memory allows. <br>
+     * See {@link #getBuffer()}.
+     *
+     * @return The buffer.
+     */
+    public ByteBuffer getByteBuffer() {
+        if (slice != null)
+            return slice.nioBuffer().asReadOnlyBuffer();
+        if (payload == null)
+            throw new IllegalStateException("byte array tag is missing value");
+        return ByteBuffer.wrap(payload).asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets the length of this tag's value, without copying it.
+     *
+     * @return The length.
+     */
+    public int length() {
+        if (slice != null)
+            return slice.readableBytes();
+        if (payload == null)
+            throw new IllegalStateException("byte array tag is missing value");
+        return payload.length;
+    }
+
+    /**
+     * Checks whether this tag has a value, without copying it.
+     */
+    boolean hasValue() {
+        return slice != null || payload != null;
+    }
+
+    /**
+     * Gets a byte of this tag's value, without copying it or marking this tag as dirty.
+     */
+    byte byteAt(int index) {
+        return slice != null ? slice.getByte(slice.readerIndex() + index) : payload[index];
+    }
+
     /**
      * Sets the value of this tag.
      *
@@ -43,35 +115,79 @@ public class ByteArrayTag extends NBTTag {
      */
     public void set(byte[] val) {
         this.payload = Objects.requireNonNull(val, "byte array cannot be null");
+        releaseSlice();
+        markDirty();
+    }
+
+    @Override
+    public void release() {
+        if (slice != null) {
+            releaseSlice();
+            payload = null;
+        }
+    }
+
+    private void releaseSlice() {
+        if (slice != null) {
+            slice.release();
+            slice = null;
+        }
     }
 
     @Override
     public void _read(ByteBuf buf, ByteOrder order) {
-        int len;
-        if (order == ByteOrder.BIG_ENDIAN) {
-            len = buf.readInt();
+        _read(buf, order, ReadContext.DEFAULT);
+    }
+
+    @Override
+    void _read(ByteBuf buf, ByteOrder order, ReadContext context) {
+        int len = ArrayBuffers.readLength(buf, order);
+        releaseSlice();
+        if (context.retain) {
+            this.payload = null;
+            this.slice = buf.readRetainedSlice(len);
         } else {
-            len = buf.readIntLE();
+            this.payload = ArrayBuffers.readBytes(buf, len);
         }
-        this.payload = new byte[len];
-        buf.readBytes(payload);
+    }
+
+    @Override
+    public void _read(DataInput in) throws IOException {
+        releaseSlice();
+        this.payload = ArrayBuffers.readBytes(in, ArrayBuffers.readLength(in));
     }
 
     @Override
     public void _write(ByteBuf buf, ByteOrder order) {
-        if (payload == null)
-            throw new IllegalStateException("string tag is missing value");
+        int len = length();
         if (order == ByteOrder.BIG_ENDIAN) {
-            buf.writeInt(payload.length);
+            buf.writeInt(len);
+        } else {
+            buf.writeIntLE(len);
+        }
+        if (slice != null) {
+            buf.writeBytes(slice, slice.readerIndex(), len);
+        } else {
+            buf.writeBytes(payload);
+        }
+    }
+
+    @Override
+    public void _write(DataOutput out) throws IOException {
+        int len = length();
+        out.writeInt(len);
+        if (slice == null) {
+            out.write(payload);
+        } else if (slice.hasArray()) {
+            out.write(slice.array(), slice.arrayOffset() + slice.readerIndex(), len);
         } else {
-            buf.writeIntLE(payload.length);
+            out.write(ByteBufUtil.getBytes(slice));
         }
-        buf.writeBytes(payload);
     }
 
     @Override
     protected void _print(PrintStream stream, String indent) {
-        stream.println(indent + String.format("TAG_ByteArray(%s): [%d bytes]", name(), get().length));
+        NBTDumper.FULL.print(this, stream, indent);
     }
 
 }
@@ -1,6 +1,9 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.ByteOrder;
 import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
@@ -42,6 +45,7 @@ public class ByteTag extends NumberTag {
      */
     public void set(int val) {
         this.payload = (byte) val;
+        markDirty();
     }
 
     @Override
@@ -59,14 +63,24 @@ public class ByteTag extends NumberTag {
         this.payload = buffer.readByte();
     }
 
+    @Override
+    public void _read(DataInput in) throws IOException {
+        this.payload = in.readByte();
+    }
+
     @Override
     public void _write(ByteBuf buffer, ByteOrder order) {
         buffer.writeByte(this.payload);
     }
 
+    @Override
+    public void _write(DataOutput out) throws IOException {
+        out.writeByte(this.payload);
+    }
+
     @Override
     protected void _print(PrintStream stream, String indent) {
-        stream.println(indent + String.format("TAG_Byte(%s): %d", name(), get()));
+        NBTDumper.FULL.print(this, stream, indent);
     }
 
 }
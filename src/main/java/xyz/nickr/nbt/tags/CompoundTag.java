@@ -1,11 +1,15 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -13,7 +17,6 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
-import xyz.nickr.nbt.NBTCodec;
 import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
 
 /**
@@ -26,6 +29,12 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
 
     private Map<String, NBTTag> elements = new LinkedHashMap<>();
 
+    /**
+     * The encoded entries of a lazily decoded compound which have not been decoded yet, or null if there are none.
+     * Their names are kept in {@link #elements} with null values, so that the entries stay in order.
+     */
+    private Map<String, RawEntry> undecoded;
+
     CompoundTag() {}
 
     /**
@@ -37,9 +46,72 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
         Arrays.asList(tags).forEach(this::add);
     }
 
+    /**
+     * Creates a CompoundTag whose entries are decoded from a compound's payload as they are accessed. <br>
+     * The entries' names and positions are found when this is called, by skipping over their payloads.
+     * Each entry is then decoded the first time it is got, or when the whole compound is iterated over.
+     * Compounds within it are decoded lazily in the same way. Entries which have not been decoded are copied
+     * as they are when the compound is written in the same byte order, instead of being encoded again. <br>
+     * The buffer's reader index is advanced past the payload. The payload must not be changed or released
+     * while the tag may still decode or copy from it.
+     *
+     * @param buf The buffer holding the compound's payload, which is not preceded by a type ID or name.
+     * @param order The byte order.
+     *
+     * @return The compound tag.
+     */
+    public static CompoundTag lazy(ByteBuf buf, ByteOrder order) {
+        CompoundTag compound = new CompoundTag();
+        Map<String, RawEntry> undecoded = new HashMap<>();
+        byte type;
+        int start = buf.readerIndex();
+        while ((type = buf.readByte()) != 0) {
+            String name = readString(buf, order);
+            NBTTagRegistry.skipPayload(type, buf, order);
+            compound.elements.put(name, null);
+            undecoded.put(name, new RawEntry(buf, order, start, buf.readerIndex()));
+            start = buf.readerIndex();
+        }
+        if (!undecoded.isEmpty())
+            compound.undecoded = undecoded;
+        return compound;
+    }
+
+    /**
+     * Decodes the entry with the given name, which must not have been decoded yet.
+     */
+    private NBTTag decode(String name) {
+        RawEntry raw = undecoded.remove(name);
+        if (undecoded.isEmpty())
+            undecoded = null;
+        NBTTag tag = raw.decode().setName(name);
+        tag.setHasName(true);
+        tag.setOrigin(raw);
+        tag.setParent(this);
+        elements.put(name, tag);
+        return tag;
+    }
+
+    private void decodeAll() {
+        if (undecoded == null)
+            return;
+        for (Map.Entry<String, NBTTag> entry : elements.entrySet()) {
+            if (entry.getValue() == null)
+                decode(entry.getKey());
+        }
+    }
+
+    /**
+     * Forgets the encoded entry with the given name, if it has not been decoded yet.
+     */
+    private void forget(String name) {
+        if (undecoded != null && undecoded.remove(name) != null && undecoded.isEmpty())
+            undecoded = null;
+    }
+
     @Override
     public Iterator<NBTTag> iterator() {
-        return elements.values().iterator();
+        return values().iterator();
     }
 
     @Override
@@ -53,6 +125,7 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
      * @return A collection representation of this compound tag.
      */
     public Collection<NBTTag> values() {
+        decodeAll();
         return Collections.unmodifiableCollection(elements.values());
     }
 
@@ -62,6 +135,7 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
      * @return A map representation of this compound tag.
      */
     public Map<String, NBTTag> map() {
+        decodeAll();
         return Collections.unmodifiableMap(elements);
     }
 
@@ -73,7 +147,10 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
      * @return The tag, or null if no such tag.
      */
     public Optional<NBTTag> get(String name) {
-        return Optional.ofNullable(elements.get(name));
+        NBTTag tag = elements.get(name);
+        if (tag == null && undecoded != null && undecoded.containsKey(name))
+            tag = decode(name);
+        return Optional.ofNullable(tag);
     }
 
     /**
@@ -227,6 +304,41 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
         return get(name).orElse(NullTag.INSTANCE).getAsIntArrayTag();
     }
 
+    /**
+     * Checks whether or not the given tag represents a long array.
+     *
+     * @param name The name of the tag.
+     *
+     * @return True if it does, false otherwise.
+     */
+    public boolean isLongArray(String name) {
+        return get(name).orElse(NullTag.INSTANCE).isLongArray();
+    }
+
+    /**
+     * Attempts to get the given tag as a long array.
+     * A ClassCastException is thrown if it is not one.
+     *
+     * @param name The name of the tag.
+     *
+     * @return The given tag as a long array.
+     */
+    public long[] getAsLongArray(String name) {
+        return get(name).orElse(NullTag.INSTANCE).getAsLongArray();
+    }
+
+    /**
+     * Attempts to get the given tag as a LongArrayTag.
+     * A ClassCastException is thrown if it is not one.
+     *
+     * @param name The name of the tag.
+     *
+     * @return The given tag as a LongArrayTag.
+     */
+    public LongArrayTag getAsLongArrayTag(String name) {
+        return get(name).orElse(NullTag.INSTANCE).getAsLongArrayTag();
+    }
+
     /**
      * Checks whether or not the given tag represents a list tag.
      *
@@ -289,7 +401,11 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
      */
     public void add(NBTTag tag) {
         Objects.requireNonNull(tag, "tag cannot be null").setHasName(true);
-        elements.put(tag.getName().get(), tag);
+        String name = tag.getName().get();
+        forget(name);
+        elements.put(name, tag);
+        tag.setParent(this);
+        markDirty();
     }
 
     /**
@@ -298,7 +414,9 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
      * @param name The name of the tag.
      */
     public void remove(String name) {
+        forget(name);
         elements.remove(name);
+        markDirty();
     }
 
     /**
@@ -306,6 +424,8 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
      */
     public void clear() {
         elements.clear();
+        undecoded = null;
+        markDirty();
     }
 
     /**
@@ -315,23 +435,69 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
      */
     public void set(Map<String, NBTTag> tags) {
         this.elements = new LinkedHashMap<>(Objects.requireNonNull(tags, "tags list cannot be null"));
+        this.undecoded = null;
+        for (NBTTag tag : elements.values())
+            tag.setParent(this);
+        markDirty();
+    }
+
+    @Override
+    public void release() {
+        for (NBTTag tag : elements.values()) {
+            if (tag != null)
+                tag.release();
+        }
     }
 
     @Override
     public void _read(ByteBuf buf, ByteOrder order) {
+        _read(buf, order, ReadContext.DEFAULT);
+    }
+
+    @Override
+    void _read(ByteBuf buf, ByteOrder order, ReadContext context) {
         byte type;
+        int start = buf.readerIndex();
         while ((type = buf.readByte()) != 0) {
-            NBTTag tag = NBTCodec.createTag(type);
+            NBTTag tag = NBTTagRegistry.create(type);
             tag.setWriteType(true);
             tag.setHasName(true);
-            tag.read(buf, order);
+            tag.readWithin(context, buf, order);
+            if (context.keepOrigins)
+                tag.setOrigin(new RawEntry(buf, order, start, buf.readerIndex()));
+            add(tag);
+            start = buf.readerIndex();
+        }
+    }
+
+    @Override
+    public void _read(DataInput in) throws IOException {
+        _read(in, ReadContext.DEFAULT);
+    }
+
+    @Override
+    void _read(DataInput in, ReadContext context) throws IOException {
+        byte type;
+        while ((type = in.readByte()) != 0) {
+            NBTTag tag = NBTTagRegistry.create(type);
+            tag.setWriteType(true);
+            tag.setHasName(true);
+            tag.readWithin(context, in);
             add(tag);
         }
     }
 
     @Override
     public void _write(ByteBuf buf, ByteOrder order) {
-        for (NBTTag tag : this) {
+        for (Map.Entry<String, NBTTag> entry : elements.entrySet()) {
+            NBTTag tag = entry.getValue();
+            RawEntry raw = tag != null ? tag.getOrigin() : undecoded.get(entry.getKey());
+            if (raw != null && raw.canCopy(order)) {
+                raw.copy(buf);
+                continue;
+            }
+            if (tag == null)
+                tag = decode(entry.getKey());
             tag.setWriteType(true);
             tag.setHasName(true);
             tag.write(buf, order);
@@ -339,14 +505,27 @@ public class CompoundTag extends NBTTag implements Iterable<NBTTag> {
         buf.writeByte(0);
     }
 
+    @Override
+    public void _write(DataOutput out) throws IOException {
+        for (Map.Entry<String, NBTTag> entry : elements.entrySet()) {
+            NBTTag tag = entry.getValue();
+            RawEntry raw = tag != null ? tag.getOrigin() : undecoded.get(entry.getKey());
+            if (raw != null && raw.canCopy(out)) {
+                raw.copy(out);
+                continue;
+            }
+            if (tag == null)
+                tag = decode(entry.getKey());
+            tag.setWriteType(true);
+            tag.setHasName(true);
+            tag.write(out);
+        }
+        out.writeByte(0);
+    }
+
     @Override
     protected void _print(PrintStream stream, String indent) {
-        stream.println(indent + String.format("TAG_Compound(%s): %d entries", name(), size()));
-        stream.println(indent + "{");
-        values().stream()
-                .sorted((t1, t2) -> t1.name().compareToIgnoreCase(t2.name()))
-                .forEach(tag -> tag._print(stream, indent(indent)));
-        stream.println(indent + "}");
+        NBTDumper.FULL.print(this, stream, indent);
     }
 
 }
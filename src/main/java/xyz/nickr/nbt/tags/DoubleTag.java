@@ -1,6 +1,9 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.ByteOrder;
 import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
@@ -42,6 +45,7 @@ public class DoubleTag extends NumberTag {
      */
     public void set(double val) {
         this.payload = val;
+        markDirty();
     }
 
     @Override
@@ -56,27 +60,35 @@ public class DoubleTag extends NumberTag {
 
     @Override
     public void _read(ByteBuf buf, ByteOrder order) {
-        this.payload = buf.readDouble();
+        if (order == ByteOrder.BIG_ENDIAN) {
+            this.payload = buf.readDouble();
+        } else {
+            this.payload = Double.longBitsToDouble(buf.readLongLE());
+        }
+    }
+
+    @Override
+    public void _read(DataInput in) throws IOException {
+        this.payload = in.readDouble();
     }
 
     @Override
     public void _write(ByteBuf buf, ByteOrder order) {
-        buf.writeDouble(payload);
+        if (order == ByteOrder.BIG_ENDIAN) {
+            buf.writeDouble(payload);
+        } else {
+            buf.writeLongLE(Double.doubleToRawLongBits(payload));
+        }
     }
 
     @Override
-    protected void _print(PrintStream stream, String indent) {
-        stream.println(indent + rtz(String.format("TAG_Double(%s): %.17f", name(), get())));
+    public void _write(DataOutput out) throws IOException {
+        out.writeDouble(payload);
     }
 
-    private String rtz(String s) {
-        boolean was = s.endsWith("0");
-        while (s.endsWith("0")) {
-            s = s.substring(0, s.length()-1);
-        }
-        if (was && s.endsWith("."))
-            s += "0";
-        return s;
+    @Override
+    protected void _print(PrintStream stream, String indent) {
+        NBTDumper.FULL.print(this, stream, indent);
     }
 
 }
@@ -1,6 +1,8 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.PrintStream;
 import java.nio.ByteOrder;
 import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
@@ -20,9 +22,15 @@ public class EndTag extends NBTTag {
     @Override
     public void _read(ByteBuf buffer, ByteOrder order) {}
 
+    @Override
+    public void _read(DataInput in) {}
+
     @Override
     public void _write(ByteBuf buffer, ByteOrder order) {}
 
+    @Override
+    public void _write(DataOutput out) {}
+
     @Override
     protected void _print(PrintStream stream, String indent) {}
 
@@ -1,13 +1,20 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.Objects;
 import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
 
 /**
- * Represents a {@link NBTTag} containing an {@code int array}.
+ * Represents a {@link NBTTag} containing an {@code int array}. <br>
+ * Arrays are copied to and from buffers in bulk, through a {@link java.nio.IntBuffer} view
+ * in the buffer's byte order, instead of one int at a time.
  *
  * @author Nick Robson
  */
@@ -28,11 +35,31 @@ public class IntArrayTag extends NBTTag {
     }
 
     /**
-     * Gets this tag's value.
+     * Gets this tag's value. <br>
+     * As the array may be changed in place, getting it marks this tag as dirty.
      *
      * @return The value.
      */
     public int[] get() {
+        markDirty();
+        return payload;
+    }
+
+    /**
+     * Gets a read-only buffer of this tag's value, without copying it or marking this tag as dirty.
+     *
+     * @return The buffer.
+     */
+    public IntBuffer getBuffer() {
+        if (payload == null)
+            throw new IllegalStateException("int array tag is missing value");
+        return IntBuffer.wrap(payload).asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets this tag's value, without marking this tag as dirty.
+     */
+    int[] value() {
         return payload;
     }
 
@@ -43,41 +70,54 @@ public class IntArrayTag extends NBTTag {
      */
     public void set(int[] val) {
         this.payload = Objects.requireNonNull(val, "int array cannot be null");
+        markDirty();
     }
 
     @Override
     public void _read(ByteBuf buf, ByteOrder order) {
-        if (order == ByteOrder.BIG_ENDIAN) {
-            int len = buf.readInt();
-            this.payload = new int[len];
-            for (int i = 0; i < len; i++)
-                this.payload[i] = buf.readInt();
-        } else {
-            int len = buf.readIntLE();
-            this.payload = new int[len];
-            for (int i = 0; i < len; i++)
-                this.payload[i] = buf.readIntLE();
-        }
+        this.payload = ArrayBuffers.readInts(buf, ArrayBuffers.readLength(buf, order), order);
+    }
+
+    @Override
+    public void _read(DataInput in) throws IOException {
+        this.payload = ArrayBuffers.readInts(in, ArrayBuffers.readLength(in));
     }
 
     @Override
     public void _write(ByteBuf buf, ByteOrder order) {
         if (payload == null)
             throw new IllegalStateException("int array tag is missing value");
+        ByteBuffer view;
         if (order == ByteOrder.BIG_ENDIAN) {
             buf.writeInt(payload.length);
-            for (int i : payload)
-                buf.writeInt(i);
+            view = ArrayBuffers.write(buf, Math.multiplyExact(payload.length, 4), order);
+            if (view == null) {
+                for (int i : payload)
+                    buf.writeInt(i);
+            }
         } else {
             buf.writeIntLE(payload.length);
-            for (int i : payload)
-                buf.writeIntLE(i);
+            view = ArrayBuffers.write(buf, Math.multiplyExact(payload.length, 4), order);
+            if (view == null) {
+                for (int i : payload)
+                    buf.writeIntLE(i);
+            }
         }
+        if (view != null)
+            view.asIntBuffer().put(payload);
+    }
+
+    @Override
+    public void _write(DataOutput out) throws IOException {
+        if (payload == null)
+            throw new IllegalStateException("int array tag is missing value");
+        out.writeInt(payload.length);
+        ArrayBuffers.writeInts(out, payload);
     }
 
     @Override
     protected void _print(PrintStream stream, String indent) {
-        stream.println(indent + String.format("TAG_IntArray(%s): [%d ints]", name(), get().length));
+        NBTDumper.FULL.print(this, stream, indent);
     }
 
 }
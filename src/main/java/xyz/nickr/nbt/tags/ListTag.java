@@ -1,30 +1,53 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
-import xyz.nickr.nbt.NBTCodec;
 import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
 
 /**
- * Represents a {@link NBTTag} containing a list of unnamed NBTTags of the same type.
+ * Represents a {@link NBTTag} containing a list of unnamed NBTTags of the same type. <br>
+ * Elements are held in an array, so getting one by its index takes constant time.
+ * A list of bytes, shorts, ints, longs, floats or doubles that is read from encoded data is held packed
+ * in a primitive array instead, until one of its tags is needed (such as by {@link #get(int)} or iterating
+ * over it), which turns the whole list into tags. Getters such as {@link #getInt(int)} never create tags.
  *
  * @author Nick Robson
  */
 @NBTTagType(9)
 public class ListTag extends NBTTag implements Iterable<NBTTag> {
 
-    private List<NBTTag> elements = new LinkedList<>();
+    /**
+     * The largest number of elements a list read from an input is presized for,
+     * as the input's length cannot be checked against the length prefix.
+     */
+    private static final int MAX_PRESIZE = 1 << 16;
+
+    private static final byte BYTE = 1, SHORT = 2, INT = 3, LONG = 4, FLOAT = 5, DOUBLE = 6;
+
+    private List<NBTTag> elements = new ArrayList<>();
     private byte type;
 
+    /**
+     * The packed elements, as an array of the primitive type matching {@link #type},
+     * or null if they are held as tags in {@link #elements}.
+     */
+    private Object packed;
+    private int packedSize;
+
     ListTag() {}
 
     /**
@@ -33,12 +56,89 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
      * @param tags The tags.
      */
     public ListTag(NBTTag... tags) {
-        Arrays.asList(tags).forEach(this::add);
+        addAll(Arrays.asList(tags));
+    }
+
+    /**
+     * Turns packed elements into tags.
+     */
+    private void unpack() {
+        if (packed == null)
+            return;
+        List<NBTTag> tags = new ArrayList<>(packedSize);
+        for (int i = 0; i < packedSize; i++) {
+            NBTTag tag = unpack(i);
+            tag.setParent(this);
+            tags.add(tag);
+        }
+        elements = tags;
+        packed = null;
+    }
+
+    private NBTTag unpack(int index) {
+        NBTTag tag;
+        switch (type) {
+            case BYTE:
+                tag = new ByteTag(((byte[]) packed)[index]);
+                break;
+            case SHORT:
+                tag = new ShortTag(((short[]) packed)[index]);
+                break;
+            case INT:
+                tag = new IntTag(((int[]) packed)[index]);
+                break;
+            case LONG:
+                tag = new LongTag(((long[]) packed)[index]);
+                break;
+            case FLOAT:
+                tag = new FloatTag(((float[]) packed)[index]);
+                break;
+            default:
+                tag = new DoubleTag(((double[]) packed)[index]);
+        }
+        tag.setWriteType(false);
+        tag.setHasName(false);
+        return tag;
+    }
+
+    private long packedLong(int index) {
+        switch (type) {
+            case BYTE:
+                return ((byte[]) packed)[index];
+            case SHORT:
+                return ((short[]) packed)[index];
+            case INT:
+                return ((int[]) packed)[index];
+            case LONG:
+                return ((long[]) packed)[index];
+            case FLOAT:
+                return (long) ((float[]) packed)[index];
+            default:
+                return (long) ((double[]) packed)[index];
+        }
+    }
+
+    private double packedDouble(int index) {
+        switch (type) {
+            case FLOAT:
+                return ((float[]) packed)[index];
+            case DOUBLE:
+                return ((double[]) packed)[index];
+            default:
+                return packedLong(index);
+        }
+    }
+
+    private int index(int index) {
+        int idx = index >= 0 ? index : size() + index;
+        if (packed != null && (idx < 0 || idx >= packedSize))
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + packedSize);
+        return idx;
     }
 
     @Override
     public Iterator<NBTTag> iterator() {
-        return elements.iterator();
+        return list().iterator();
     }
 
     @Override
@@ -52,6 +152,7 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
      * @return A list representation of this compound tag.
      */
     public List<NBTTag> list() {
+        unpack();
         return Collections.unmodifiableList(elements);
     }
 
@@ -64,8 +165,90 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
      * @return The tag.
      */
     public NBTTag get(int index) {
-        int idx = index >= 0 ? index : size() + index;
-        return elements.get(idx);
+        unpack();
+        return elements.get(index(index));
+    }
+
+    /**
+     * Gets the n-th tag as a byte, converting it as {@link Number#byteValue()} does.
+     * If negative, gets the {@code Math.abs(n)}-th last.
+     *
+     * @param index The index, n.
+     *
+     * @return The value.
+     */
+    public byte getByte(int index) {
+        int idx = index(index);
+        return packed != null ? (byte) packedLong(idx) : elements.get(idx).getAsNumber().byteValue();
+    }
+
+    /**
+     * Gets the n-th tag as a short, converting it as {@link Number#shortValue()} does.
+     * If negative, gets the {@code Math.abs(n)}-th last.
+     *
+     * @param index The index, n.
+     *
+     * @return The value.
+     */
+    public short getShort(int index) {
+        int idx = index(index);
+        return packed != null ? (short) packedLong(idx) : elements.get(idx).getAsNumber().shortValue();
+    }
+
+    /**
+     * Gets the n-th tag as an int, converting it as {@link Number#intValue()} does.
+     * If negative, gets the {@code Math.abs(n)}-th last.
+     *
+     * @param index The index, n.
+     *
+     * @return The value.
+     */
+    public int getInt(int index) {
+        int idx = index(index);
+        if (packed == null)
+            return elements.get(idx).getAsNumber().intValue();
+        return type == FLOAT || type == DOUBLE ? (int) packedDouble(idx) : (int) packedLong(idx);
+    }
+
+    /**
+     * Gets the n-th tag as a long, converting it as {@link Number#longValue()} does.
+     * If negative, gets the {@code Math.abs(n)}-th last.
+     *
+     * @param index The index, n.
+     *
+     * @return The value.
+     */
+    public long getLong(int index) {
+        int idx = index(index);
+        return packed != null ? packedLong(idx) : elements.get(idx).getAsNumber().longValue();
+    }
+
+    /**
+     * Gets the n-th tag as a float, converting it as {@link Number#floatValue()} does.
+     * If negative, gets the {@code Math.abs(n)}-th last.
+     *
+     * @param index The index, n.
+     *
+     * @return The value.
+     */
+    public float getFloat(int index) {
+        int idx = index(index);
+        if (packed == null)
+            return elements.get(idx).getAsNumber().floatValue();
+        return type == LONG ? (float) packedLong(idx) : (float) packedDouble(idx);
+    }
+
+    /**
+     * Gets the n-th tag as a double, converting it as {@link Number#doubleValue()} does.
+     * If negative, gets the {@code Math.abs(n)}-th last.
+     *
+     * @param index The index, n.
+     *
+     * @return The value.
+     */
+    public double getDouble(int index) {
+        int idx = index(index);
+        return packed != null ? packedDouble(idx) : elements.get(idx).getAsNumber().doubleValue();
     }
 
     /**
@@ -76,6 +259,10 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
      * @return True if it does, false otherwise.
      */
     public boolean isNumber(int n) {
+        if (packed != null) {
+            index(n);
+            return true;
+        }
         return get(n).isNumber();
     }
 
@@ -88,6 +275,23 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
      * @return The given tag as a Number.
      */
     public Number getAsNumber(int n) {
+        if (packed != null) {
+            int idx = index(n);
+            switch (type) {
+                case BYTE:
+                    return ((byte[]) packed)[idx];
+                case SHORT:
+                    return ((short[]) packed)[idx];
+                case INT:
+                    return ((int[]) packed)[idx];
+                case LONG:
+                    return ((long[]) packed)[idx];
+                case FLOAT:
+                    return ((float[]) packed)[idx];
+                default:
+                    return ((double[]) packed)[idx];
+            }
+        }
         return get(n).getAsNumber();
     }
 
@@ -208,6 +412,41 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
         return get(n).getAsIntArrayTag();
     }
 
+    /**
+     * Checks whether or not the given tag represents a long array.
+     *
+     * @param n The index of the tag.
+     *
+     * @return True if it does, false otherwise.
+     */
+    public boolean isLongArray(int n) {
+        return get(n).isLongArray();
+    }
+
+    /**
+     * Attempts to get the given tag as a long array.
+     * A ClassCastException is thrown if it is not one.
+     *
+     * @param n The index of the tag.
+     *
+     * @return The given tag as a long array.
+     */
+    public long[] getAsLongArray(int n) {
+        return get(n).getAsLongArray();
+    }
+
+    /**
+     * Attempts to get the given tag as a LongArrayTag.
+     * A ClassCastException is thrown if it is not one.
+     *
+     * @param n The index of the tag.
+     *
+     * @return The given tag as a LongArrayTag.
+     */
+    public LongArrayTag getAsLongArrayTag(int n) {
+        return get(n).getAsLongArrayTag();
+    }
+
     /**
      * Checks whether or not the given tag represents a list tag.
      *
@@ -260,7 +499,17 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
      * @return The size.
      */
     public int size() {
-        return elements.size();
+        return packed != null ? packedSize : elements.size();
+    }
+
+    /**
+     * Gets the type ID of this list tag's elements, without turning packed elements into tags. <br>
+     * This is the type of the first element, or for an empty list the type it was read with (0 if it was created empty).
+     *
+     * @return The type ID.
+     */
+    public byte getElementType() {
+        return packed == null && !elements.isEmpty() ? elements.get(0).getTypeId() : type;
     }
 
     /**
@@ -270,7 +519,40 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
      */
     public void add(NBTTag tag) {
         Objects.requireNonNull(tag, "tag cannot be null");
+        unpack();
         elements.add(tag);
+        tag.setParent(this);
+        markDirty();
+    }
+
+    /**
+     * Adds tags to this list tag.
+     *
+     * @param tags The tags.
+     */
+    public void addAll(Collection<? extends NBTTag> tags) {
+        Objects.requireNonNull(tags, "tags cannot be null");
+        for (NBTTag tag : tags)
+            Objects.requireNonNull(tag, "tag cannot be null");
+        unpack();
+        ensureCapacity(elements.size() + tags.size());
+        elements.addAll(tags);
+        for (NBTTag tag : tags)
+            tag.setParent(this);
+        markDirty();
+    }
+
+    /**
+     * Makes room for at least the given number of tags in this list tag,
+     * so that adding up to that many does not need the list to grow.
+     * This does nothing if the backing list was set to one which cannot be presized.
+     *
+     * @param capacity The number of tags.
+     */
+    public void ensureCapacity(int capacity) {
+        unpack();
+        if (elements instanceof ArrayList)
+            ((ArrayList<NBTTag>) elements).ensureCapacity(capacity);
     }
 
     /**
@@ -279,28 +561,50 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
      * @param index The index, n.
      */
     public void remove(int index) {
+        unpack();
         elements.remove(index);
+        markDirty();
     }
 
     /**
      * Removes all tags contained in this compound tag.
      */
     public void clear() {
-        elements.clear();
+        packed = null;
+        elements = new ArrayList<>();
+        markDirty();
     }
 
     /**
-     * Sets the backing list of tags to be the given one.
+     * Sets the tags contained in this list tag to those in the given list. <br>
+     * The list is copied, so later changes to it are not reflected in this tag.
      *
      * @param tags The tags.
      */
     public void set(List<NBTTag> tags) {
-        this.elements = Objects.requireNonNull(tags, "tags list cannot be null");
+        this.elements = new ArrayList<>(Objects.requireNonNull(tags, "tags list cannot be null"));
+        this.packed = null;
+        for (NBTTag tag : elements)
+            tag.setParent(this);
+        markDirty();
+    }
+
+    @Override
+    public void release() {
+        if (packed != null)
+            return;
+        for (NBTTag tag : elements)
+            tag.release();
     }
 
     @Override
     public void _read(ByteBuf buf, ByteOrder order) {
-        elements.clear();
+        _read(buf, order, ReadContext.DEFAULT);
+    }
+
+    @Override
+    void _read(ByteBuf buf, ByteOrder order, ReadContext context) {
+        packed = null;
         type = buf.readByte();
         int length;
         if (order == ByteOrder.BIG_ENDIAN) {
@@ -308,17 +612,217 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
         } else {
             length = buf.readIntLE();
         }
+        if (readPacked(buf, order, length))
+            return;
+        elements = new ArrayList<>(Math.max(0, Math.min(length, buf.readableBytes())));
+        while (length-- > 0) {
+            NBTTag tag = NBTTagRegistry.create(type);
+            tag.setWriteType(false);
+            tag.setHasName(false);
+            tag.readWithin(context, buf, order);
+            tag.setParent(this);
+            elements.add(tag);
+        }
+    }
+
+    @Override
+    public void _read(DataInput in) throws IOException {
+        _read(in, ReadContext.DEFAULT);
+    }
+
+    @Override
+    void _read(DataInput in, ReadContext context) throws IOException {
+        packed = null;
+        type = in.readByte();
+        int length = in.readInt();
+        if (length <= MAX_PRESIZE && readPacked(in, length))
+            return;
+        elements = new ArrayList<>(Math.max(0, Math.min(length, MAX_PRESIZE)));
         while (length-- > 0) {
-            NBTTag tag = NBTCodec.createTag(type);
+            NBTTag tag = NBTTagRegistry.create(type);
             tag.setWriteType(false);
             tag.setHasName(false);
-            tag.read(buf, order);
+            tag.readWithin(context, in);
+            tag.setParent(this);
             elements.add(tag);
         }
     }
 
+    /**
+     * Reads the elements into a primitive array if they are numbers.
+     *
+     * @return True if they were read, false if they are not numbers.
+     */
+    private boolean readPacked(ByteBuf buf, ByteOrder order, int length) {
+        if (type < BYTE || type > DOUBLE || length < 0)
+            return false;
+        ByteBuffer bytes = ArrayBuffers.read(buf, Math.multiplyExact(length, NBTTagRegistry.width(type)), order);
+        switch (type) {
+            case BYTE: {
+                byte[] values = new byte[length];
+                bytes.get(values);
+                packed = values;
+                break;
+            }
+            case SHORT: {
+                short[] values = new short[length];
+                bytes.asShortBuffer().get(values);
+                packed = values;
+                break;
+            }
+            case INT: {
+                int[] values = new int[length];
+                bytes.asIntBuffer().get(values);
+                packed = values;
+                break;
+            }
+            case LONG: {
+                long[] values = new long[length];
+                bytes.asLongBuffer().get(values);
+                packed = values;
+                break;
+            }
+            case FLOAT: {
+                float[] values = new float[length];
+                bytes.asFloatBuffer().get(values);
+                packed = values;
+                break;
+            }
+            default: {
+                double[] values = new double[length];
+                bytes.asDoubleBuffer().get(values);
+                packed = values;
+            }
+        }
+        packedSize = length;
+        elements = Collections.emptyList();
+        return true;
+    }
+
+    /**
+     * Reads the elements into a primitive array if they are numbers.
+     *
+     * @return True if they were read, false if they are not numbers.
+     */
+    private boolean readPacked(DataInput in, int length) throws IOException {
+        if (type < BYTE || type > DOUBLE || length < 0)
+            return false;
+        switch (type) {
+            case BYTE: {
+                byte[] values = new byte[length];
+                in.readFully(values);
+                packed = values;
+                break;
+            }
+            case SHORT: {
+                short[] values = new short[length];
+                for (int i = 0; i < length; i++)
+                    values[i] = in.readShort();
+                packed = values;
+                break;
+            }
+            case INT: {
+                int[] values = new int[length];
+                for (int i = 0; i < length; i++)
+                    values[i] = in.readInt();
+                packed = values;
+                break;
+            }
+            case LONG: {
+                long[] values = new long[length];
+                for (int i = 0; i < length; i++)
+                    values[i] = in.readLong();
+                packed = values;
+                break;
+            }
+            case FLOAT: {
+                float[] values = new float[length];
+                for (int i = 0; i < length; i++)
+                    values[i] = in.readFloat();
+                packed = values;
+                break;
+            }
+            default: {
+                double[] values = new double[length];
+                for (int i = 0; i < length; i++)
+                    values[i] = in.readDouble();
+                packed = values;
+            }
+        }
+        packedSize = length;
+        elements = Collections.emptyList();
+        return true;
+    }
+
+    private void writePacked(ByteBuf buf, ByteOrder order) {
+        if (type == BYTE) {
+            buf.writeBytes((byte[]) packed, 0, packedSize);
+            return;
+        }
+        int len = Math.multiplyExact(packedSize, NBTTagRegistry.width(type));
+        ByteBuffer view = ArrayBuffers.write(buf, len, order);
+        ByteBuffer target = view != null ? view : ByteBuffer.allocate(len).order(order);
+        switch (type) {
+            case SHORT:
+                target.asShortBuffer().put((short[]) packed, 0, packedSize);
+                break;
+            case INT:
+                target.asIntBuffer().put((int[]) packed, 0, packedSize);
+                break;
+            case LONG:
+                target.asLongBuffer().put((long[]) packed, 0, packedSize);
+                break;
+            case FLOAT:
+                target.asFloatBuffer().put((float[]) packed, 0, packedSize);
+                break;
+            default:
+                target.asDoubleBuffer().put((double[]) packed, 0, packedSize);
+        }
+        if (view == null)
+            buf.writeBytes(target);
+    }
+
+    private void writePacked(DataOutput out) throws IOException {
+        switch (type) {
+            case BYTE:
+                out.write((byte[]) packed, 0, packedSize);
+                break;
+            case SHORT:
+                for (short value : (short[]) packed)
+                    out.writeShort(value);
+                break;
+            case INT:
+                for (int value : (int[]) packed)
+                    out.writeInt(value);
+                break;
+            case LONG:
+                for (long value : (long[]) packed)
+                    out.writeLong(value);
+                break;
+            case FLOAT:
+                for (float value : (float[]) packed)
+                    out.writeFloat(value);
+                break;
+            default:
+                for (double value : (double[]) packed)
+                    out.writeDouble(value);
+        }
+    }
+
     @Override
     public void _write(ByteBuf buf, ByteOrder order) {
+        if (packed != null) {
+            buf.writeByte(type);
+            if (order == ByteOrder.BIG_ENDIAN) {
+                buf.writeInt(packedSize);
+            } else {
+                buf.writeIntLE(packedSize);
+            }
+            writePacked(buf, order);
+            return;
+        }
+        if (!elements.isEmpty())
+            type = elements.get(0).getTypeId();
         buf.writeByte(type);
         if (order == ByteOrder.BIG_ENDIAN) {
             buf.writeInt(elements.size());
@@ -332,14 +836,28 @@ public class ListTag extends NBTTag implements Iterable<NBTTag> {
         }
     }
 
+    @Override
+    public void _write(DataOutput out) throws IOException {
+        if (packed != null) {
+            out.writeByte(type);
+            out.writeInt(packedSize);
+            writePacked(out);
+            return;
+        }
+        if (!elements.isEmpty())
+            type = elements.get(0).getTypeId();
+        out.writeByte(type);
+        out.writeInt(elements.size());
+        for (NBTTag tag : elements) {
+            tag.setWriteType(false);
+            tag.setHasName(false);
+            tag.write(out);
+        }
+    }
+
     @Override
     protected void _print(PrintStream stream, String indent) {
-        stream.println(indent + String.format("TAG_List(%s): %d entries", name(), size()));
-        stream.println(indent + "{");
-        String in = indent(indent);
-        for (NBTTag tag : this)
-            tag._print(stream, in);
-        stream.println(indent + "}");
+        NBTDumper.FULL.print(this, stream, indent);
     }
 
 }
@@ -0,0 +1,123 @@
+package xyz.nickr.nbt.tags;
+
+import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Objects;
+import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
+
+/**
+ * Represents a {@link NBTTag} containing a {@code long array}. <br>
+ * Arrays are copied to and from buffers in bulk, through a {@link java.nio.LongBuffer} view
+ * in the buffer's byte order, instead of one long at a time.
+ *
+ * @author Nick Robson
+ */
+@NBTTagType(12)
+public class LongArrayTag extends NBTTag {
+
+    private long[] payload;
+
+    LongArrayTag() {}
+
+    /**
+     * Creates a LongArrayTag with a given value.
+     *
+     * @param val The value.
+     */
+    public LongArrayTag(long[] val) {
+        set(val);
+    }
+
+    /**
+     * Gets this tag's value. <br>
+     * As the array may be changed in place, getting it marks this tag as dirty.
+     *
+     * @return The value.
+     */
+    public long[] get() {
+        markDirty();
+        return payload;
+    }
+
+    /**
+     * Gets a read-only buffer of this tag's value, without copying it or marking this tag as dirty.
+     *
+     * @return The buffer.
+     */
+    public LongBuffer getBuffer() {
+        if (payload == null)
+            throw new IllegalStateException("long array tag is missing value");
+        return LongBuffer.wrap(payload).asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets this tag's value, without marking this tag as dirty.
+     */
+    long[] value() {
+        return payload;
+    }
+
+    /**
+     * Sets the value of this tag.
+     *
+     * @param val The new value.
+     */
+    public void set(long[] val) {
+        this.payload = Objects.requireNonNull(val, "long array cannot be null");
+        markDirty();
+    }
+
+    @Override
+    public void _read(ByteBuf buf, ByteOrder order) {
+        this.payload = ArrayBuffers.readLongs(buf, ArrayBuffers.readLength(buf, order), order);
+    }
+
+    @Override
+    public void _read(DataInput in) throws IOException {
+        this.payload = ArrayBuffers.readLongs(in, ArrayBuffers.readLength(in));
+    }
+
+    @Override
+    public void _write(ByteBuf buf, ByteOrder order) {
+        if (payload == null)
+            throw new IllegalStateException("long array tag is missing value");
+        ByteBuffer view;
+        if (order == ByteOrder.BIG_ENDIAN) {
+            buf.writeInt(payload.length);
+            view = ArrayBuffers.write(buf, Math.multiplyExact(payload.length, 8), order);
+            if (view == null) {
+                for (long l : payload)
+                    buf.writeLong(l);
+            }
+        } else {
+            buf.writeIntLE(payload.length);
+            view = ArrayBuffers.write(buf, Math.multiplyExact(payload.length, 8), order);
+            if (view == null) {
+                for (long l : payload)
+                    buf.writeLongLE(l);
+            }
+        }
+        if (view != null)
+            view.asLongBuffer().put(payload);
+    }
+
+    @Override
+    public void _write(DataOutput out) throws IOException {
+        if (payload == null)
+            throw new IllegalStateException("long array tag is missing value");
+        out.writeInt(payload.length);
+        ArrayBuffers.writeLongs(out, payload);
+    }
+
+    @Override
+    protected void _print(PrintStream stream, String indent) {
+        NBTDumper.FULL.print(this, stream, indent);
+    }
+
+}
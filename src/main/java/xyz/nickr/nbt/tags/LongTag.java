@@ -1,6 +1,9 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.ByteOrder;
 import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
@@ -42,6 +45,7 @@ public class LongTag extends NumberTag {
      */
     public void set(long val) {
         this.payload = val;
+        markDirty();
     }
 
     @Override
@@ -63,6 +67,11 @@ public class LongTag extends NumberTag {
         }
     }
 
+    @Override
+    public void _read(DataInput in) throws IOException {
+        this.payload = in.readLong();
+    }
+
     @Override
     public void _write(ByteBuf buf, ByteOrder order) {
         if (order == ByteOrder.BIG_ENDIAN) {
@@ -72,9 +81,14 @@ public class LongTag extends NumberTag {
         }
     }
 
+    @Override
+    public void _write(DataOutput out) throws IOException {
+        out.writeLong(payload);
+    }
+
     @Override
     protected void _print(PrintStream stream, String indent) {
-        stream.println(indent + String.format("TAG_Long(%s): %d", name(), get()));
+        NBTDumper.FULL.print(this, stream, indent);
     }
 
 }
@@ -0,0 +1,193 @@
+package xyz.nickr.nbt.tags;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes and decodes strings as Java's Modified UTF-8, which is what NBT strings are stored as. <br>
+ * It differs from standard UTF-8 in encoding {@code '\0'} as two bytes, and supplementary characters as
+ * their two surrogates of three bytes each. When decoding, standard four-byte sequences are also accepted. <br>
+ * Pure ASCII strings, which almost every name is, are copied without being decoded or encoded a character at a time.
+ *
+ * @author Nick Robson
+ */
+public final class ModifiedUtf8 {
+
+    private ModifiedUtf8() {}
+
+    /**
+     * Gets the number of bytes a string is encoded as.
+     * A string is pure ASCII, with no {@code '\0'}, exactly when this is its length.
+     *
+     * @param string The string.
+     *
+     * @return The number of bytes, or {@link Integer#MAX_VALUE} if there are more.
+     */
+    public static int length(String string) {
+        int len = string.length();
+        long bytes = len;
+        for (int i = 0; i < len; i++) {
+            char c = string.charAt(i);
+            if (c >= 0x800) {
+                bytes += 2;
+            } else if (c >= 0x80 || c == 0) {
+                bytes++;
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Encodes a string into a new array.
+     *
+     * @param string The string.
+     *
+     * @return The bytes.
+     */
+    public static byte[] encode(String string) {
+        byte[] bytes = new byte[length(string)];
+        encode(string, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Encodes a string at the buffer's writer index, advancing it.
+     *
+     * @param buf The buffer to write to.
+     * @param string The string.
+     * @param length The number of bytes the string is encoded as, as given by {@link #length(String)}.
+     */
+    @SuppressWarnings("deprecation")
+    public static void encode(ByteBuf buf, String string, int length) {
+        buf.ensureWritable(length);
+        int index = buf.writerIndex();
+        if (length == string.length()) {
+            if (buf.hasArray()) {
+                // every char is ASCII, so copying the low bytes is exact
+                string.getBytes(0, length, buf.array(), buf.arrayOffset() + index);
+                buf.writerIndex(index + length);
+            } else {
+                ByteBufUtil.writeAscii(buf, string);
+            }
+            return;
+        }
+        if (buf.hasArray()) {
+            encode(string, buf.array(), buf.arrayOffset() + index);
+            buf.writerIndex(index + length);
+            return;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c < 0x80 && c != 0) {
+                buf.writeByte(c);
+            } else if (c < 0x800) {
+                buf.writeByte(0xC0 | (c >> 6));
+                buf.writeByte(0x80 | (c & 0x3F));
+            } else {
+                buf.writeByte(0xE0 | (c >> 12));
+                buf.writeByte(0x80 | ((c >> 6) & 0x3F));
+                buf.writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static void encode(String string, byte[] bytes, int pos) {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c < 0x80 && c != 0) {
+                bytes[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[pos++] = (byte) (0xC0 | (c >> 6));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                bytes[pos++] = (byte) (0xE0 | (c >> 12));
+                bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Decodes a string from the given number of bytes at the buffer's reader index, advancing it.
+     *
+     * @param buf The buffer to read from.
+     * @param length The number of bytes.
+     *
+     * @return The string.
+     *
+     * @throws IllegalStateException If the bytes are not a valid encoding.
+     */
+    public static String decode(ByteBuf buf, int length) {
+        int index = buf.readerIndex();
+        buf.skipBytes(length);
+        if (buf.hasArray())
+            return decode(buf.array(), buf.arrayOffset() + index, length);
+        if (buf.forEachByte(index, length, b -> b >= 0) == -1)
+            return buf.toString(index, length, StandardCharsets.ISO_8859_1);
+        return decode(ByteBufUtil.getBytes(buf, index, length), 0, length);
+    }
+
+    /**
+     * Decodes a string from the given range of an array.
+     *
+     * @param bytes The array.
+     * @param offset The index of the first byte.
+     * @param length The number of bytes.
+     *
+     * @return The string.
+     *
+     * @throws IllegalStateException If the bytes are not a valid encoding.
+     */
+    public static String decode(byte[] bytes, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] < 0)
+                return decode(bytes, offset, length, i);
+        }
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String decode(byte[] bytes, int offset, int length, int ascii) {
+        char[] chars = new char[length];
+        int count = 0;
+        for (; count < ascii; count++)
+            chars[count] = (char) bytes[offset + count];
+        int i = offset + ascii, end = offset + length;
+        while (i < end) {
+            int c = bytes[i] & 0xFF;
+            if (c < 0x80) {
+                chars[count++] = (char) c;
+                i++;
+            } else if ((c & 0xE0) == 0xC0) {
+                checkContinuations(bytes, i, 1, end);
+                chars[count++] = (char) (((c & 0x1F) << 6) | (bytes[i + 1] & 0x3F));
+                i += 2;
+            } else if ((c & 0xF0) == 0xE0) {
+                checkContinuations(bytes, i, 2, end);
+                chars[count++] = (char) (((c & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6) | (bytes[i + 2] & 0x3F));
+                i += 3;
+            } else if ((c & 0xF8) == 0xF0) {
+                checkContinuations(bytes, i, 3, end);
+                int codePoint = ((c & 0x07) << 18) | ((bytes[i + 1] & 0x3F) << 12) | ((bytes[i + 2] & 0x3F) << 6) | (bytes[i + 3] & 0x3F);
+                if (!Character.isSupplementaryCodePoint(codePoint))
+                    throw new IllegalStateException("malformed string: invalid code point at byte " + (i - offset));
+                chars[count++] = Character.highSurrogate(codePoint);
+                chars[count++] = Character.lowSurrogate(codePoint);
+                i += 4;
+            } else {
+                throw new IllegalStateException("malformed string: unexpected byte at " + (i - offset));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private static void checkContinuations(byte[] bytes, int i, int count, int end) {
+        if (i + count >= end)
+            throw new IllegalStateException("malformed string: truncated sequence");
+        for (int j = 1; j <= count; j++) {
+            if ((bytes[i + j] & 0xC0) != 0x80)
+                throw new IllegalStateException("malformed string: bad continuation byte");
+        }
+    }
+
+}
@@ -0,0 +1,509 @@
+package xyz.nickr.nbt.tags;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Writes the human-readable dump of a tag, as {@link NBTTag#print(PrintStream)} prints it, straight to an {@link Appendable}. <br>
+ * A dumper can limit how deep into the tree it goes, how many entries of each compound and list it writes,
+ * how many elements of each array it lists, and how much of each string it writes, so that dumping a large
+ * tree, say for a log message, only costs as much as the output it produces. <br>
+ * Compounds are written in their own order. Nothing is ever marked as dirty, and packed lists stay packed. <br>
+ * A dumper holds no state between dumps, so it may be shared between threads.
+ *
+ * @author Nick Robson
+ */
+public final class NBTDumper {
+
+    /**
+     * The limit meaning no limit.
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * Dumps everything, summarising arrays by their length, as {@link NBTTag#print(PrintStream)} does.
+     */
+    static final NBTDumper FULL = new NBTDumper();
+
+    private static final byte BYTE = 1, SHORT = 2, INT = 3, LONG = 4, FLOAT = 5, DOUBLE = 6;
+
+    private static final String LINE = System.lineSeparator();
+    private static final String INDENT = "   ";
+
+    private final int maxDepth;
+    private final int maxEntries;
+    private final int maxElements;
+    private final int maxStringLength;
+
+    /**
+     * Creates a dumper which writes everything, summarising arrays by their length.
+     */
+    public NBTDumper() {
+        this(UNLIMITED, UNLIMITED, 0, UNLIMITED);
+    }
+
+    /**
+     * Creates a dumper with the given limits.
+     *
+     * @param maxDepth The number of levels of compounds and lists to write the entries of,
+     *                 so 0 writes only the tag itself.
+     * @param maxEntries The maximum number of entries to write of each compound and list.
+     * @param maxElements The maximum number of elements to write of each array, after its length.
+     * @param maxStringLength The maximum number of characters to write of each string.
+     */
+    public NBTDumper(int maxDepth, int maxEntries, int maxElements, int maxStringLength) {
+        if (maxDepth < 0)
+            throw new IllegalArgumentException("invalid max depth: " + maxDepth);
+        if (maxEntries < 0)
+            throw new IllegalArgumentException("invalid max entries: " + maxEntries);
+        if (maxElements < 0)
+            throw new IllegalArgumentException("invalid max elements: " + maxElements);
+        if (maxStringLength < 0)
+            throw new IllegalArgumentException("invalid max string length: " + maxStringLength);
+        this.maxDepth = maxDepth;
+        this.maxEntries = maxEntries;
+        this.maxElements = maxElements;
+        this.maxStringLength = maxStringLength;
+    }
+
+    /**
+     * Dumps a tag into a new string.
+     *
+     * @param tag The tag.
+     *
+     * @return The dump.
+     */
+    public String dump(NBTTag tag) {
+        StringBuilder builder = new StringBuilder();
+        dump(tag, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Dumps a tag to the given appendable, one line per tag.
+     *
+     * @param tag The tag.
+     * @param out The appendable to write to.
+     *
+     * @throws UncheckedIOException If appending fails.
+     */
+    public void dump(NBTTag tag, Appendable out) {
+        dump(tag, out, "");
+    }
+
+    /**
+     * Dumps a tag to the given print stream, with every line starting with the given indent.
+     */
+    void print(NBTTag tag, PrintStream stream, String indent) {
+        dump(tag, stream, indent);
+    }
+
+    private void dump(NBTTag tag, Appendable out, String indent) {
+        try {
+            if (out instanceof StringBuilder) {
+                write(out, tag, indent, 0);
+                return;
+            }
+            // appending a few characters at a time to a stream or writer is slow, so only append whole chunks
+            Chunked chunked = new Chunked(out);
+            write(chunked, tag, indent, 0);
+            chunked.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void write(Appendable out, NBTTag tag, String indent, int depth) throws IOException {
+        if (tag instanceof EndTag || tag instanceof NullTag)
+            return;
+        if (tag instanceof CompoundTag) {
+            writeCompound(out, (CompoundTag) tag, indent, depth);
+        } else if (tag instanceof ListTag) {
+            writeList(out, (ListTag) tag, indent, depth);
+        } else if (tag instanceof StringTag) {
+            header(out, indent, "TAG_String", tag);
+            writeString(out, ((StringTag) tag).get());
+            out.append(LINE);
+        } else if (tag instanceof ByteTag) {
+            header(out, indent, "TAG_Byte", tag);
+            writeLong(out, ((ByteTag) tag).get());
+            out.append(LINE);
+        } else if (tag instanceof ShortTag) {
+            header(out, indent, "TAG_Short", tag);
+            writeLong(out, ((ShortTag) tag).get());
+            out.append(LINE);
+        } else if (tag instanceof IntTag) {
+            header(out, indent, "TAG_Int", tag);
+            writeLong(out, ((IntTag) tag).get());
+            out.append(LINE);
+        } else if (tag instanceof LongTag) {
+            header(out, indent, "TAG_Long", tag);
+            writeLong(out, ((LongTag) tag).get());
+            out.append(LINE);
+        } else if (tag instanceof FloatTag) {
+            header(out, indent, "TAG_Float", tag);
+            out.append(Float.toString(((FloatTag) tag).get()));
+            out.append(LINE);
+        } else if (tag instanceof DoubleTag) {
+            header(out, indent, "TAG_Double", tag);
+            out.append(Double.toString(((DoubleTag) tag).get()));
+            out.append(LINE);
+        } else if (tag instanceof ByteArrayTag) {
+            header(out, indent, "TAG_ByteArray", tag);
+            writeByteArray(out, (ByteArrayTag) tag);
+            out.append(LINE);
+        } else if (tag instanceof IntArrayTag) {
+            header(out, indent, "TAG_IntArray", tag);
+            writeIntArray(out, ((IntArrayTag) tag).value());
+            out.append(LINE);
+        } else if (tag instanceof LongArrayTag) {
+            header(out, indent, "TAG_LongArray", tag);
+            writeLongArray(out, ((LongArrayTag) tag).value());
+            out.append(LINE);
+        } else {
+            // a registered tag of another type, which only knows how to print itself
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PrintStream stream = new PrintStream(bytes, false, "UTF-8");
+            tag._print(stream, indent);
+            stream.flush();
+            out.append(bytes.toString("UTF-8"));
+        }
+    }
+
+    private void writeCompound(Appendable out, CompoundTag compound, String indent, int depth) throws IOException {
+        int size = compound.size();
+        header(out, indent, "TAG_Compound", compound);
+        writeLong(out, size);
+        if (depth >= maxDepth) {
+            out.append(" entries {...}").append(LINE);
+            return;
+        }
+        out.append(" entries").append(LINE);
+        out.append(indent).append('{').append(LINE);
+        String in = INDENT + indent;
+        int count = 0;
+        for (NBTTag tag : compound) {
+            if (count++ == maxEntries)
+                break;
+            write(out, tag, in, depth + 1);
+        }
+        more(out, in, size);
+        out.append(indent).append('}').append(LINE);
+    }
+
+    private void writeList(Appendable out, ListTag list, String indent, int depth) throws IOException {
+        int size = list.size();
+        header(out, indent, "TAG_List", list);
+        writeLong(out, size);
+        if (depth >= maxDepth) {
+            out.append(" entries {...}").append(LINE);
+            return;
+        }
+        out.append(" entries").append(LINE);
+        out.append(indent).append('{').append(LINE);
+        String in = INDENT + indent;
+        int count = Math.min(size, maxEntries);
+        byte type = list.getElementType();
+        for (int i = 0; i < count; i++) {
+            switch (type) {
+                case BYTE:
+                    element(out, in, "TAG_Byte");
+                    writeLong(out, list.getByte(i));
+                    break;
+                case SHORT:
+                    element(out, in, "TAG_Short");
+                    writeLong(out, list.getShort(i));
+                    break;
+                case INT:
+                    element(out, in, "TAG_Int");
+                    writeLong(out, list.getInt(i));
+                    break;
+                case LONG:
+                    element(out, in, "TAG_Long");
+                    writeLong(out, list.getLong(i));
+                    break;
+                case FLOAT:
+                    element(out, in, "TAG_Float");
+                    out.append(Float.toString(list.getFloat(i)));
+                    break;
+                case DOUBLE:
+                    element(out, in, "TAG_Double");
+                    out.append(Double.toString(list.getDouble(i)));
+                    break;
+                default:
+                    write(out, list.get(i), in, depth + 1);
+                    continue;
+            }
+            out.append(LINE);
+        }
+        more(out, in, size);
+        out.append(indent).append('}').append(LINE);
+    }
+
+    private void more(Appendable out, String indent, int size) throws IOException {
+        if (size <= maxEntries)
+            return;
+        out.append(indent).append("... ");
+        writeLong(out, size - maxEntries);
+        out.append(" more").append(LINE);
+    }
+
+    private void writeString(Appendable out, String value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        int length = value.length();
+        if (length <= maxStringLength) {
+            out.append('\'').append(value).append('\'');
+            return;
+        }
+        int end = maxStringLength;
+        if (end > 0 && Character.isHighSurrogate(value.charAt(end - 1)))
+            end--;
+        out.append('\'').append(value, 0, end).append("'... (");
+        writeLong(out, length);
+        out.append(" chars)");
+    }
+
+    private void writeByteArray(Appendable out, ByteArrayTag tag) throws IOException {
+        if (!tag.hasValue()) {
+            out.append("null");
+            return;
+        }
+        int length = tag.length();
+        out.append('[');
+        writeLong(out, length);
+        out.append(" bytes]");
+        if (maxElements == 0 || length == 0)
+            return;
+        out.append(" [");
+        int count = Math.min(length, maxElements);
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                out.append(", ");
+            writeLong(out, tag.byteAt(i));
+        }
+        elements(out, length);
+    }
+
+    private void writeIntArray(Appendable out, int[] value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('[');
+        writeLong(out, value.length);
+        out.append(" ints]");
+        if (maxElements == 0 || value.length == 0)
+            return;
+        out.append(" [");
+        int count = Math.min(value.length, maxElements);
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                out.append(", ");
+            writeLong(out, value[i]);
+        }
+        elements(out, value.length);
+    }
+
+    private void writeLongArray(Appendable out, long[] value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('[');
+        writeLong(out, value.length);
+        out.append(" longs]");
+        if (maxElements == 0 || value.length == 0)
+            return;
+        out.append(" [");
+        int count = Math.min(value.length, maxElements);
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                out.append(", ");
+            writeLong(out, value[i]);
+        }
+        elements(out, value.length);
+    }
+
+    private void elements(Appendable out, int length) throws IOException {
+        out.append(length > maxElements ? ", ...]" : "]");
+    }
+
+    private static void header(Appendable out, String indent, String type, NBTTag tag) throws IOException {
+        out.append(indent).append(type).append('(');
+        String name = tag.getName().orElse(null);
+        if (name != null) {
+            out.append('\'').append(name).append('\'');
+        } else {
+            out.append("None");
+        }
+        out.append("): ");
+    }
+
+    private static void element(Appendable out, String indent, String type) throws IOException {
+        out.append(indent).append(type).append("(None): ");
+    }
+
+    private static void writeLong(Appendable out, long value) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+        } else if (out instanceof Chunked) {
+            ((Chunked) out).builder.append(value);
+        } else {
+            out.append(Long.toString(value));
+        }
+    }
+
+    /**
+     * Writes a tag as {@link NBTTag#getAsString()} describes it: numbers and strings as their values,
+     * and arrays, lists and compounds in square brackets, with compound entries as {@code name=value}.
+     */
+    static void appendString(StringBuilder builder, NBTTag tag) {
+        if (tag instanceof StringTag) {
+            builder.append(((StringTag) tag).get());
+        } else if (tag instanceof IntTag) {
+            builder.append(((IntTag) tag).get());
+        } else if (tag instanceof ByteTag) {
+            builder.append(((ByteTag) tag).get());
+        } else if (tag instanceof ShortTag) {
+            builder.append(((ShortTag) tag).get());
+        } else if (tag instanceof LongTag) {
+            builder.append(((LongTag) tag).get());
+        } else if (tag instanceof FloatTag) {
+            builder.append(((FloatTag) tag).get());
+        } else if (tag instanceof DoubleTag) {
+            builder.append(((DoubleTag) tag).get());
+        } else if (tag instanceof ByteArrayTag) {
+            ByteArrayTag array = (ByteArrayTag) tag;
+            if (!array.hasValue()) {
+                builder.append("null");
+                return;
+            }
+            builder.append('[');
+            for (int i = 0, length = array.length(); i < length; i++) {
+                if (i > 0)
+                    builder.append(", ");
+                builder.append(array.byteAt(i));
+            }
+            builder.append(']');
+        } else if (tag instanceof IntArrayTag) {
+            int[] value = ((IntArrayTag) tag).value();
+            if (value == null) {
+                builder.append("null");
+                return;
+            }
+            builder.append('[');
+            for (int i = 0; i < value.length; i++) {
+                if (i > 0)
+                    builder.append(", ");
+                builder.append(value[i]);
+            }
+            builder.append(']');
+        } else if (tag instanceof LongArrayTag) {
+            long[] value = ((LongArrayTag) tag).value();
+            if (value == null) {
+                builder.append("null");
+                return;
+            }
+            builder.append('[');
+            for (int i = 0; i < value.length; i++) {
+                if (i > 0)
+                    builder.append(", ");
+                builder.append(value[i]);
+            }
+            builder.append(']');
+        } else if (tag instanceof ListTag) {
+            ListTag list = (ListTag) tag;
+            byte type = list.getElementType();
+            builder.append('[');
+            for (int i = 0, size = list.size(); i < size; i++) {
+                if (i > 0)
+                    builder.append(", ");
+                switch (type) {
+                    case BYTE:
+                        builder.append(list.getByte(i));
+                        break;
+                    case SHORT:
+                        builder.append(list.getShort(i));
+                        break;
+                    case INT:
+                        builder.append(list.getInt(i));
+                        break;
+                    case LONG:
+                        builder.append(list.getLong(i));
+                        break;
+                    case FLOAT:
+                        builder.append(list.getFloat(i));
+                        break;
+                    case DOUBLE:
+                        builder.append(list.getDouble(i));
+                        break;
+                    default:
+                        appendString(builder, list.get(i));
+                }
+            }
+            builder.append(']');
+        } else if (tag instanceof CompoundTag) {
+            builder.append('[');
+            boolean first = true;
+            for (Map.Entry<String, NBTTag> entry : ((CompoundTag) tag).map().entrySet()) {
+                if (!first)
+                    builder.append(", ");
+                first = false;
+                builder.append(entry.getKey()).append('=');
+                appendString(builder, entry.getValue());
+            }
+            builder.append(']');
+        } else {
+            builder.append(tag.getAsString());
+        }
+    }
+
+    private static final class Chunked implements Appendable {
+
+        private static final int CHUNK = 8192;
+
+        private final Appendable out;
+        private final StringBuilder builder = new StringBuilder(CHUNK + 256);
+
+        private Chunked(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            builder.append(csq);
+            return check();
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            builder.append(csq, start, end);
+            return check();
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            builder.append(c);
+            return check();
+        }
+
+        private Appendable check() throws IOException {
+            if (builder.length() >= CHUNK)
+                flush();
+            return this;
+        }
+
+        private void flush() throws IOException {
+            out.append(builder);
+            builder.setLength(0);
+        }
+
+    }
+
+}
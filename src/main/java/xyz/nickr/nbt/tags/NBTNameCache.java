@@ -0,0 +1,216 @@
+package xyz.nickr.nbt.tags;
+
+import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the strings read for tag names (and short string values), so that the same few hundred names read over and over
+ * share one {@link String} instance each. <br>
+ * Strings are looked up by their encoded bytes, so a cached string is returned without being decoded or copied.
+ * The cache has a fixed number of slots, each holding one string: a string read into a taken slot evicts the one there.
+ * Strings longer than the maximum length are never cached. <br>
+ * A cache may be shared between threads.
+ *
+ * @author Nick Robson
+ */
+public final class NBTNameCache {
+
+    /**
+     * The default number of slots.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The default maximum length, in bytes, of a cached string.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 64;
+
+    private final Entry[] entries;
+    private final int maxLength;
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+    /**
+     * Creates a cache with {@link #DEFAULT_CAPACITY} slots, caching strings of up to {@link #DEFAULT_MAX_LENGTH} bytes.
+     */
+    public NBTNameCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Creates a cache with a given number of slots, caching strings up to a given length.
+     *
+     * @param capacity The number of slots, which is rounded up to a power of two.
+     * @param maxLength The maximum length, in bytes, of a cached string.
+     */
+    public NBTNameCache(int capacity, int maxLength) {
+        if (capacity < 1 || capacity > 1 << 20)
+            throw new IllegalArgumentException("invalid capacity: " + capacity);
+        if (maxLength < 0 || maxLength > 0xFFFF)
+            throw new IllegalArgumentException("invalid max length: " + maxLength);
+        int size = 1;
+        while (size < capacity)
+            size <<= 1;
+        this.entries = new Entry[size];
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Reads a string from the given buffer, as {@link NBTTag#readString(ByteBuf, ByteOrder)} does.
+     *
+     * @param buf The buffer to read from.
+     * @param order The byte order.
+     *
+     * @return The string.
+     */
+    public String read(ByteBuf buf, ByteOrder order) {
+        int len;
+        if (order == ByteOrder.BIG_ENDIAN) {
+            len = buf.readUnsignedShort();
+        } else {
+            len = buf.readUnsignedShortLE();
+        }
+        if (len > maxLength || len > buf.readableBytes())
+            return ModifiedUtf8.decode(buf, len);
+        int index = buf.readerIndex();
+        int hash = 0;
+        Entry entry;
+        if (buf.hasArray()) {
+            byte[] array = buf.array();
+            int offset = buf.arrayOffset() + index;
+            for (int i = 0; i < len; i++)
+                hash = 31 * hash + array[offset + i];
+            entry = entries[slot(hash)];
+            if (entry != null && entry.matches(hash, array, offset, len)) {
+                hits.increment();
+                buf.skipBytes(len);
+                return entry.value;
+            }
+        } else {
+            for (int i = 0; i < len; i++)
+                hash = 31 * hash + buf.getByte(index + i);
+            entry = entries[slot(hash)];
+            if (entry != null && entry.matches(hash, buf, index, len)) {
+                hits.increment();
+                buf.skipBytes(len);
+                return entry.value;
+            }
+        }
+        byte[] bytes = new byte[len];
+        buf.readBytes(bytes);
+        return miss(hash, bytes);
+    }
+
+    /**
+     * Reads a string from the given input, as {@link NBTTag#readString(DataInput)} does. <br>
+     * The string's bytes are always read into a new array, but the string is only decoded if it is not cached.
+     *
+     * @param in The input to read from.
+     *
+     * @return The string.
+     *
+     * @throws IOException If reading from the input fails.
+     */
+    public String read(DataInput in) throws IOException {
+        int len = in.readUnsignedShort();
+        byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        if (len > maxLength)
+            return ModifiedUtf8.decode(bytes, 0, len);
+        int hash = 0;
+        for (byte b : bytes)
+            hash = 31 * hash + b;
+        Entry entry = entries[slot(hash)];
+        if (entry != null && entry.matches(hash, bytes, 0, len)) {
+            hits.increment();
+            return entry.value;
+        }
+        return miss(hash, bytes);
+    }
+
+    private String miss(int hash, byte[] bytes) {
+        misses.increment();
+        String value = ModifiedUtf8.decode(bytes, 0, bytes.length);
+        entries[slot(hash)] = new Entry(hash, bytes, value);
+        return value;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (entries.length - 1);
+    }
+
+    /**
+     * Gets the number of slots in this cache.
+     *
+     * @return The number of slots.
+     */
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    /**
+     * Gets the number of strings which have been found in this cache.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of strings which have been looked up in this cache but not found.
+     * Strings longer than the maximum length are not counted.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Empties this cache and resets its counters.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length; i++)
+            entries[i] = null;
+        hits.reset();
+        misses.reset();
+    }
+
+    private static final class Entry {
+
+        private final int hash;
+        private final byte[] bytes;
+        private final String value;
+
+        private Entry(int hash, byte[] bytes, String value) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.value = value;
+        }
+
+        private boolean matches(int hash, byte[] array, int offset, int len) {
+            if (this.hash != hash || bytes.length != len)
+                return false;
+            for (int i = 0; i < len; i++) {
+                if (bytes[i] != array[offset + i])
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean matches(int hash, ByteBuf buf, int index, int len) {
+            if (this.hash != hash || bytes.length != len)
+                return false;
+            for (int i = 0; i < len; i++) {
+                if (bytes[i] != buf.getByte(index + i))
+                    return false;
+            }
+            return true;
+        }
+
+    }
+
+}
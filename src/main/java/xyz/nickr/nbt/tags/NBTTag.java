@@ -1,17 +1,19 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.Objects;
 import java.util.Optional;
+import xyz.nickr.nbt.LittleEndianDataOutput;
 
 /**
  * The building blocks of NBT, an NBTTag is a container for data.
@@ -28,20 +30,32 @@ public abstract class NBTTag {
 
     }
 
+    private static final ClassValue<Byte> typeIds = new ClassValue<Byte>() {
+        @Override
+        protected Byte computeValue(Class<?> type) {
+            NBTTagType annotation = type.getAnnotation(NBTTagType.class);
+            return annotation != null ? annotation.value() : null;
+        }
+    };
+
     private boolean writeType = true;
     private boolean hasName = true;
     private String name;
+    private boolean dirty;
+    private RawEntry origin;
+    private NBTTag parent;
 
     /**
-     * Gets this tag's type ID.
+     * Gets this tag's type ID, as given by its {@link NBTTagType} annotation.
+     * The annotation is only looked up once per class.
      *
      * @return The type ID.
      */
     public final byte getTypeId() {
-         NBTTagType type = getClass().getAnnotation(NBTTagType.class);
-         if (type == null)
-             throw new IllegalStateException("Class is missing @NBTTagType");
-         return type.value();
+        Byte type = typeIds.get(getClass());
+        if (type == null)
+            throw new IllegalStateException("Class is missing @NBTTagType");
+        return type;
     }
 
     /**
@@ -63,6 +77,8 @@ public abstract class NBTTag {
      */
     @SuppressWarnings("unchecked")
     public final <T extends NBTTag> T setName(String name) {
+        if (this.name != null && !this.name.equals(name))
+            markDirty();
         this.name = Objects.requireNonNull(name, "name");
         try {
             return (T) this;
@@ -79,11 +95,161 @@ public abstract class NBTTag {
      *
      * @return This tag.
      */
-    @SuppressWarnings("unchecked")
     public final <T extends NBTTag> T read(ByteBuf buf, ByteOrder order) {
+        return read(buf, order, null);
+    }
+
+    /**
+     * Reads data into this tag from the given buffer with the given byte order,
+     * looking up names and short strings in the given cache.
+     *
+     * @param buf The buffer to read from.
+     * @param names The cache, or null to decode every string.
+     * @param <T> The type of NBT tag.
+     *
+     * @return This tag.
+     */
+    public final <T extends NBTTag> T read(ByteBuf buf, ByteOrder order, NBTNameCache names) {
+        return readPayload(buf, order, names != null ? new ReadContext(names, false, false) : ReadContext.DEFAULT);
+    }
+
+    /**
+     * Reads data into this tag from the given buffer with the given byte order, with byte arrays holding retained slices
+     * of the buffer instead of copies. <br>
+     * See {@link #readRetained(ByteBuf, ByteOrder, NBTNameCache)}.
+     *
+     * @param buf The buffer to read from.
+     * @param <T> The type of NBT tag.
+     *
+     * @return This tag.
+     */
+    public final <T extends NBTTag> T readRetained(ByteBuf buf, ByteOrder order) {
+        return readRetained(buf, order, null);
+    }
+
+    /**
+     * Reads data into this tag from the given buffer with the given byte order, as {@link #read(ByteBuf, ByteOrder)} does,
+     * except that byte arrays hold retained slices of the buffer instead of copies of their contents. <br>
+     * The buffer's memory is then shared with the tree until it is released with {@link #release()},
+     * so it must not be changed in the meantime. The buffer itself may be released as usual.
+     *
+     * @param buf The buffer to read from.
+     * @param names The cache to look up names and short strings in, or null to decode every string.
+     * @param <T> The type of NBT tag.
+     *
+     * @return This tag.
+     *
+     * @see ByteArrayTag#getBuffer()
+     */
+    public final <T extends NBTTag> T readRetained(ByteBuf buf, ByteOrder order, NBTNameCache names) {
+        return readPayload(buf, order, new ReadContext(names, true, false));
+    }
+
+    /**
+     * Reads data into this tag from the given buffer with the given byte order, as {@link #read(ByteBuf, ByteOrder, NBTNameCache)} does,
+     * also keeping where each entry of a {@link CompoundTag} within it is in the buffer. <br>
+     * When the tree is written in the same byte order, entries which are not dirty are then copied from the buffer
+     * instead of being encoded again. The buffer must not be changed or released while the tree may still be written.
+     *
+     * @param buf The buffer to read from.
+     * @param names The cache to look up names and short strings in, or null to decode every string.
+     * @param <T> The type of NBT tag.
+     *
+     * @return This tag.
+     */
+    public final <T extends NBTTag> T readWithOrigins(ByteBuf buf, ByteOrder order, NBTNameCache names) {
+        return readPayload(buf, order, new ReadContext(names, false, true));
+    }
+
+    /**
+     * Reads data into this tag as an element of another, with the options that tag is being read with.
+     */
+    final void readWithin(ReadContext context, ByteBuf buf, ByteOrder order) {
+        readPayload(buf, order, context);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends NBTTag> T readPayload(ByteBuf buf, ByteOrder order, ReadContext context) {
+        origin = null;
+        try {
+            if (hasName)
+                setName(context.names != null ? context.names.read(buf, order) : readString(buf, order));
+            _read(buf, order, context);
+        } catch (RuntimeException ex) {
+            if (context.retain)
+                release();
+            throw ex;
+        }
+        read();
+        try {
+            return (T) this;
+        } catch (ClassCastException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Marks this tag as clean once it has been read. The tag containing it, if any, has changed.
+     */
+    private void read() {
+        dirty = false;
+        if (parent != null)
+            parent.markDirty();
+    }
+
+    /**
+     * Releases any buffers held by this tag, or by any tag within it. <br>
+     * Only trees read with {@link #readRetained(ByteBuf, ByteOrder)} hold buffers; for other tags this does nothing.
+     * A released byte array has no value until it is set again.
+     */
+    public void release() {}
+
+    /**
+     * Reads data into this tag from the given input. <br>
+     * The input is expected to be in the byte order the data was written with,
+     * see {@link xyz.nickr.nbt.LittleEndianDataInput}.
+     *
+     * @param in The input to read from.
+     * @param <T> The type of NBT tag.
+     *
+     * @return This tag.
+     *
+     * @throws IOException If reading from the input fails.
+     */
+    public final <T extends NBTTag> T read(DataInput in) throws IOException {
+        return read(in, null);
+    }
+
+    /**
+     * Reads data into this tag from the given input, looking up names and short strings in the given cache. <br>
+     * See {@link #read(DataInput)}.
+     *
+     * @param in The input to read from.
+     * @param names The cache, or null to decode every string.
+     * @param <T> The type of NBT tag.
+     *
+     * @return This tag.
+     *
+     * @throws IOException If reading from the input fails.
+     */
+    public final <T extends NBTTag> T read(DataInput in, NBTNameCache names) throws IOException {
+        return readPayload(in, names != null ? new ReadContext(names, false, false) : ReadContext.DEFAULT);
+    }
+
+    /**
+     * Reads data into this tag as an element of another, with the options that tag is being read with.
+     */
+    final void readWithin(ReadContext context, DataInput in) throws IOException {
+        readPayload(in, context);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends NBTTag> T readPayload(DataInput in, ReadContext context) throws IOException {
+        origin = null;
         if (hasName)
-            setName(readString(buf, order));
-        _read(buf, order);
+            setName(context.names != null ? context.names.read(in) : readString(in));
+        _read(in, context);
+        read();
         try {
             return (T) this;
         } catch (ClassCastException ex) {
@@ -114,12 +280,39 @@ public abstract class NBTTag {
     }
 
     /**
-     * Prints this tag to the given print stream.
+     * Writes data from this tag to the given output. <br>
+     * The output is expected to write in the desired byte order,
+     * see {@link xyz.nickr.nbt.LittleEndianDataOutput}.
+     *
+     * @param out The output to write to.
+     * @param <T> The type of NBT tag.
+     *
+     * @return This tag.
      *
-     * @param stream The stream to print to.
+     * @throws IOException If writing to the output fails.
+     */
+    @SuppressWarnings("unchecked")
+    public final <T extends NBTTag> T write(DataOutput out) throws IOException {
+        if (writeType)
+            out.writeByte(getTypeId());
+        if (hasName && name != null)
+            writeString(out, name);
+        _write(out);
+        try {
+            return (T) this;
+        } catch (ClassCastException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Prints this tag to the given print stream, one line per tag. <br>
+     * See {@link NBTDumper} to limit how much of a large tree is printed, or to print to something other than a stream.
+     *
+     * @param stream The stream to print to, or null to print to {@link System#out}.
      */
     public final void print(PrintStream stream) {
-        _print(stream != null ? stream : System.out, "");
+        NBTDumper.FULL.dump(this, stream != null ? stream : System.out);
     }
 
     /**
@@ -171,14 +364,11 @@ public abstract class NBTTag {
             return ((StringTag) this).get();
         else if (isNumber())
             return getAsNumber().toString();
-        else if (isByteArray())
-            return Arrays.toString(getAsByteArray());
-        else if (isIntArray())
-            return Arrays.toString(getAsIntArray());
-        else if (isListTag())
-            return getAsListTag().list().toString();
-        else if (isCompoundTag())
-            return new LinkedList<>(getAsCompoundTag().map().entrySet()).toString();
+        else if (isByteArray() || isIntArray() || isLongArray() || isListTag() || isCompoundTag()) {
+            StringBuilder builder = new StringBuilder();
+            NBTDumper.appendString(builder, this);
+            return builder.toString();
+        }
         return super.toString();
     }
 
@@ -250,6 +440,35 @@ public abstract class NBTTag {
         return isIntArray() ? (IntArrayTag) this : null;
     }
 
+    /**
+     * Checks whether or not this tag represents a long array.
+     *
+     * @return True if it does, false otherwise.
+     */
+    public boolean isLongArray() {
+        return this instanceof LongArrayTag;
+    }
+
+    /**
+     * Attempts to get this tag as a long array.
+     * A ClassCastException is thrown if it is not one.
+     *
+     * @return This tag as a long array.
+     */
+    public long[] getAsLongArray() {
+        return isLongArray() ? ((LongArrayTag) this).get() : null;
+    }
+
+    /**
+     * Attempts to get this tag as a LongArrayTag.
+     * A ClassCastException is thrown if it is not one.
+     *
+     * @return This tag as a LongArrayTag.
+     */
+    public LongArrayTag getAsLongArrayTag() {
+        return isLongArray() ? (LongArrayTag) this : null;
+    }
+
     /**
      * Checks whether or not this tag represents a list tag.
      *
@@ -292,10 +511,54 @@ public abstract class NBTTag {
 
     protected abstract void _read(ByteBuf buf, ByteOrder order);
 
+    /**
+     * Reads this tag's payload from the given buffer with the options the tree is being read with. <br>
+     * Tags whose payload depends on those options, or which contain other tags, override this.
+     */
+    void _read(ByteBuf buf, ByteOrder order, ReadContext context) {
+        _read(buf, order);
+    }
+
+    /**
+     * Reads this tag's payload from the given input. <br>
+     * Tags which can only be read from a ByteBuf need not override this, but then cannot be read from streams.
+     *
+     * @param in The input to read from.
+     *
+     * @throws IOException If reading from the input fails.
+     * @throws IllegalStateException If this tag cannot be read from an input.
+     */
+    protected void _read(DataInput in) throws IOException {
+        throw new IllegalStateException(getClass().getName() + " cannot be read from a DataInput");
+    }
+
+    /**
+     * Reads this tag's payload from the given input with the options the tree is being read with. <br>
+     * See {@link #_read(ByteBuf, ByteOrder, ReadContext)}.
+     */
+    void _read(DataInput in, ReadContext context) throws IOException {
+        _read(in);
+    }
+
     protected abstract void _write(ByteBuf buf, ByteOrder order);
 
     /**
-     * Reads a string.
+     * Writes this tag's payload to the given output. <br>
+     * By default, the payload is written into a buffer with {@link #_write(ByteBuf, ByteOrder)}, in the byte order
+     * of the output, and then copied to the output.
+     *
+     * @param out The output to write to.
+     *
+     * @throws IOException If writing to the output fails.
+     */
+    protected void _write(DataOutput out) throws IOException {
+        ByteBuf buf = Unpooled.buffer();
+        _write(buf, out instanceof LittleEndianDataOutput ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        out.write(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes());
+    }
+
+    /**
+     * Reads a string, encoded as {@link ModifiedUtf8}.
      *
      * @param buf The buffer to read from.
      *
@@ -308,24 +571,107 @@ public abstract class NBTTag {
         } else {
             len = buf.readUnsignedShortLE();
         }
+        return ModifiedUtf8.decode(buf, len);
+    }
+
+    /**
+     * Reads a string, encoded as {@link ModifiedUtf8}.
+     *
+     * @param in The input to read from.
+     *
+     * @return The string.
+     *
+     * @throws IOException If reading from the input fails.
+     */
+    public static String readString(DataInput in) throws IOException {
+        int len = in.readUnsignedShort();
         byte[] bytes = new byte[len];
-        buf.readBytes(bytes);
-        return new String(bytes, StandardCharsets.UTF_8);
+        in.readFully(bytes);
+        return ModifiedUtf8.decode(bytes, 0, len);
     }
 
     /**
-     * Writes a string.
+     * Writes a string, encoded as {@link ModifiedUtf8} straight into the buffer.
      *
      * @param buf The buffer to write to.
      * @param string The string.
+     *
+     * @throws IllegalArgumentException If the string is encoded as more than 65535 bytes.
      */
     public static void writeString(ByteBuf buf, ByteOrder order, String string) {
+        int len = checkLength(ModifiedUtf8.length(string));
         if (order == ByteOrder.BIG_ENDIAN) {
-            buf.writeShort(string.length());
+            buf.writeShort(len);
         } else {
-            buf.writeShortLE(string.length());
+            buf.writeShortLE(len);
         }
-        buf.writeBytes(string.getBytes(StandardCharsets.UTF_8));
+        ModifiedUtf8.encode(buf, string, len);
+    }
+
+    /**
+     * Writes a string, encoded as {@link ModifiedUtf8}.
+     *
+     * @param out The output to write to.
+     * @param string The string.
+     *
+     * @throws IOException If writing to the output fails.
+     * @throws IllegalArgumentException If the string is encoded as more than 65535 bytes.
+     */
+    public static void writeString(DataOutput out, String string) throws IOException {
+        byte[] bytes = ModifiedUtf8.encode(string);
+        out.writeShort(checkLength(bytes.length));
+        out.write(bytes);
+    }
+
+    private static int checkLength(int len) {
+        if (len > 0xFFFF)
+            throw new IllegalArgumentException("string is too long: " + len + " bytes");
+        return len;
+    }
+
+    /**
+     * Checks whether or not this tag has been changed since it was read. <br>
+     * Tags containing other tags are also dirty when any tag within them is, as changing a tag
+     * marks the tag it was last added to as well. A tag which is not dirty and whose original bytes are known,
+     * as for tags decoded by {@link xyz.nickr.nbt.NBTCodec#decodeWithOrigins(ByteBuf, xyz.nickr.nbt.NBTCompression)}
+     * or from a lazily decoded {@link CompoundTag}, is written by copying those bytes.
+     *
+     * @return True if it has been changed, false otherwise.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Marks this tag, and the tags containing it, as changed since they were read,
+     * so that they are encoded again when written.
+     * Anything changing a tag's value must call this, as renaming it does.
+     */
+    protected void markDirty() {
+        dirty = true;
+        if (parent != null)
+            parent.markDirty();
+    }
+
+    /**
+     * Sets the tag this tag is within, which is marked dirty whenever this tag is.
+     */
+    void setParent(NBTTag parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Sets the encoded entry this tag was decoded from.
+     */
+    void setOrigin(RawEntry origin) {
+        this.origin = origin;
+    }
+
+    /**
+     * Gets the encoded entry this tag was decoded from, if it is not dirty.
+     */
+    RawEntry getOrigin() {
+        return dirty ? null : origin;
     }
 
     protected void setHasName(boolean hasName) {
@@ -338,7 +684,7 @@ public abstract class NBTTag {
 
     protected String name() {
         Optional<String> name = getName();
-        return name.isPresent() ? String.format("'%s'", name.get()) : "None";
+        return name.isPresent() ? "'" + name.get() + "'" : "None";
     }
 
     protected String indent(String indent) {
@@ -0,0 +1,350 @@
+package xyz.nickr.nbt.tags;
+
+import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.function.Supplier;
+import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
+
+/**
+ * Holds the factories used to create {@link NBTTag}s from their type IDs. <br>
+ * Factories are stored in a table indexed by the unsigned type ID, so creating
+ * a tag is a single array lookup. Custom tag types can be added with {@link #register(Class, Supplier)},
+ * which should be done before any data containing them is decoded. Registering copies the table and publishes
+ * the copy, so tags registered at any time are seen by every thread which decodes after the call returns.
+ *
+ * @author Nick Robson
+ */
+public final class NBTTagRegistry {
+
+    private static final byte END = 0, BYTE = 1, SHORT = 2, INT = 3, LONG = 4, FLOAT = 5, DOUBLE = 6,
+            BYTE_ARRAY = 7, STRING = 8, LIST = 9, COMPOUND = 10, INT_ARRAY = 11, LONG_ARRAY = 12;
+
+    private static volatile Supplier<?>[] factories = new Supplier<?>[256];
+
+    /**
+     * The payload sizes of the fixed-width standard types, and the element sizes of the standard array types,
+     * indexed by the unsigned type ID. Every walk over encoded data takes its sizes from here.
+     */
+    private static final int[] WIDTHS = new int[256], ELEMENT_WIDTHS = new int[256];
+
+    static {
+        WIDTHS[BYTE] = 1;
+        WIDTHS[SHORT] = 2;
+        WIDTHS[INT] = 4;
+        WIDTHS[LONG] = 8;
+        WIDTHS[FLOAT] = 4;
+        WIDTHS[DOUBLE] = 8;
+        ELEMENT_WIDTHS[BYTE_ARRAY] = 1;
+        ELEMENT_WIDTHS[INT_ARRAY] = 4;
+        ELEMENT_WIDTHS[LONG_ARRAY] = 8;
+    }
+
+    static {
+        register(EndTag.class, EndTag::new);
+        register(ByteTag.class, ByteTag::new);
+        register(ShortTag.class, ShortTag::new);
+        register(IntTag.class, IntTag::new);
+        register(LongTag.class, LongTag::new);
+        register(FloatTag.class, FloatTag::new);
+        register(DoubleTag.class, DoubleTag::new);
+        register(ByteArrayTag.class, ByteArrayTag::new);
+        register(StringTag.class, StringTag::new);
+        register(ListTag.class, ListTag::new);
+        register(CompoundTag.class, CompoundTag::new);
+        register(IntArrayTag.class, IntArrayTag::new);
+        register(LongArrayTag.class, LongArrayTag::new);
+    }
+
+    private NBTTagRegistry() {}
+
+    /**
+     * Registers a tag type, using the ID given by its {@link NBTTagType} annotation.
+     * Any factory previously registered for that ID is replaced.
+     *
+     * @param cls The tag class.
+     * @param factory The factory creating new, empty instances of the tag.
+     * @param <T> The type of NBT tag.
+     */
+    public static <T extends NBTTag> void register(Class<T> cls, Supplier<? extends T> factory) {
+        NBTTagType type = Objects.requireNonNull(cls, "class cannot be null").getAnnotation(NBTTagType.class);
+        if (type == null)
+            throw new IllegalArgumentException(cls.getName() + " is missing @NBTTagType");
+        register(type.value(), factory);
+    }
+
+    /**
+     * Registers a factory for the given type ID.
+     * Any factory previously registered for that ID is replaced.
+     *
+     * @param id The type ID.
+     * @param factory The factory creating new, empty instances of the tag.
+     */
+    public static synchronized void register(byte id, Supplier<? extends NBTTag> factory) {
+        Objects.requireNonNull(factory, "factory cannot be null");
+        Supplier<?>[] copy = factories.clone();
+        copy[id & 0xFF] = factory;
+        factories = copy;
+    }
+
+    /**
+     * Checks whether or not a factory is registered for the given type ID.
+     *
+     * @param id The type ID.
+     *
+     * @return True if there is one, false otherwise.
+     */
+    public static boolean isRegistered(byte id) {
+        return factories[id & 0xFF] != null;
+    }
+
+    /**
+     * Creates an NBTTag given a type ID.
+     *
+     * @param id The type ID.
+     *
+     * @return A newly constructed NBTTag.
+     */
+    public static NBTTag create(byte id) {
+        Supplier<?> factory = factories[id & 0xFF];
+        if (factory == null)
+            throw new IllegalStateException("no valid tag found for id=" + id);
+        return (NBTTag) factory.get();
+    }
+
+    /**
+     * Creates a tag with the given type ID and reads its payload, which is not preceded by a name,
+     * as for the elements of a list.
+     *
+     * @param id The type ID.
+     * @param buf The buffer to read from.
+     * @param order The byte order.
+     *
+     * @return The tag.
+     *
+     * @throws IllegalStateException If no tag is registered with the ID.
+     */
+    public static NBTTag readPayload(byte id, ByteBuf buf, ByteOrder order) {
+        NBTTag tag = create(id);
+        tag.setHasName(false);
+        return tag.read(buf, order);
+    }
+
+    /**
+     * Creates a tag with the given type ID and reads its payload, which is not preceded by a name,
+     * as for the elements of a list.
+     *
+     * @param id The type ID.
+     * @param in The input to read from.
+     *
+     * @return The tag.
+     *
+     * @throws IOException If reading from the input fails.
+     * @throws IllegalStateException If no tag is registered with the ID.
+     */
+    public static NBTTag readPayload(byte id, DataInput in) throws IOException {
+        NBTTag tag = create(id);
+        tag.setHasName(false);
+        return tag.read(in);
+    }
+
+    /**
+     * Skips the payload of a tag with the given type ID, which is not preceded by a name. <br>
+     * Only length prefixes of the standard types are read: fixed-width values and arrays are stepped over by arithmetic.
+     * Payloads of other registered types are decoded and discarded.
+     *
+     * @param id The type ID.
+     * @param buf The buffer to read from.
+     * @param order The byte order.
+     *
+     * @throws IllegalStateException If a length is negative, or no tag is registered with the ID.
+     */
+    public static void skipPayload(byte id, ByteBuf buf, ByteOrder order) {
+        if (buf.hasArray()) {
+            int offset = buf.arrayOffset();
+            int end = skip(id, buf.array(), offset + buf.readerIndex(), offset + buf.writerIndex(), buf, order) - offset;
+            if (end > buf.writerIndex())
+                throw new IndexOutOfBoundsException("payload ends at " + end + ", past writerIndex " + buf.writerIndex());
+            buf.readerIndex(end);
+            return;
+        }
+        int width = width(id);
+        if (width > 0) {
+            buf.skipBytes(width);
+            return;
+        }
+        if (elementWidth(id) > 0) {
+            buf.skipBytes(readArraySize(id, buf, order));
+            return;
+        }
+        switch (id) {
+            case END:
+                break;
+            case STRING:
+                buf.skipBytes(order == ByteOrder.BIG_ENDIAN ? buf.readUnsignedShort() : buf.readUnsignedShortLE());
+                break;
+            case LIST: {
+                byte elementType = buf.readByte();
+                skipPayloads(elementType, readLength(buf, order), buf, order);
+                break;
+            }
+            case COMPOUND: {
+                byte entryType;
+                while ((entryType = buf.readByte()) != END) {
+                    skipPayload(STRING, buf, order);
+                    skipPayload(entryType, buf, order);
+                }
+                break;
+            }
+            default:
+                readPayload(id, buf, order);
+        }
+    }
+
+    /**
+     * Skips a run of payloads of tags with the given type ID, as for the elements of a list.
+     *
+     * @param id The type ID.
+     * @param count The number of payloads.
+     * @param buf The buffer to read from.
+     * @param order The byte order.
+     *
+     * @throws IllegalStateException If a length is negative, or no tag is registered with the ID.
+     */
+    public static void skipPayloads(byte id, int count, ByteBuf buf, ByteOrder order) {
+        int width = width(id);
+        if (width > 0) {
+            buf.skipBytes(Math.multiplyExact(count, width));
+        } else if (id != END) {
+            for (int i = 0; i < count; i++)
+                skipPayload(id, buf, order);
+        }
+    }
+
+    /**
+     * Skips a payload by walking a heap buffer's backing array, which avoids the buffer's checks on every read.
+     * Every read is checked against the array index of the buffer's writer index instead.
+     * Payloads which are stepped over may still end past it, which the caller checks once the end is known.
+     *
+     * @return The array index after the payload.
+     */
+    private static int skip(byte id, byte[] array, int index, int limit, ByteBuf buf, ByteOrder order) {
+        boolean be = order == ByteOrder.BIG_ENDIAN;
+        int width = width(id);
+        if (width > 0)
+            return index + width;
+        int elementWidth = elementWidth(id);
+        if (elementWidth > 0)
+            return Math.addExact(index + 4, Math.multiplyExact(length(array, index, limit, be), elementWidth));
+        switch (id) {
+            case END:
+                return index;
+            case STRING:
+                check(index, 2, limit);
+                return index + 2 + (be
+                        ? (array[index] & 0xFF) << 8 | array[index + 1] & 0xFF
+                        : (array[index + 1] & 0xFF) << 8 | array[index] & 0xFF);
+            case LIST: {
+                check(index, 1, limit);
+                byte elementType = array[index];
+                int count = length(array, index + 1, limit, be);
+                index += 5;
+                int elementSize = width(elementType);
+                if (elementSize > 0)
+                    return Math.addExact(index, Math.multiplyExact(count, elementSize));
+                if (elementType != END) {
+                    for (int i = 0; i < count; i++)
+                        index = skip(elementType, array, index, limit, buf, order);
+                }
+                return index;
+            }
+            case COMPOUND: {
+                byte entryType;
+                while (true) {
+                    check(index, 1, limit);
+                    if ((entryType = array[index++]) == END)
+                        break;
+                    index = skip(STRING, array, index, limit, buf, order);
+                    index = skip(entryType, array, index, limit, buf, order);
+                }
+                return index;
+            }
+            default:
+                buf.readerIndex(index - buf.arrayOffset());
+                readPayload(id, buf, order);
+                return buf.readerIndex() + buf.arrayOffset();
+        }
+    }
+
+    private static int length(byte[] array, int index, int limit, boolean be) {
+        check(index, 4, limit);
+        int length = be
+                ? array[index] << 24 | (array[index + 1] & 0xFF) << 16 | (array[index + 2] & 0xFF) << 8 | array[index + 3] & 0xFF
+                : array[index + 3] << 24 | (array[index + 2] & 0xFF) << 16 | (array[index + 1] & 0xFF) << 8 | array[index] & 0xFF;
+        if (length < 0)
+            throw new IllegalStateException("negative length: " + length);
+        return length;
+    }
+
+    /**
+     * Checks that the given number of bytes can be read from an array at the given index without passing the limit.
+     */
+    private static void check(int index, int length, int limit) {
+        if (index > limit - length)
+            throw new IndexOutOfBoundsException("reading " + length + " bytes at array index " + index + " passes limit " + limit);
+    }
+
+    /**
+     * Gets the size of the payload of a fixed-width standard type.
+     *
+     * @param id The type ID.
+     *
+     * @return The size in bytes, or 0 if the type's size varies or it is not a standard type.
+     */
+    public static int width(byte id) {
+        return WIDTHS[id & 0xFF];
+    }
+
+    /**
+     * Gets the size of each element of a standard array type.
+     *
+     * @param id The type ID.
+     *
+     * @return The size in bytes, or 0 if the type is not a standard array type.
+     */
+    public static int elementWidth(byte id) {
+        return ELEMENT_WIDTHS[id & 0xFF];
+    }
+
+    /**
+     * Reads the length prefix of a standard array type's payload.
+     *
+     * @param id The type ID.
+     * @param buf The buffer to read from.
+     * @param order The byte order.
+     *
+     * @return The size in bytes of the elements which follow.
+     *
+     * @throws IllegalStateException If the length is negative.
+     */
+    public static int readArraySize(byte id, ByteBuf buf, ByteOrder order) {
+        return Math.multiplyExact(readLength(buf, order), elementWidth(id));
+    }
+
+    /**
+     * Reads the length prefix of an array or list.
+     *
+     * @param buf The buffer to read from.
+     * @param order The byte order.
+     *
+     * @return The length.
+     *
+     * @throws IllegalStateException If the length is negative.
+     */
+    public static int readLength(ByteBuf buf, ByteOrder order) {
+        return ArrayBuffers.readLength(buf, order);
+    }
+
+}
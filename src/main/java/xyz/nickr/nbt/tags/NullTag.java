@@ -1,6 +1,8 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.PrintStream;
 import java.nio.ByteOrder;
 
@@ -16,7 +18,13 @@ final class NullTag extends NBTTag {
     @Override
     protected void _read(ByteBuf buf, ByteOrder order) {}
 
+    @Override
+    protected void _read(DataInput in) {}
+
     @Override
     protected void _write(ByteBuf buf, ByteOrder order) {}
 
+    @Override
+    protected void _write(DataOutput out) {}
+
 }
@@ -0,0 +1,82 @@
+package xyz.nickr.nbt.tags;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import xyz.nickr.nbt.LittleEndianDataOutput;
+
+/**
+ * Where an entry of a {@link CompoundTag} is in the encoded data it was read from, from its type ID to the end of its payload. <br>
+ * A lazily decoded compound keeps these for the entries it has not decoded yet, and decodes them from here when they are needed.
+ * The decoded tag keeps its entry as its origin, so that its bytes can still be copied until the tag is dirty.
+ *
+ * @author Nick Robson
+ */
+final class RawEntry {
+
+    private final ByteBuf source;
+    private final ByteOrder order;
+    private final int start, end;
+
+    /**
+     * @param source The buffer holding the encoded data.
+     * @param order The byte order of the encoded data.
+     * @param start The index of the entry's type ID.
+     * @param end The index after the entry's payload.
+     */
+    RawEntry(ByteBuf source, ByteOrder order, int start, int end) {
+        this.source = source;
+        this.order = order;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Decodes the entry's payload, without its name. Compounds are themselves decoded lazily.
+     */
+    NBTTag decode() {
+        byte type = source.getByte(start);
+        int nameLength = order == ByteOrder.BIG_ENDIAN ? source.getUnsignedShort(start + 1) : source.getUnsignedShortLE(start + 1);
+        int payload = start + 3 + nameLength;
+        ByteBuf buf = source.slice(payload, end - payload);
+        if (type == 10)
+            return CompoundTag.lazy(buf, order);
+        return NBTTagRegistry.readPayload(type, buf, order);
+    }
+
+    /**
+     * Checks whether or not the entry can be copied as it is into the given byte order.
+     */
+    boolean canCopy(ByteOrder order) {
+        return this.order == order;
+    }
+
+    /**
+     * Checks whether or not the entry can be copied as it is to the given output, which is assumed to be
+     * big-endian unless it is a {@link LittleEndianDataOutput}.
+     */
+    boolean canCopy(DataOutput out) {
+        return canCopy(out instanceof LittleEndianDataOutput ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Copies the whole entry, from its type ID to the end of its payload.
+     */
+    void copy(ByteBuf buf) {
+        buf.writeBytes(source, start, end - start);
+    }
+
+    /**
+     * Copies the whole entry, from its type ID to the end of its payload.
+     */
+    void copy(DataOutput out) throws IOException {
+        if (source.hasArray()) {
+            out.write(source.array(), source.arrayOffset() + start, end - start);
+        } else {
+            out.write(ByteBufUtil.getBytes(source, start, end - start));
+        }
+    }
+
+}
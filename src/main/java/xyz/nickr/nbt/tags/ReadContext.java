@@ -0,0 +1,37 @@
+package xyz.nickr.nbt.tags;
+
+/**
+ * The options a tree is being read with, handed down from each tag to the tags within it while they are read. <br>
+ * Tags only see these during a read, so they do not need to keep them.
+ *
+ * @author Nick Robson
+ */
+final class ReadContext {
+
+    /**
+     * Reading without a name cache, copying byte arrays and keeping no origins.
+     */
+    static final ReadContext DEFAULT = new ReadContext(null, false, false);
+
+    /**
+     * The cache names and short strings are looked up in, or null to decode every string.
+     */
+    final NBTNameCache names;
+
+    /**
+     * Whether byte arrays hold retained slices of the buffer instead of copies.
+     */
+    final boolean retain;
+
+    /**
+     * Whether the entries of compounds keep where they are in the buffer, see {@link RawEntry}.
+     */
+    final boolean keepOrigins;
+
+    ReadContext(NBTNameCache names, boolean retain, boolean keepOrigins) {
+        this.names = names;
+        this.retain = retain;
+        this.keepOrigins = keepOrigins;
+    }
+
+}
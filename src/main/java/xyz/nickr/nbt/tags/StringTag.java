@@ -1,6 +1,9 @@
 package xyz.nickr.nbt.tags;
 
 import io.netty.buffer.ByteBuf;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.ByteOrder;
 import java.util.Objects;
@@ -43,6 +46,7 @@ public class StringTag extends NBTTag {
      */
     public void set(String val) {
         this.payload = Objects.requireNonNull(val, "string cannot be null");
+        markDirty();
     }
 
     @Override
@@ -50,6 +54,21 @@ public class StringTag extends NBTTag {
         this.payload = readString(buf, order);
     }
 
+    @Override
+    void _read(ByteBuf buf, ByteOrder order, ReadContext context) {
+        this.payload = context.names != null ? context.names.read(buf, order) : readString(buf, order);
+    }
+
+    @Override
+    public void _read(DataInput in) throws IOException {
+        this.payload = readString(in);
+    }
+
+    @Override
+    void _read(DataInput in, ReadContext context) throws IOException {
+        this.payload = context.names != null ? context.names.read(in) : readString(in);
+    }
+
     @Override
     public void _write(ByteBuf buf, ByteOrder order) {
         if (payload == null)
@@ -57,9 +76,16 @@ public class StringTag extends NBTTag {
         writeString(buf, order, payload);
     }
 
+    @Override
+    public void _write(DataOutput out) throws IOException {
+        if (payload == null)
+            throw new IllegalStateException("string tag is missing value");
+        writeString(out, payload);
+    }
+
     @Override
     protected void _print(PrintStream stream, String indent) {
-        stream.println(indent + String.format("TAG_String(%s): '%s'", name(), get()));
+        NBTDumper.FULL.print(this, stream, indent);
     }
 
 }
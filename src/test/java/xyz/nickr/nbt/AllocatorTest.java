@@ -0,0 +1,106 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.ShortTag;
+
+public class AllocatorTest {
+
+    private static class TrackingAllocator extends AbstractByteBufAllocator {
+
+        private final ByteBufAllocator delegate = new PooledByteBufAllocator(true);
+        private final List<ByteBuf> allocated = new ArrayList<>();
+
+        TrackingAllocator() {
+            super(true);
+        }
+
+        @Override
+        protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+            return track(delegate.heapBuffer(initialCapacity, maxCapacity));
+        }
+
+        @Override
+        protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+            return track(delegate.directBuffer(initialCapacity, maxCapacity));
+        }
+
+        @Override
+        public boolean isDirectBufferPooled() {
+            return true;
+        }
+
+        private ByteBuf track(ByteBuf buf) {
+            allocated.add(buf);
+            return buf;
+        }
+
+    }
+
+    private CompoundTag sample() {
+        CompoundTag cp = new CompoundTag(new ShortTag(5).setName("example"));
+        cp.setName("compound");
+        return cp;
+    }
+
+    @Test
+    public void testDirectRoundTrip() {
+        for (NBTCompression compression : NBTCompression.values()) {
+            TrackingAllocator alloc = new TrackingAllocator();
+            NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN, alloc);
+
+            ByteBuf encoded = alloc.directBuffer();
+            codec.encode(encoded, sample(), compression);
+            assertTrue(encoded.isDirect());
+
+            CompoundTag tag = codec.decode(encoded, compression).getAsCompoundTag();
+            assertEquals(5, tag.getAsNumber("example").intValue());
+            assertFalse(encoded.isReadable());
+            assertTrue(encoded.release());
+
+            ByteBuf output = codec.encode(sample(), compression);
+            assertEquals(5, codec.decode(output, compression).getAsCompoundTag().getAsNumber("example").intValue());
+            assertTrue(output.release());
+
+            for (ByteBuf buf : alloc.allocated)
+                assertEquals(0, buf.refCnt());
+        }
+    }
+
+    @Test
+    public void testDefaultPooled() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        for (NBTCompression compression : NBTCompression.values()) {
+            ByteBuf output = codec.encode(sample(), compression);
+            assertTrue(output.alloc() instanceof PooledByteBufAllocator);
+            assertTrue(output.release());
+        }
+    }
+
+    @Test
+    public void testReleasedOnFailure() {
+        TrackingAllocator alloc = new TrackingAllocator();
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN, alloc);
+        try {
+            codec.decode(Unpooled.wrappedBuffer(new byte[]{0x78, (byte) 0x9C, 1, 2, 3}), NBTCompression.ZLIB);
+        } catch (RuntimeException expected) {
+        }
+        for (ByteBuf buf : alloc.allocated)
+            assertEquals(0, buf.refCnt());
+    }
+
+}
@@ -0,0 +1,126 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.IntArrayTag;
+import xyz.nickr.nbt.tags.LongArrayTag;
+import xyz.nickr.nbt.tags.NBTTag;
+
+public class ArrayBuffersTest {
+
+    private static final ByteOrder[] ORDERS = {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN};
+    private static final int[] SIZES = {0, 1, 3, 2049, 5000};
+
+    private static ByteBuf[] buffers() {
+        return new ByteBuf[]{Unpooled.buffer(), Unpooled.directBuffer(), Unpooled.compositeBuffer()};
+    }
+
+    private static int[] ints(int size) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++)
+            values[i] = i * 0x01020304 ^ -i;
+        return values;
+    }
+
+    private static long[] longs(int size) {
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++)
+            values[i] = i * 0x0102030405060708L ^ -i;
+        return values;
+    }
+
+    /**
+     * Writes a tag after a single byte, so that its payload starts at an odd index, and reads it back from there.
+     *
+     * @return The index of the payload's first value.
+     */
+    private static int writeOdd(ByteBuf buf, NBTTag tag, ByteOrder order) {
+        buf.writeByte(0x55);
+        tag.write(buf, order);
+        buf.skipBytes(1);
+        assertEquals(tag.getTypeId(), buf.readByte());
+        return 1 + 1 + 2 + tag.getName().get().length() + 4;
+    }
+
+    private static DataOutput output(ByteArrayOutputStream bytes, ByteOrder order) {
+        return order == ByteOrder.BIG_ENDIAN ? new DataOutputStream(bytes) : new LittleEndianDataOutput(bytes);
+    }
+
+    private static DataInput input(byte[] bytes, ByteOrder order) {
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        in.skip(1);
+        return order == ByteOrder.BIG_ENDIAN ? new DataInputStream(in) : new LittleEndianDataInput(in);
+    }
+
+    @Test
+    public void testInts() throws IOException {
+        for (int size : SIZES) {
+            int[] values = ints(size);
+            for (ByteOrder order : ORDERS) {
+                for (ByteBuf buf : buffers()) {
+                    int start = writeOdd(buf, new IntArrayTag(values).setName("a"), order);
+                    for (int i = 0; i < size; i++) {
+                        int index = start + i * 4;
+                        assertEquals(values[i], order == ByteOrder.BIG_ENDIAN ? buf.getInt(index) : buf.getIntLE(index));
+                    }
+                    IntArrayTag tag = new IntArrayTag(new int[0]);
+                    tag.read(buf, order);
+                    assertArrayEquals(values, tag.get());
+                    assertEquals(0, buf.readableBytes());
+
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    tag.write(output(bytes, order));
+                    assertArrayEquals(ByteBufUtil.getBytes(buf, 1, buf.writerIndex() - 1), bytes.toByteArray());
+                    tag = new IntArrayTag(new int[0]);
+                    tag.read(input(bytes.toByteArray(), order));
+                    assertArrayEquals(values, tag.get());
+                    buf.release();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLongs() throws IOException {
+        for (int size : SIZES) {
+            long[] values = longs(size);
+            for (ByteOrder order : ORDERS) {
+                for (ByteBuf buf : buffers()) {
+                    int start = writeOdd(buf, new LongArrayTag(values).setName("a"), order);
+                    for (int i = 0; i < size; i++) {
+                        int index = start + i * 8;
+                        assertEquals(values[i], order == ByteOrder.BIG_ENDIAN ? buf.getLong(index) : buf.getLongLE(index));
+                    }
+                    LongArrayTag tag = new LongArrayTag(new long[0]);
+                    tag.read(buf, order);
+                    assertArrayEquals(values, tag.get());
+                    assertEquals(0, buf.readableBytes());
+
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    tag.write(output(bytes, order));
+                    assertArrayEquals(ByteBufUtil.getBytes(buf, 1, buf.writerIndex() - 1), bytes.toByteArray());
+                    tag = new LongArrayTag(new long[0]);
+                    tag.read(input(bytes.toByteArray(), order));
+                    assertArrayEquals(values, tag.get());
+                    buf.release();
+                }
+            }
+        }
+    }
+
+}
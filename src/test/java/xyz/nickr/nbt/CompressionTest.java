@@ -0,0 +1,164 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+
+public class CompressionTest {
+
+    private static byte[] data() {
+        byte[] data = new byte[20000];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) (i % 13 * i % 7);
+        return data;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] tmp = new byte[512];
+        int c;
+        while ((c = in.read(tmp)) != -1)
+            out.write(tmp, 0, c);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testPoolReuse() {
+        Inflater a = ZlibPool.inflater(false);
+        ZlibPool.release(a, false);
+        Inflater b = ZlibPool.inflater(false);
+        assertSame(a, b);
+        Inflater c = ZlibPool.inflater(false);
+        assertNotSame(b, c);
+        ZlibPool.release(c, false);
+        ZlibPool.release(b, false);
+        NBTCompression.releaseThreadResources();
+        assertNotSame(c, ZlibPool.inflater(false));
+    }
+
+    @Test
+    public void testGzipInterop() throws IOException {
+        byte[] data = data();
+
+        ByteArrayOutputStream ours = new ByteArrayOutputStream();
+        try (OutputStream out = NBTCompression.GZIP.compress(ours)) {
+            out.write(data);
+        }
+        assertArrayEquals(data, readAll(new GZIPInputStream(new ByteArrayInputStream(ours.toByteArray()))));
+
+        ByteArrayOutputStream theirs = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(theirs)) {
+            out.write(data);
+        }
+        try (InputStream in = NBTCompression.GZIP.extract(new ByteArrayInputStream(theirs.toByteArray()))) {
+            assertArrayEquals(data, readAll(in));
+        }
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testCorruptGzipTrailer() {
+        ByteBuf compressed = NBTCompression.GZIP.compress(Unpooled.wrappedBuffer(data()));
+        compressed.setByte(compressed.writerIndex() - 6, compressed.getByte(compressed.writerIndex() - 6) + 1);
+        NBTCompression.GZIP.extract(compressed);
+    }
+
+    @Test
+    public void testCompressionLevel() {
+        CompoundTag tag = new CompoundTag(new ByteArrayTag(data()).setName("data"));
+        tag.setName("root");
+
+        NBTCodec stored = new NBTCodec(ByteOrder.BIG_ENDIAN, UnpooledByteBufAllocator.DEFAULT, Deflater.NO_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+        NBTCodec best = new NBTCodec(ByteOrder.BIG_ENDIAN, UnpooledByteBufAllocator.DEFAULT, Deflater.BEST_COMPRESSION, Deflater.FILTERED);
+        for (NBTCompression compression : new NBTCompression[]{NBTCompression.GZIP, NBTCompression.ZLIB}) {
+            ByteBuf large = stored.encode(tag, compression);
+            ByteBuf small = best.encode(tag, compression);
+            assertTrue(small.readableBytes() < large.readableBytes());
+            assertArrayEquals(data(), best.decode(large, compression).getAsCompoundTag().getAsByteArray("data"));
+            assertEquals(20000, stored.decode(small, compression).getAsCompoundTag().getAsByteArray("data").length);
+        }
+    }
+
+    @Test
+    public void testDirectBuffers() {
+        byte[] data = data();
+        UnpooledByteBufAllocator direct = new UnpooledByteBufAllocator(true);
+        for (NBTCompression compression : new NBTCompression[]{NBTCompression.GZIP, NBTCompression.ZLIB}) {
+            ByteBuf in = direct.directBuffer().writeBytes(data);
+            ByteBuf compressed = compression.compress(in, direct);
+            ByteBuf input = direct.directBuffer().writeBytes(compressed, compressed.readerIndex(), compressed.readableBytes());
+            ByteBuf out = compression.extract(input, direct);
+            assertEquals(0, input.readableBytes());
+            assertArrayEquals(data, ByteBufUtil.getBytes(out));
+            assertArrayEquals(data, ByteBufUtil.getBytes(compression.extract(compressed)));
+            for (ByteBuf buf : new ByteBuf[]{in, compressed, input, out})
+                buf.release();
+        }
+    }
+
+    @Test
+    public void testGzipPresized() {
+        byte[] data = new byte[20000];
+        Random random = new Random(0);
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) random.nextInt(16);
+        ByteBuf compressed = NBTCompression.GZIP.compress(Unpooled.wrappedBuffer(data));
+        ByteBuf out = NBTCompression.GZIP.extract(compressed);
+        assertEquals(20000, out.readableBytes());
+        assertEquals(20000, out.capacity());
+    }
+
+    @Test
+    public void testGzipSizeUntrusted() {
+        ByteBuf compressed = NBTCompression.GZIP.compress(Unpooled.wrappedBuffer(data()));
+        compressed.writeIntLE(compressed.readableBytes() * 1000);
+        ByteBuf out = NBTCompression.GZIP.extract(compressed);
+        assertArrayEquals(data(), ByteBufUtil.getBytes(out));
+        assertTrue(out.capacity() < 1 << 16);
+    }
+
+    @Test
+    public void testTrailingData() {
+        for (NBTCompression compression : new NBTCompression[]{NBTCompression.GZIP, NBTCompression.ZLIB}) {
+            ByteBuf compressed = compression.compress(Unpooled.wrappedBuffer(data()));
+            compressed.writeInt(0xCAFEBABE);
+            assertArrayEquals(data(), ByteBufUtil.getBytes(compression.extract(compressed)));
+            assertEquals(0xCAFEBABE, compressed.readInt());
+        }
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testTruncated() {
+        ByteBuf compressed = NBTCompression.ZLIB.compress(Unpooled.wrappedBuffer(data()));
+        NBTCompression.ZLIB.extract(compressed.slice(0, compressed.readableBytes() / 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLevel() {
+        new NBTCodec(ByteOrder.BIG_ENDIAN, UnpooledByteBufAllocator.DEFAULT, 10, Deflater.DEFAULT_STRATEGY);
+    }
+
+}
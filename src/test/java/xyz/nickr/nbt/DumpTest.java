@@ -0,0 +1,124 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.FloatTag;
+import xyz.nickr.nbt.tags.IntArrayTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.LongArrayTag;
+import xyz.nickr.nbt.tags.NBTDumper;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.StringTag;
+
+public class DumpTest {
+
+    private static CompoundTag tree() {
+        CompoundTag inner = new CompoundTag(new StringTag("hello world").setName("text"));
+        CompoundTag tag = new CompoundTag();
+        tag.setName("root");
+        tag.add(new IntTag(42).setName("answer"));
+        tag.add(new FloatTag(0.5f).setName("half"));
+        tag.add(new ListTag(new IntTag(1), new IntTag(2), new IntTag(3)).setName("list"));
+        tag.add(new ListTag(inner).setName("nested"));
+        tag.add(new ByteArrayTag(new byte[]{1, -2, 3}).setName("bytes"));
+        tag.add(new IntArrayTag(new int[]{4, 5}).setName("ints"));
+        tag.add(new LongArrayTag(new long[0]).setName("longs"));
+        return tag;
+    }
+
+    private static String lines(String s) {
+        return s.replace("\n", System.lineSeparator());
+    }
+
+    @Test
+    public void testPrint() {
+        String expected = lines("TAG_Compound('root'): 7 entries\n"
+                + "{\n"
+                + "   TAG_Int('answer'): 42\n"
+                + "   TAG_Float('half'): 0.5\n"
+                + "   TAG_List('list'): 3 entries\n"
+                + "   {\n"
+                + "      TAG_Int(None): 1\n"
+                + "      TAG_Int(None): 2\n"
+                + "      TAG_Int(None): 3\n"
+                + "   }\n"
+                + "   TAG_List('nested'): 1 entries\n"
+                + "   {\n"
+                + "      TAG_Compound(None): 1 entries\n"
+                + "      {\n"
+                + "         TAG_String('text'): 'hello world'\n"
+                + "      }\n"
+                + "   }\n"
+                + "   TAG_ByteArray('bytes'): [3 bytes]\n"
+                + "   TAG_IntArray('ints'): [2 ints]\n"
+                + "   TAG_LongArray('longs'): [0 longs]\n"
+                + "}\n");
+        assertEquals(expected, new NBTDumper().dump(tree()));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream stream = new PrintStream(bytes, true);
+        tree().print(stream);
+        assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLimits() {
+        NBTDumper dumper = new NBTDumper(1, 2, 2, 5);
+        assertEquals(lines("TAG_Compound('root'): 7 entries\n"
+                + "{\n"
+                + "   TAG_Int('answer'): 42\n"
+                + "   TAG_Float('half'): 0.5\n"
+                + "   ... 5 more\n"
+                + "}\n"), dumper.dump(tree()));
+
+        CompoundTag tag = tree();
+        assertEquals(lines("TAG_List('list'): 3 entries {...}\n"), new NBTDumper(0, 2, 2, 5).dump(tag.getAsListTag("list")));
+        assertEquals(lines("TAG_List('nested'): 1 entries\n"
+                + "{\n"
+                + "   TAG_Compound(None): 1 entries {...}\n"
+                + "}\n"), dumper.dump(tag.getAsListTag("nested")));
+        assertEquals(lines("TAG_String('text'): 'hello'... (11 chars)\n"),
+                dumper.dump(tag.getAsListTag("nested").getAsCompoundTag(0).get("text").get()));
+        assertEquals(lines("TAG_ByteArray('bytes'): [3 bytes] [1, -2, ...]\n"), dumper.dump(tag.get("bytes").get()));
+        assertEquals(lines("TAG_IntArray('ints'): [2 ints] [4, 5]\n"), dumper.dump(tag.get("ints").get()));
+        assertEquals(lines("TAG_LongArray('longs'): [0 longs]\n"), dumper.dump(tag.get("longs").get()));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("[answer=42, half=0.5, list=[1, 2, 3], nested=[[text=hello world]], "
+                + "bytes=[1, -2, 3], ints=[4, 5], longs=[]]", tree().toString());
+    }
+
+    @Test
+    public void testClean() throws IOException {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        ByteBuf buf = Unpooled.wrappedBuffer(Files.readAllBytes(Paths.get("nbt/bigtest.nbt")));
+        NBTTag tag = codec.decodeRetained(buf, NBTCompression.GZIP);
+        String string = tag.toString();
+        String dump = new NBTDumper(NBTDumper.UNLIMITED, NBTDumper.UNLIMITED, 4, NBTDumper.UNLIMITED).dump(tag);
+        assertFalse(tag.isDirty());
+        assertTrue(string.contains("byteArrayTest (the first 1000 values of (n*n*255+n*7)%100, starting with n=0 (0, 62, 34, 16, 8, ...))=[0, 62, 34, 16, 8, "));
+        assertTrue(dump.contains("[1000 bytes] [0, 62, 34, 16, ...]"));
+        assertEquals(string, tag.toString());
+        tag.release();
+    }
+
+}
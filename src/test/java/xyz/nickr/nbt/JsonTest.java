@@ -0,0 +1,143 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.ByteTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.DoubleTag;
+import xyz.nickr.nbt.tags.FloatTag;
+import xyz.nickr.nbt.tags.IntArrayTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.LongArrayTag;
+import xyz.nickr.nbt.tags.LongTag;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.NBTTagRegistry;
+import xyz.nickr.nbt.tags.ShortTag;
+import xyz.nickr.nbt.tags.StringTag;
+
+public class JsonTest {
+
+    private static String toJson(NBTCodec codec, NBTTag tag) {
+        StringBuilder json = new StringBuilder();
+        codec.visit(codec.encode(tag, null), null, codec.jsonWriter(json));
+        return json.toString();
+    }
+
+    private static ListTag emptyList(byte elementType) {
+        ByteBuf payload = Unpooled.wrappedBuffer(new byte[]{elementType, 0, 0, 0, 0});
+        return (ListTag) NBTTagRegistry.readPayload((byte) 9, payload, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] compressed = Files.readAllBytes(Paths.get("nbt/bigtest.nbt"));
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            CompoundTag tag = new NBTCodec(ByteOrder.BIG_ENDIAN).decode(Unpooled.wrappedBuffer(compressed), NBTCompression.GZIP).getAsCompoundTag();
+            tag.setName("");
+            tag.add(emptyList((byte) 10).setName("empty compounds"));
+            tag.add(new ListTag(emptyList((byte) 3), emptyList((byte) 8)).setName("empty lists"));
+            tag.add(new ListTag().setName("untyped"));
+            byte[] expected = NBTCodec.toByteArray(codec.encode(tag, null));
+
+            StringBuilder visited = new StringBuilder();
+            codec.visit(Unpooled.wrappedBuffer(expected), null, codec.jsonWriter(visited));
+            StringWriter streamed = new StringWriter();
+            codec.jsonWriter(streamed).write(codec.reader(new ByteArrayInputStream(expected), null));
+            assertEquals(visited.toString(), streamed.toString());
+
+            ByteBuf parsed = Unpooled.buffer();
+            NBTJsonParser.parse(new StringReader(visited.toString()), parsed, order);
+            assertArrayEquals(expected, NBTCodec.toByteArray(parsed));
+        }
+    }
+
+    @Test
+    public void testWrite() {
+        CompoundTag tag = new CompoundTag();
+        tag.setName("");
+        tag.add(new ByteTag(1).setName("b"));
+        tag.add(new ShortTag(-2).setName("s"));
+        tag.add(new IntTag(3).setName("i"));
+        tag.add(new LongTag(4).setName("l"));
+        tag.add(new FloatTag(0.5f).setName("f"));
+        tag.add(new DoubleTag(6).setName("d"));
+        tag.add(new DoubleTag(Double.NaN).setName("nan"));
+        tag.add(new StringTag("line\n\"quoted\"\u0001").setName("str"));
+        tag.add(new ListTag(new FloatTag(1), new FloatTag(Float.NEGATIVE_INFINITY)).setName("list"));
+        tag.add(new ListTag().setName("empty"));
+        tag.add(emptyList((byte) 4).setName("empty longs"));
+        tag.add(new ByteArrayTag(new byte[]{1, -2}).setName("bytes"));
+        tag.add(new IntArrayTag(new int[0]).setName("ints"));
+        tag.add(new LongArrayTag(new long[]{Long.MIN_VALUE}).setName("longs"));
+        tag.add(new CompoundTag(new IntTag(1).setName("@byte")).setName("@escaped"));
+
+        NBTCodec codec = new NBTCodec(ByteOrder.LITTLE_ENDIAN);
+        String json = toJson(codec, tag);
+        assertEquals("{\"b\":{\"@byte\":1},\"s\":{\"@short\":-2},\"i\":3,\"l\":{\"@long\":4},\"f\":{\"@float\":0.5},"
+                + "\"d\":6.0,\"nan\":{\"@double\":\"NaN\"},\"str\":\"line\\n\\\"quoted\\\"\\u0001\","
+                + "\"list\":[{\"@float\":1.0},{\"@float\":\"-Infinity\"}],\"empty\":[],\"empty longs\":{\"@list\":\"long\",\"values\":[]},"
+                + "\"bytes\":{\"@bytes\":[1,-2]},\"ints\":{\"@ints\":[]},\"longs\":{\"@longs\":[-9223372036854775808]},"
+                + "\"@@escaped\":{\"@@byte\":1}}", json);
+
+        NBTTag parsed = NBTJsonParser.parse(json);
+        assertEquals(json, toJson(codec, parsed));
+        assertEquals(1, parsed.getAsCompoundTag().getAsCompoundTag("@escaped").getAsNumber("@byte").intValue());
+    }
+
+    @Test
+    public void testParse() {
+        CompoundTag tag = NBTJsonParser.parse(" {\"a\": 1, \"b\": -2.5e1, \"c\": [true, false], \"d\": \"\\u00e9\\/\","
+                + " \"e\": 12345678901, \"f\": [[], [1]], \"g\": {}} ").getAsCompoundTag();
+        assertEquals(IntTag.class, tag.get("a").get().getClass());
+        assertEquals(-25.0, tag.getAsNumber("b").doubleValue(), 0);
+        assertEquals(DoubleTag.class, tag.get("b").get().getClass());
+        ListTag c = tag.getAsListTag("c");
+        assertEquals(1, c.getByte(0));
+        assertEquals(0, c.getByte(1));
+        assertTrue(c.get(0) instanceof ByteTag);
+        assertEquals("\u00e9/", tag.getAsString("d"));
+        assertEquals(LongTag.class, tag.get("e").get().getClass());
+        assertEquals(12345678901L, tag.getAsNumber("e").longValue());
+        assertEquals(2, tag.getAsListTag("f").size());
+        assertEquals(0, tag.getAsCompoundTag("g").size());
+        assertEquals("", tag.getName().get());
+
+        assertEquals("x", NBTJsonParser.parse("\"x\"").getAsString());
+        assertEquals(0.1f, NBTJsonParser.parse("{\"@float\":0.1}").getAsNumber().floatValue(), 0);
+    }
+
+    @Test
+    public void testInvalid() {
+        String[] invalid = {
+                "", "{", "{\"a\":1,}", "[1, \"x\"]", "null", "{\"a\":null}", "{\"@byte\":128}", "{\"@byte\":1,\"a\":2}",
+                "{\"a\":1,\"@byte\":2}", "{\"@unknown\":1}", "{\"@list\":\"byte\",\"values\":[1]}",
+                "{\"@list\":\"none\",\"values\":[]}", "{\"@list\":\"int\",\"items\":[]}", "{\"@ints\":[1.5]}", "{\"@float\":\"one\"}",
+                "\"unterminated", "\"\\x\"", "1 2", "tru", "-", "{\"a\" 1}"
+        };
+        for (String json : invalid) {
+            try {
+                NBTJsonParser.parse(json);
+                fail("parsed invalid JSON: " + json);
+            } catch (IllegalStateException expected) {}
+        }
+    }
+
+}
@@ -0,0 +1,214 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.NBTTag;
+
+public class LazyTest {
+
+    private static byte[] bigtest(NBTCodec codec) throws IOException {
+        ByteBuf buf = Unpooled.wrappedBuffer(Files.readAllBytes(Paths.get("nbt/bigtest.nbt")));
+        NBTTag tag = new NBTCodec(ByteOrder.BIG_ENDIAN).decode(buf, NBTCompression.GZIP);
+        return NBTCodec.toByteArray(codec.encode(tag, NBTCompression.UNCOMPRESSED));
+    }
+
+    @Test
+    public void testUntouched() throws IOException {
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            byte[] bytes = bigtest(codec);
+            ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+            CompoundTag tag = codec.decodeLazy(buf, NBTCompression.UNCOMPRESSED);
+            assertEquals(0, buf.readableBytes());
+            assertEquals("Level", tag.getName().get());
+            assertEquals(11, tag.size());
+            assertArrayEquals(bytes, NBTCodec.toByteArray(codec.encode(tag, NBTCompression.UNCOMPRESSED)));
+        }
+    }
+
+    @Test
+    public void testModified() throws IOException {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        byte[] bytes = bigtest(codec);
+        ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+        CompoundTag tag = codec.decodeLazy(codec.encode(codec.decode(buf, null), NBTCompression.GZIP), NBTCompression.DETECTED);
+
+        CompoundTag egg = tag.getAsCompoundTag("nested compound test").getAsCompoundTag("egg");
+        assertEquals("Eggbert", egg.getAsString("name"));
+        assertEquals(Long.MAX_VALUE, tag.getAsNumber("longTest").longValue());
+        tag.add(new IntTag(7).setName("intTest"));
+        egg.remove("value");
+
+        byte[] written = NBTCodec.toByteArray(codec.encode(tag, NBTCompression.UNCOMPRESSED));
+        assertNotEquals(bytes.length, written.length);
+        CompoundTag decoded = codec.decode(Unpooled.wrappedBuffer(written), null).getAsCompoundTag();
+        assertEquals(11, decoded.size());
+        assertEquals(7, decoded.getAsNumber("intTest").intValue());
+        assertEquals(1, decoded.getAsCompoundTag("nested compound test").getAsCompoundTag("egg").size());
+        assertEquals(0.75f, decoded.getAsCompoundTag("nested compound test").getAsCompoundTag("ham")
+                .getAsNumber("value").floatValue(), 0f);
+        assertEquals(1000, decoded.getAsByteArray(
+                "byteArrayTest (the first 1000 values of (n*n*255+n*7)%100, starting with n=0 (0, 62, 34, 16, 8, ...))").length);
+        assertEquals(tag.toString(), decoded.toString());
+    }
+
+    @Test
+    public void testPassthrough() throws IOException {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        byte[] bytes = bigtest(codec);
+        CompoundTag tag = codec.decodeLazy(Unpooled.wrappedBuffer(bytes), null);
+
+        CompoundTag nested = tag.getAsCompoundTag("nested compound test");
+        assertEquals("Eggbert", nested.getAsCompoundTag("egg").getAsString("name"));
+        assertEquals(5, tag.getAsListTag("listTest (long)").size());
+        assertFalse(tag.isDirty());
+        assertArrayEquals(bytes, NBTCodec.toByteArray(codec.encode(tag, NBTCompression.UNCOMPRESSED)));
+
+        nested.getAsCompoundTag("ham").getAsNumberTag("value").set(0.5f);
+        assertTrue(nested.isDirty());
+        assertTrue(tag.isDirty());
+        assertFalse(nested.getAsCompoundTag("egg").isDirty());
+        byte[] written = NBTCodec.toByteArray(codec.encode(tag, NBTCompression.UNCOMPRESSED));
+        assertEquals(bytes.length, written.length);
+        CompoundTag decoded = codec.decode(Unpooled.wrappedBuffer(written), null).getAsCompoundTag();
+        assertEquals(0.5f, decoded.getAsCompoundTag("nested compound test").getAsCompoundTag("ham")
+                .getAsNumber("value").floatValue(), 0f);
+        assertEquals(tag.toString(), decoded.toString());
+
+        tag = codec.decodeLazy(Unpooled.wrappedBuffer(bytes), null);
+        tag.getAsStringTag("stringTest").setName("renamed");
+        decoded = codec.decode(Unpooled.wrappedBuffer(codec.encode(tag, null)), null).getAsCompoundTag();
+        assertFalse(decoded.has("stringTest"));
+        assertEquals("HELLO WORLD THIS IS A TEST STRING \u00c5\u00c4\u00d6!", decoded.getAsString("renamed"));
+    }
+
+    @Test
+    public void testDecodePassthrough() throws IOException {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        byte[] bytes = bigtest(codec);
+        CompoundTag tag = codec.decodeWithOrigins(Unpooled.wrappedBuffer(bytes), null).getAsCompoundTag();
+        assertFalse(tag.isDirty());
+        assertArrayEquals(bytes, NBTCodec.toByteArray(codec.encode(tag, NBTCompression.UNCOMPRESSED)));
+
+        CompoundTag element = tag.getAsListTag("listTest (compound)").getAsCompoundTag(1);
+        element.getAsStringTag("name").set("Compound tag #9");
+        assertTrue(element.isDirty());
+        assertTrue(tag.getAsListTag("listTest (compound)").isDirty());
+        assertTrue(tag.isDirty());
+        assertFalse(tag.getAsListTag("listTest (compound)").getAsCompoundTag(0).isDirty());
+        assertFalse(tag.getAsCompoundTag("nested compound test").isDirty());
+
+        byte[] written = NBTCodec.toByteArray(codec.encode(tag, NBTCompression.UNCOMPRESSED));
+        assertEquals(bytes.length, written.length);
+        CompoundTag decoded = codec.decode(Unpooled.wrappedBuffer(written), null).getAsCompoundTag();
+        assertEquals("Compound tag #9", decoded.getAsListTag("listTest (compound)").getAsCompoundTag(1).getAsString("name"));
+        assertEquals(tag.toString(), decoded.toString());
+    }
+
+    @Test
+    public void testReplaceUndecoded() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        CompoundTag original = new CompoundTag(new IntTag(1).setName("a"), new IntTag(2).setName("b"), new IntTag(3).setName("c"));
+        original.setName("");
+        CompoundTag tag = codec.decodeLazy(codec.encode(original, null), null);
+        tag.add(new IntTag(4).setName("b"));
+        tag.remove("c");
+        assertEquals(2, tag.size());
+        assertFalse(tag.has("c"));
+
+        CompoundTag decoded = codec.decode(codec.encode(tag, null), null).getAsCompoundTag();
+        assertEquals("[a=1, b=4]", decoded.toString());
+        assertEquals("[a=1, b=4]", tag.toString());
+    }
+
+    @Test
+    public void testDirty() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        IntTag tag = (IntTag) codec.decode(Unpooled.wrappedBuffer(new byte[]{3, 0, 1, 'a', 0, 0, 0, 1}), null);
+        assertFalse(tag.isDirty());
+        tag.set(2);
+        assertTrue(tag.isDirty());
+
+        ListTag list = new ListTag(new IntTag(1));
+        list = codec.decode(codec.encode(list.setName("list"), null), null).getAsListTag();
+        assertFalse(list.isDirty());
+        assertEquals(1, list.getAsNumber(0).intValue());
+        assertFalse(list.isDirty());
+        ((IntTag) list.get(0)).set(3);
+        assertTrue(list.isDirty());
+    }
+
+    @Test
+    public void testContainerChanges() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        CompoundTag original = new CompoundTag(new IntTag(1).setName("a"), new ListTag(new IntTag(2)).setName("b"));
+        CompoundTag tag = codec.decodeWithOrigins(codec.encode(original.setName(""), null), null).getAsCompoundTag();
+        try {
+            Iterator<NBTTag> it = tag.iterator();
+            it.next();
+            it.remove();
+            fail("compound iterator should be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+        ListTag list = tag.getAsListTag("b");
+        try {
+            Iterator<NBTTag> it = list.iterator();
+            it.next();
+            it.remove();
+            fail("list iterator should be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+        assertFalse(tag.isDirty());
+
+        List<NBTTag> tags = new ArrayList<>();
+        tags.add(new IntTag(3));
+        list.set(tags);
+        assertTrue(tag.isDirty());
+        tags.add(new IntTag(4));
+        CompoundTag decoded = codec.decode(codec.encode(tag, null), null).getAsCompoundTag();
+        assertEquals(1, decoded.getAsListTag("b").size());
+        assertEquals(3, decoded.getAsListTag("b").getAsNumber(0).intValue());
+    }
+
+    @Test
+    public void testOtherOrder() throws IOException {
+        NBTCodec big = new NBTCodec(ByteOrder.BIG_ENDIAN), little = new NBTCodec(ByteOrder.LITTLE_ENDIAN);
+        CompoundTag tag = big.decodeLazy(Unpooled.wrappedBuffer(bigtest(big)), null);
+        byte[] expected = bigtest(little);
+        assertArrayEquals(expected, NBTCodec.toByteArray(little.encode(tag, NBTCompression.UNCOMPRESSED)));
+
+        tag = big.decodeLazy(Unpooled.wrappedBuffer(bigtest(big)), null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        little.encode(out, tag, NBTCompression.UNCOMPRESSED);
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotCompound() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        NBTTag tag = new IntTag(1).setName("root");
+        codec.decodeLazy(codec.encode(tag, NBTCompression.UNCOMPRESSED), NBTCompression.UNCOMPRESSED);
+    }
+
+}
@@ -0,0 +1,90 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.DoubleTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.ShortTag;
+
+public class ListTagTest {
+
+    @Test
+    public void testListTag() {
+        ListTag list = new ListTag(new IntTag(0), new IntTag(1));
+        list.ensureCapacity(1000);
+        list.addAll(Arrays.asList(new IntTag(2), new IntTag(3)));
+        for (int i = 4; i < 1000; i++)
+            list.add(new IntTag(i));
+        list.setName("list");
+
+        ByteBuf buf = Unpooled.buffer();
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            list.write(buf, order);
+            buf.readByte(); // discard id
+            list.read(buf, order);
+            assertEquals(1000, list.size());
+            for (int i = 0; i < 1000; i++)
+                assertEquals(i, list.getAsNumber(i).intValue());
+            assertEquals(999, list.getAsNumber(-1).intValue());
+        }
+    }
+
+    @Test
+    public void testPacked() throws IOException {
+        ListTag doubles = new ListTag(new DoubleTag(0.5), new DoubleTag(-64), new DoubleTag(1e10));
+        ListTag shorts = new ListTag(new ShortTag(-2), new ShortTag(300));
+        CompoundTag root = new CompoundTag(doubles.setName("doubles"), shorts.setName("shorts"));
+        root.setName("root");
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            ByteBuf buf = codec.encode(root, null);
+            byte[] bytes = NBTCodec.toByteArray(buf);
+            CompoundTag tag = codec.decode(buf, null).getAsCompoundTag();
+            CompoundTag streamed = codec.decode(new ByteArrayInputStream(bytes), null).getAsCompoundTag();
+            for (CompoundTag decoded : new CompoundTag[]{tag, streamed}) {
+                ListTag list = decoded.getAsListTag("doubles");
+                assertEquals(3, list.size());
+                assertEquals(0.5, list.getDouble(0), 0);
+                assertEquals(-64, list.getInt(1));
+                assertEquals(1e10f, list.getFloat(-1), 0);
+                assertEquals(1e10, list.getAsNumber(2));
+                assertEquals(-2, decoded.getAsListTag("shorts").getShort(0));
+                assertEquals(300L, decoded.getAsListTag("shorts").getLong(1));
+                assertArrayEquals(bytes, NBTCodec.toByteArray(codec.encode(decoded, null)));
+            }
+
+            ListTag list = tag.getAsListTag("doubles");
+            ((DoubleTag) list.get(1)).set(2.25);
+            list.add(new DoubleTag(3));
+            assertEquals(2.25, list.getDouble(1), 0);
+            ListTag decoded = codec.decode(codec.encode(tag, null), null).getAsCompoundTag().getAsListTag("doubles");
+            assertEquals(4, decoded.size());
+            assertEquals(2.25, decoded.getDouble(1), 0);
+            assertEquals(3, decoded.getDouble(3), 0);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPackedIndex() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        ListTag list = codec.decode(codec.encode(new ListTag(new IntTag(1)).setName("list"), null), null).getAsListTag();
+        list.getInt(1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAddAllNull() {
+        new ListTag().addAll(Arrays.asList(new IntTag(0), null));
+    }
+
+}
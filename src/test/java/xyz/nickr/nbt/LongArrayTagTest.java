@@ -0,0 +1,72 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.LongArrayTag;
+
+public class LongArrayTagTest {
+
+    private static final long[] TEST = {0L, -1L, Long.MAX_VALUE, Long.MIN_VALUE, 0x0102030405060708L};
+
+    @Test
+    public void testLongArrayTag() {
+        LongArrayTag b = new LongArrayTag(TEST);
+        b.setName("long array");
+
+        ByteBuf[] bufs = {Unpooled.buffer(), Unpooled.directBuffer(), Unpooled.compositeBuffer()};
+        for (ByteBuf buf : bufs) {
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                buf.clear();
+                b.write(buf, order);
+                assertEquals(1 + 2 + 10 + 4 + 8 * TEST.length, buf.readableBytes());
+                int first = 1 + 2 + 10 + 4 + 8 * 4;
+                assertEquals(order == ByteOrder.BIG_ENDIAN ? 1 : 8, buf.getByte(first));
+                buf.readByte(); // discard id
+                b.read(buf, order);
+                assertArrayEquals(TEST, b.get());
+            }
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testCodec() throws IOException {
+        CompoundTag root = new CompoundTag(new LongArrayTag(TEST).setName("longs"), new IntTag(7).setName("after"));
+        root.setName("root");
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            byte[] bytes = NBTCodec.toByteArray(codec.encode(root, null));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            codec.encode(out, root, NBTCompression.UNCOMPRESSED);
+            assertArrayEquals(bytes, out.toByteArray());
+
+            CompoundTag decoded = codec.decode(new ByteArrayInputStream(bytes), NBTCompression.UNCOMPRESSED).getAsCompoundTag();
+            assertArrayEquals(TEST, decoded.getAsLongArray("longs"));
+            assertEquals(7, decoded.getAsNumber("after").intValue());
+
+            CompoundTag selected = codec.decodePaths(Unpooled.wrappedBuffer(bytes), "after");
+            assertEquals(1, selected.size());
+
+            try (NBTReader reader = codec.reader(Unpooled.wrappedBuffer(bytes), NBTCompression.UNCOMPRESSED)) {
+                assertEquals(NBTReader.Token.COMPOUND_START, reader.next());
+                assertEquals(NBTReader.Token.LONG_ARRAY, reader.next());
+                assertEquals(TEST.length, reader.length());
+                assertArrayEquals(TEST, reader.longArrayValue());
+                assertEquals(NBTReader.Token.INT, reader.next());
+            }
+        }
+    }
+
+}
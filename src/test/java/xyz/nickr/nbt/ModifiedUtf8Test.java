@@ -0,0 +1,92 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.ModifiedUtf8;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.StringTag;
+
+public class ModifiedUtf8Test {
+
+    private static final String[] STRINGS = {
+            "", "Count", "minecraft:stone", "nul\0byte", "\u00c5\u00c4\u00d6!", "\u65e5\u672c\u8a9e", "\ud83d\ude00 emoji", "\uffff"
+    };
+
+    private static byte[] writeUTF(String string) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(string);
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testMatchesDataOutput() throws IOException {
+        for (String string : STRINGS) {
+            byte[] expected = writeUTF(string);
+            assertEquals(expected.length - 2, ModifiedUtf8.length(string));
+            assertArrayEquals(Arrays.copyOfRange(expected, 2, expected.length), ModifiedUtf8.encode(string));
+            for (ByteBuf buf : new ByteBuf[]{Unpooled.buffer(), Unpooled.directBuffer(), Unpooled.compositeBuffer()}) {
+                NBTTag.writeString(buf, ByteOrder.BIG_ENDIAN, string);
+                assertArrayEquals(expected, NBTCodec.toByteArray(buf.duplicate()));
+                assertEquals(string, NBTTag.readString(buf, ByteOrder.BIG_ENDIAN));
+                assertEquals(0, buf.readableBytes());
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            NBTTag.writeString(new DataOutputStream(out), string);
+            assertArrayEquals(expected, out.toByteArray());
+            assertEquals(string, NBTTag.readString(new DataInputStream(new ByteArrayInputStream(expected))));
+            assertEquals(string, new DataInputStream(new ByteArrayInputStream(expected)).readUTF());
+        }
+    }
+
+    @Test
+    public void testTags() {
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            for (String string : STRINGS) {
+                NBTTag tag = codec.decode(codec.encode(new StringTag(string).setName(string), null), null);
+                assertEquals(string, tag.getName().get());
+                assertEquals(string, tag.getAsString());
+            }
+        }
+    }
+
+    @Test
+    public void testStandardUtf8() {
+        byte[] bytes = "\ud83d\ude00 emoji".getBytes(StandardCharsets.UTF_8);
+        assertEquals("\ud83d\ude00 emoji", ModifiedUtf8.decode(bytes, 0, bytes.length));
+        assertEquals("\ud83d\ude00 emoji", ModifiedUtf8.decode(Unpooled.directBuffer().writeBytes(bytes), bytes.length));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTruncated() {
+        ModifiedUtf8.decode(new byte[]{'a', (byte) 0xE6, (byte) 0x97}, 0, 3);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBadContinuation() {
+        ModifiedUtf8.decode(new byte[]{(byte) 0xC3, 'a'}, 0, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLong() {
+        char[] chars = new char[40000];
+        Arrays.fill(chars, '\u00e9');
+        NBTTag.writeString(Unpooled.buffer(), ByteOrder.BIG_ENDIAN, new String(chars));
+    }
+
+}
@@ -0,0 +1,107 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.NBTNameCache;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.StringTag;
+
+public class NameCacheTest {
+
+    private static CompoundTag item(int id) {
+        CompoundTag item = new CompoundTag();
+        item.add(new StringTag("minecraft:stone").setName("id"));
+        item.add(new IntTag(id).setName("Count"));
+        return item;
+    }
+
+    private static String firstName(CompoundTag tag) {
+        return tag.getAsListTag("Items").get(0).getAsCompoundTag().getAsStringTag("id").getName().get();
+    }
+
+    @Test
+    public void testHits() {
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            NBTNameCache names = codec.getNameCache();
+            CompoundTag tag = new CompoundTag(new ListTag(item(1), item(2), item(3)).setName("Items"));
+            ByteBuf buf = codec.encode(tag.setName("root"), null);
+
+            CompoundTag first = codec.decode(buf.duplicate(), null).getAsCompoundTag();
+            assertEquals(5, names.getMisses());
+            assertEquals(6, names.getHits());
+            CompoundTag second = codec.decode(Unpooled.directBuffer().writeBytes(buf.duplicate()), null).getAsCompoundTag();
+            assertEquals(5, names.getMisses());
+            assertEquals(17, names.getHits());
+            assertSame(firstName(first), firstName(second));
+            assertSame(first.getAsListTag("Items").get(0).getAsCompoundTag().getAsString("id"),
+                    second.getAsListTag("Items").get(2).getAsCompoundTag().getAsString("id"));
+            assertEquals(tag.toString(), second.toString());
+
+            CompoundTag streamed = codec.decode(new ByteArrayInputStream(NBTCodec.toByteArray(buf)), null).getAsCompoundTag();
+            assertEquals(5, names.getMisses());
+            assertSame(firstName(first), firstName(streamed));
+        }
+    }
+
+    @Test
+    public void testReader() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        ByteBuf buf = codec.encode(item(1).setName("item"), null);
+        codec.decode(buf.duplicate(), null);
+        String name;
+        try (NBTReader reader = codec.reader(buf, null)) {
+            reader.next();
+            reader.next();
+            name = reader.name();
+        }
+        assertSame(codec.getNameCache().read(Unpooled.wrappedBuffer(new byte[]{0, 2, 'i', 'd'}), ByteOrder.BIG_ENDIAN), name);
+    }
+
+    @Test
+    public void testEviction() {
+        NBTNameCache names = new NBTNameCache(1, 4);
+        assertEquals(1, names.getCapacity());
+        String a = names.read(Unpooled.wrappedBuffer(new byte[]{0, 1, 'a'}), ByteOrder.BIG_ENDIAN);
+        String b = names.read(Unpooled.wrappedBuffer(new byte[]{0, 1, 'b'}), ByteOrder.BIG_ENDIAN);
+        assertSame(b, names.read(Unpooled.wrappedBuffer(new byte[]{0, 1, 'b'}), ByteOrder.BIG_ENDIAN));
+        assertNotSame(a, names.read(Unpooled.wrappedBuffer(new byte[]{0, 1, 'a'}), ByteOrder.BIG_ENDIAN));
+        assertEquals(3, names.getMisses());
+        assertEquals(1, names.getHits());
+
+        String long1 = names.read(Unpooled.wrappedBuffer(new byte[]{0, 5, 'l', 'o', 'n', 'g', 's'}), ByteOrder.BIG_ENDIAN);
+        String long2 = names.read(Unpooled.wrappedBuffer(new byte[]{0, 5, 'l', 'o', 'n', 'g', 's'}), ByteOrder.BIG_ENDIAN);
+        assertEquals("longs", long1);
+        assertNotSame(long1, long2);
+        assertEquals(3, names.getMisses());
+
+        names.clear();
+        assertEquals(0, names.getHits() + names.getMisses());
+    }
+
+    @Test
+    public void testDisabled() throws IOException {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN, PooledByteBufAllocator.DEFAULT, -1, 0, null);
+        ByteBuf buf = Unpooled.wrappedBuffer(Files.readAllBytes(Paths.get("nbt/bigtest.nbt")));
+        NBTTag tag = codec.decode(buf, NBTCompression.GZIP);
+        assertEquals("Level", tag.getName().get());
+        assertEquals(null, codec.getNameCache());
+    }
+
+}
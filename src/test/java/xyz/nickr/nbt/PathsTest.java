@@ -0,0 +1,74 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.NBTTag;
+
+public class PathsTest {
+
+    private static NBTTag bigtest() throws IOException {
+        ByteBuf buf = Unpooled.wrappedBuffer(Files.readAllBytes(Paths.get("nbt/bigtest.nbt")));
+        return new NBTCodec(ByteOrder.BIG_ENDIAN).decode(buf, NBTCompression.GZIP);
+    }
+
+    @Test
+    public void testPaths() throws IOException {
+        NBTTag full = bigtest();
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            ByteBuf buf = codec.encode(full, NBTCompression.UNCOMPRESSED);
+            buf.writeInt(0xCAFEBABE);
+            CompoundTag tag = codec.decodePaths(buf, "longTest", "nested compound test.egg.name",
+                    "listTest (compound).name", "intTest.missing", "nested compound test.ham");
+            assertEquals(0xCAFEBABE, buf.readInt());
+
+            assertEquals("Level", tag.getName().get());
+            assertEquals(3, tag.size());
+            assertEquals(Long.MAX_VALUE, tag.getAsNumber("longTest").longValue());
+            assertFalse(tag.has("intTest"));
+
+            CompoundTag nested = tag.getAsCompoundTag("nested compound test");
+            assertEquals(1, nested.getAsCompoundTag("egg").size());
+            assertEquals("Eggbert", nested.getAsCompoundTag("egg").getAsString("name"));
+            assertEquals(2, nested.getAsCompoundTag("ham").size());
+            assertEquals(0.75f, nested.getAsCompoundTag("ham").getAsNumber("value").floatValue(), 0f);
+
+            ListTag list = tag.getAsListTag("listTest (compound)");
+            assertEquals(2, list.size());
+            for (int i = 0; i < 2; i++) {
+                assertEquals(1, list.getAsCompoundTag(i).size());
+                assertEquals("Compound tag #" + i, list.getAsCompoundTag(i).getAsString("name"));
+            }
+        }
+    }
+
+    @Test
+    public void testCompressed() throws IOException {
+        ByteBuf buf = Unpooled.wrappedBuffer(Files.readAllBytes(Paths.get("nbt/bigtest.nbt")));
+        CompoundTag tag = new NBTCodec(ByteOrder.BIG_ENDIAN).decodePaths(buf, NBTCompression.DETECTED, "shortTest");
+        assertEquals(1, tag.size());
+        assertEquals(32767, tag.getAsNumber("shortTest").shortValue());
+    }
+
+    @Test
+    public void testWholeRoot() throws IOException {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        ByteBuf buf = codec.encode(bigtest(), null);
+        CompoundTag tag = codec.decodePaths(buf, "nested compound test", "nested compound test.egg");
+        assertTrue(tag.getAsCompoundTag("nested compound test").has("ham"));
+    }
+
+}
@@ -0,0 +1,159 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.NBTReader.Token;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.IntArrayTag;
+import xyz.nickr.nbt.tags.NBTTag;
+
+public class ReaderTest {
+
+    private static NBTTag bigtest() throws IOException {
+        ByteBuf buf = Unpooled.wrappedBuffer(Files.readAllBytes(Paths.get("nbt/bigtest.nbt")));
+        CompoundTag tag = new NBTCodec(ByteOrder.BIG_ENDIAN).decode(buf, NBTCompression.GZIP).getAsCompoundTag();
+        tag.add(new IntArrayTag(new int[]{1, -2, 300000}).setName("ints"));
+        return tag;
+    }
+
+    private static String dump(NBTReader reader) {
+        StringBuilder sb = new StringBuilder();
+        Token token;
+        while ((token = reader.next()) != Token.END) {
+            sb.append(reader.depth()).append(' ').append(token).append(' ').append(reader.name());
+            switch (token) {
+                case BYTE:
+                case SHORT:
+                case INT:
+                case LONG:
+                    sb.append('=').append(reader.longValue());
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                    sb.append('=').append(reader.doubleValue());
+                    break;
+                case STRING:
+                    sb.append('=').append(reader.stringValue());
+                    break;
+                case BYTE_ARRAY:
+                    sb.append('=').append(reader.byteArrayValue().length);
+                    break;
+                case INT_ARRAY:
+                    sb.append('=').append(reader.intArrayValue()[2]);
+                    break;
+                case LIST_START:
+                    sb.append('=').append(reader.listType()).append('x').append(reader.length());
+                    break;
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testSourcesAndOrders() throws IOException {
+        NBTTag tag = bigtest();
+        String expected = null;
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            ByteBuf buf = codec.encode(tag, NBTCompression.GZIP);
+            byte[] bytes = NBTCodec.toByteArray(buf);
+            try (NBTReader reader = codec.reader(buf, NBTCompression.GZIP)) {
+                String dump = dump(reader);
+                if (expected == null)
+                    expected = dump;
+                assertEquals(expected, dump);
+            }
+            try (NBTReader reader = codec.reader(new ByteArrayInputStream(bytes), NBTCompression.GZIP)) {
+                assertEquals(expected, dump(reader));
+            }
+        }
+        assertTrue(expected.startsWith("1 COMPOUND_START Level\n"));
+        assertTrue(expected.contains("\n1 INT intTest=2147483647\n"));
+        assertTrue(expected.contains("\n3 STRING name=Eggbert\n"));
+        assertTrue(expected.contains("\n2 LIST_START listTest (long)=4x5\n2 LONG null=11\n"));
+        assertTrue(expected.contains("\n1 INT_ARRAY ints=300000\n"));
+    }
+
+    @Test
+    public void testSkipValue() throws IOException {
+        NBTCodec codec = new NBTCodec(ByteOrder.LITTLE_ENDIAN);
+        NBTTag tag = bigtest();
+        ByteBuf buf = codec.encode(tag, NBTCompression.UNCOMPRESSED);
+        for (boolean stream : new boolean[]{false, true}) {
+            NBTReader reader = stream
+                    ? codec.reader(new ByteArrayInputStream(NBTCodec.toByteArray(buf)), null)
+                    : codec.reader(buf.duplicate(), null);
+            assertEquals(Token.COMPOUND_START, reader.next());
+            assertEquals("Level", reader.name());
+            long longTest = 0;
+            String stringTest = null;
+            int[] ints = null;
+            Token token;
+            while ((token = reader.next()) != Token.COMPOUND_END) {
+                if ("longTest".equals(reader.name()))
+                    longTest = reader.longValue();
+                else if ("stringTest".equals(reader.name()))
+                    stringTest = reader.stringValue();
+                else if ("ints".equals(reader.name()))
+                    ints = reader.intArrayValue();
+                else
+                    reader.skipValue();
+                if (token == Token.COMPOUND_START || token == Token.LIST_START)
+                    assertEquals(1, reader.depth());
+            }
+            assertEquals(Long.MAX_VALUE, longTest);
+            assertEquals("HELLO WORLD THIS IS A TEST STRING ÅÄÖ!", stringTest);
+            assertArrayEquals(new int[]{1, -2, 300000}, ints);
+            assertEquals(Token.END, reader.next());
+            assertNull(reader.name());
+            reader.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWrongType() throws IOException {
+        NBTReader reader = new NBTReader(new NBTCodec(ByteOrder.BIG_ENDIAN).encode(bigtest(), null), ByteOrder.BIG_ENDIAN);
+        reader.next();
+        reader.intValue();
+    }
+
+    @Test
+    public void testTruncatedArray() throws IOException {
+        byte[] bytes = {11, 0, 1, 'a', 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0, 0, 0, 1};
+        NBTReader reader = new NBTReader(Unpooled.wrappedBuffer(bytes), ByteOrder.BIG_ENDIAN);
+        assertEquals(Token.INT_ARRAY, reader.next());
+        try {
+            reader.intArrayValue();
+            fail("array longer than the buffer should not be read");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+
+        reader = new NBTReader(new DataInputStream(new ByteArrayInputStream(bytes)));
+        assertEquals(Token.INT_ARRAY, reader.next());
+        try {
+            reader.intArrayValue();
+            fail("array longer than the input should not be read");
+        } catch (UncheckedIOException expected) {
+            assertTrue(expected.getCause() instanceof EOFException);
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.netty.buffer.ByteBuf;
+import xyz.nickr.nbt.region.RegionFile;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.NBTTag;
+
+public class RegionFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static CompoundTag chunk(int x, int z, int size) {
+        byte[] blocks = new byte[size];
+        for (int i = 0; i < size; i++)
+            blocks[i] = (byte) (i * 31 + x * 7 + z);
+        CompoundTag level = new CompoundTag(
+                new IntTag(x).setName("xPos"),
+                new IntTag(z).setName("zPos"),
+                new ByteArrayTag(blocks).setName("Blocks"));
+        level.setName("Level");
+        CompoundTag root = new CompoundTag(level);
+        root.setName("");
+        return root;
+    }
+
+    private static void assertChunk(NBTTag tag, int x, int z, int size) {
+        CompoundTag level = tag.getAsCompoundTag().getAsCompoundTag("Level");
+        assertEquals(x, level.getAsNumber("xPos").intValue());
+        assertEquals(z, level.getAsNumber("zPos").intValue());
+        assertEquals(size, level.getAsByteArray("Blocks").length);
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.mca");
+        NBTCompression[] compressions = {NBTCompression.ZLIB, NBTCompression.GZIP, NBTCompression.UNCOMPRESSED};
+        try (RegionFile region = new RegionFile(path)) {
+            assertEquals(2 * RegionFile.SECTOR_SIZE, Files.size(path));
+            for (int i = 0; i < compressions.length; i++)
+                region.writeChunk(i, 31 - i, chunk(i, 31 - i, 1000), compressions[i]);
+            assertChunk(region.readChunk(1, 30), 1, 30, 1000);
+            assertFalse(region.hasChunk(5, 5));
+            assertNull(region.readChunk(5, 5));
+        }
+        try (RegionFile region = new RegionFile(path, true)) {
+            for (int i = 0; i < compressions.length; i++) {
+                assertTrue(region.getTimestamp(i, 31 - i) > 0);
+                assertChunk(region.readChunk(i, 31 - i), i, 31 - i, 1000);
+                assertChunk(region.readChunk(i - 32, 63 - i), i, 31 - i, 1000);
+            }
+            ByteBuf buf = region.readChunkBuffer(2, 29);
+            assertEquals(0x0A, buf.getByte(buf.readerIndex()));
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testSectorReuse() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.mca");
+        try (RegionFile region = new RegionFile(path)) {
+            region.writeChunk(0, 0, chunk(0, 0, 20000), NBTCompression.UNCOMPRESSED);
+            region.writeChunk(1, 0, chunk(1, 0, 100), NBTCompression.UNCOMPRESSED);
+            long size = Files.size(path);
+
+            region.writeChunk(0, 0, chunk(0, 0, 100), NBTCompression.UNCOMPRESSED);
+            region.writeChunk(2, 0, chunk(2, 0, 100), NBTCompression.UNCOMPRESSED);
+            assertEquals(size, Files.size(path));
+
+            region.writeChunk(1, 0, chunk(1, 0, 10000), NBTCompression.UNCOMPRESSED);
+            assertChunk(region.readChunk(0, 0), 0, 0, 100);
+            assertChunk(region.readChunk(1, 0), 1, 0, 10000);
+            assertChunk(region.readChunk(2, 0), 2, 0, 100);
+        }
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.mca");
+        try (RegionFile region = new RegionFile(path)) {
+            for (int i = 0; i < 8; i++)
+                region.writeChunk(i, 0, chunk(i, 0, 6000), NBTCompression.UNCOMPRESSED);
+            for (int i = 0; i < 8; i += 2)
+                region.deleteChunk(i, 0);
+            region.writeChunk(1, 0, chunk(1, 0, 100), NBTCompression.UNCOMPRESSED);
+            assertFalse(region.hasChunk(0, 0));
+            long before = Files.size(path);
+
+            region.compact();
+            assertEquals(9 * RegionFile.SECTOR_SIZE, Files.size(path));
+            assertTrue(Files.size(path) < before);
+            for (int i = 1; i < 8; i += 2)
+                assertChunk(region.readChunk(i, 0), i, 0, i == 1 ? 100 : 6000);
+        }
+        try (RegionFile region = new RegionFile(path, true)) {
+            assertChunk(region.readChunk(7, 0), 7, 0, 6000);
+        }
+    }
+
+    @Test
+    public void testBufferOutlivesCompact() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.mca");
+        try (RegionFile region = new RegionFile(path)) {
+            region.writeChunk(0, 0, chunk(0, 0, 6000), NBTCompression.UNCOMPRESSED);
+            region.writeChunk(1, 0, chunk(1, 0, 6000), NBTCompression.UNCOMPRESSED);
+            ByteBuf buf = region.readChunkBuffer(1, 0);
+            try {
+                region.deleteChunk(0, 0);
+                region.compact();
+                region.writeChunk(2, 0, chunk(2, 0, 6000), NBTCompression.UNCOMPRESSED);
+                assertChunk(new NBTCodec(ByteOrder.BIG_ENDIAN).decode(buf, NBTCompression.UNCOMPRESSED), 1, 0, 6000);
+            } finally {
+                buf.release();
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReadOnly() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.mca");
+        new RegionFile(path).close();
+        try (RegionFile region = new RegionFile(path, true)) {
+            region.writeChunk(0, 0, chunk(0, 0, 10));
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.LongArrayTag;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.NBTTag.NBTTagType;
+import xyz.nickr.nbt.tags.NBTTagRegistry;
+import xyz.nickr.nbt.tags.StringTag;
+
+public class RegistryTest {
+
+    @NBTTagType(99)
+    public static class CustomTag extends IntTag {
+
+        public CustomTag() {
+            super(0);
+        }
+
+    }
+
+    /**
+     * A tag written against the ByteBuf methods only.
+     */
+    @NBTTagType(98)
+    public static class BufferOnlyTag extends NBTTag {
+
+        private int value;
+
+        @Override
+        protected void _print(PrintStream stream, String indent) {
+            stream.println(indent + "BufferOnly: " + value);
+        }
+
+        @Override
+        protected void _read(ByteBuf buf, ByteOrder order) {
+            value = order == ByteOrder.BIG_ENDIAN ? buf.readInt() : buf.readIntLE();
+        }
+
+        @Override
+        protected void _write(ByteBuf buf, ByteOrder order) {
+            if (order == ByteOrder.BIG_ENDIAN)
+                buf.writeInt(value);
+            else
+                buf.writeIntLE(value);
+        }
+
+    }
+
+    @Test
+    public void testBuiltins() {
+        for (byte id = 0; id <= 11; id++)
+            assertTrue(NBTTagRegistry.isRegistered(id));
+        assertTrue(NBTCodec.createTag((byte) 10) instanceof CompoundTag);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnknownId() {
+        NBTCodec.createTag((byte) 100);
+    }
+
+    @Test
+    public void testCustomTag() {
+        assertFalse(NBTTagRegistry.isRegistered((byte) 99));
+        NBTTagRegistry.register(CustomTag.class, CustomTag::new);
+
+        CustomTag custom = new CustomTag();
+        custom.set(42);
+        custom.setName("custom");
+        CompoundTag cp = new CompoundTag(custom);
+        cp.setName("root");
+
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        ByteBuf buf = Unpooled.buffer();
+        codec.encode(buf, cp, null);
+
+        CompoundTag decoded = codec.decode(buf, null).getAsCompoundTag();
+        assertTrue(decoded.get("custom").get() instanceof CustomTag);
+        assertEquals(42, decoded.getAsNumber("custom").intValue());
+    }
+
+    @Test
+    public void testBufferOnlyTag() {
+        NBTTagRegistry.register(BufferOnlyTag.class, BufferOnlyTag::new);
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            BufferOnlyTag tag = new BufferOnlyTag();
+            tag.value = 0x01020304;
+            CompoundTag cp = new CompoundTag(tag.setName("custom"));
+            cp.setName("root");
+
+            NBTCodec codec = new NBTCodec(order);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            codec.encode(out, cp, null);
+            assertArrayEquals(NBTCodec.toByteArray(codec.encode(cp, null)), out.toByteArray());
+
+            CompoundTag decoded = codec.decode(Unpooled.wrappedBuffer(out.toByteArray()), null).getAsCompoundTag();
+            assertEquals(0x01020304, ((BufferOnlyTag) decoded.get("custom").get()).value);
+            try {
+                codec.decode(new ByteArrayInputStream(out.toByteArray()), null);
+                fail("read a buffer-only tag from a stream");
+            } catch (IllegalStateException ex) {
+                assertTrue(ex.getMessage().contains(BufferOnlyTag.class.getName()));
+            }
+        }
+    }
+
+    @Test
+    public void testSkipTruncated() {
+        CompoundTag tag = new CompoundTag(
+                new StringTag("value").setName("string"),
+                new ListTag(new CompoundTag(new IntTag(1).setName("a")), new CompoundTag()).setName("list"),
+                new ByteArrayTag(new byte[]{1, 2, 3}).setName("bytes"),
+                new LongArrayTag(new long[]{4}).setName("longs"));
+        tag.setName("");
+        byte[] bytes = NBTCodec.toByteArray(new NBTCodec(ByteOrder.BIG_ENDIAN).encode(tag, null));
+        for (int length = 3; length < bytes.length; length++) {
+            byte[] padded = Arrays.copyOf(bytes, length + 16);
+            Arrays.fill(padded, length, padded.length, (byte) 1);
+            for (ByteBuf buf : new ByteBuf[]{Unpooled.wrappedBuffer(bytes, 0, length), Unpooled.wrappedBuffer(padded).writerIndex(length)}) {
+                buf.readerIndex(3);
+                try {
+                    NBTTagRegistry.skipPayload((byte) 10, buf, ByteOrder.BIG_ENDIAN);
+                    fail("skipped a payload truncated to " + length + " bytes");
+                } catch (IndexOutOfBoundsException ex) {
+                    assertFalse(ex instanceof ArrayIndexOutOfBoundsException);
+                }
+            }
+        }
+    }
+
+}
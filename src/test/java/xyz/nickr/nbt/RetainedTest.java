@@ -0,0 +1,90 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.IntArrayTag;
+import xyz.nickr.nbt.tags.ListTag;
+
+public class RetainedTest {
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte) (i * 7 + seed);
+        return bytes;
+    }
+
+    private static CompoundTag tree() {
+        CompoundTag tag = new CompoundTag();
+        tag.add(new ByteArrayTag(bytes(4096, 1)).setName("Blocks"));
+        tag.add(new ListTag(new ByteArrayTag(bytes(2048, 2)), new ByteArrayTag(bytes(0, 3))).setName("Data"));
+        tag.add(new IntArrayTag(new int[]{1, 2, 3}).setName("HeightMap"));
+        return tag.setName("Level");
+    }
+
+    @Test
+    public void testRetained() {
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            ByteBuf buf = codec.encode(tree(), NBTCompression.UNCOMPRESSED);
+            byte[] encoded = NBTCodec.toByteArray(buf.duplicate());
+            CompoundTag tag = codec.decodeRetained(buf, null).getAsCompoundTag();
+            assertEquals(0, buf.readableBytes());
+            assertEquals(4, buf.refCnt());
+            buf.release();
+
+            ByteArrayTag blocks = tag.getAsByteArrayTag("Blocks");
+            assertEquals(4096, blocks.length());
+            assertEquals(bytes(4096, 1)[100], blocks.getBuffer().getByte(100));
+            assertEquals(bytes(4096, 1)[200], blocks.getByteBuffer().get(200));
+            assertFalse(tag.isDirty());
+            assertArrayEquals(encoded, NBTCodec.toByteArray(codec.encode(tag, null)));
+
+            assertArrayEquals(bytes(4096, 1), blocks.get());
+            assertEquals(2, buf.refCnt());
+            tag.release();
+            assertEquals(0, buf.refCnt());
+            assertArrayEquals(bytes(4096, 1), blocks.get());
+            try {
+                tag.getAsListTag("Data").get(0).getAsByteArrayTag().getBuffer();
+                fail("released array still has a value");
+            } catch (IllegalStateException expected) {}
+        }
+    }
+
+    @Test
+    public void testCompressed() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        ByteBuf buf = codec.encode(tree(), NBTCompression.GZIP);
+        CompoundTag tag = codec.decodeRetained(buf, NBTCompression.DETECTED).getAsCompoundTag();
+        buf.release();
+        assertArrayEquals(bytes(2048, 2), tag.getAsListTag("Data").get(0).getAsByteArray());
+        assertEquals(0, tag.getAsListTag("Data").get(1).getAsByteArrayTag().length());
+        assertArrayEquals(new int[]{1, 2, 3}, tag.getAsIntArray("HeightMap"));
+        tag.release();
+    }
+
+    @Test
+    public void testTruncated() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        byte[] encoded = NBTCodec.toByteArray(codec.encode(tree(), null));
+        ByteBuf buf = Unpooled.wrappedBuffer(encoded, 0, encoded.length - 8);
+        try {
+            codec.decodeRetained(buf, null);
+            fail("truncated data was decoded");
+        } catch (IndexOutOfBoundsException expected) {}
+        assertEquals(1, buf.refCnt());
+    }
+
+}
@@ -0,0 +1,132 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.DoubleTag;
+import xyz.nickr.nbt.tags.IntArrayTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.LongArrayTag;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.ShortTag;
+import xyz.nickr.nbt.tags.StringTag;
+
+public class SNBTTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        NBTTag tag = codec.decode(Unpooled.wrappedBuffer(Files.readAllBytes(Paths.get("nbt/bigtest.nbt"))), NBTCompression.GZIP);
+        byte[] expected = NBTCodec.toByteArray(codec.encode(tag, null));
+        for (String snbt : new String[]{SNBTWriter.toString(tag), SNBTWriter.toPrettyString(tag)}) {
+            NBTTag parsed = SNBTParser.parse(snbt).setName("Level");
+            assertArrayEquals(expected, NBTCodec.toByteArray(codec.encode(parsed, null)));
+        }
+        assertFalse(tag.isDirty());
+    }
+
+    @Test
+    public void testWrite() {
+        CompoundTag tag = new CompoundTag();
+        tag.add(new StringTag("minecraft:stone").setName("id"));
+        tag.add(new ShortTag(3).setName("Count"));
+        tag.add(new ListTag(new DoubleTag(0.5), new DoubleTag(-2)).setName("Pos"));
+        tag.add(new ListTag(new CompoundTag(new StringTag("it's \"quoted\"").setName("text"))).setName("lines"));
+        tag.add(new ByteArrayTag(new byte[]{1, -2}).setName("bytes"));
+        tag.add(new IntArrayTag(new int[0]).setName("ints"));
+        tag.add(new LongArrayTag(new long[]{7}).setName("key with spaces"));
+
+        assertEquals("{id:\"minecraft:stone\",Count:3s,Pos:[0.5d,-2.0d],lines:[{text:\"it's \\\"quoted\\\"\"}],"
+                + "bytes:[B;1b,-2b],ints:[I;],\"key with spaces\":[L;7L]}", SNBTWriter.toString(tag));
+        assertEquals("{\n"
+                + "    id: \"minecraft:stone\",\n"
+                + "    Count: 3s,\n"
+                + "    Pos: [0.5d, -2.0d],\n"
+                + "    lines: [\n"
+                + "        {\n"
+                + "            text: \"it's \\\"quoted\\\"\"\n"
+                + "        }\n"
+                + "    ],\n"
+                + "    bytes: [B; 1b, -2b],\n"
+                + "    ints: [I;],\n"
+                + "    \"key with spaces\": [L; 7L]\n"
+                + "}", SNBTWriter.toPrettyString(tag));
+
+        StringWriter out = new StringWriter();
+        new SNBTWriter(out, false).write(new StringTag("say \"hi\"")).write(new CompoundTag());
+        assertEquals("'say \"hi\"'{}", out.toString());
+    }
+
+    @Test
+    public void testParse() {
+        CompoundTag tag = SNBTParser.parseCompound(" { id : 'minecraft:stone' , Count:1b, big: 3000000000, neg:-2147483648,"
+                + " l:-9223372036854775808L, f:1.5e3F, d:.5, i:+7, t:true, word:hello, esc:\"a\\\\b\\n\", "
+                + "list:[ [], [1s] ], arr:[B;1b,2], longs:[L;1l,-2L] } ");
+        assertEquals("minecraft:stone", tag.getAsString("id"));
+        assertEquals(Byte.valueOf((byte) 1), tag.getAsNumber("Count"));
+        assertEquals("3000000000", tag.getAsString("big"));
+        assertEquals(Integer.MIN_VALUE, tag.getAsNumber("neg"));
+        assertEquals(Long.MIN_VALUE, tag.getAsNumber("l"));
+        assertEquals(1500f, tag.getAsNumber("f"));
+        assertEquals(0.5, tag.getAsNumber("d"));
+        assertEquals(7, tag.getAsNumber("i"));
+        assertEquals(Byte.valueOf((byte) 1), tag.getAsNumber("t"));
+        assertEquals("hello", tag.getAsString("word"));
+        assertEquals("a\\b\n", tag.getAsString("esc"));
+        assertEquals(2, tag.getAsListTag("list").size());
+        assertEquals(Short.valueOf((short) 1), tag.getAsListTag("list").getAsListTag(1).getAsNumber(0));
+        assertArrayEquals(new byte[]{1, 2}, tag.getAsByteArray("arr"));
+        assertArrayEquals(new long[]{1, -2}, tag.getAsLongArray("longs"));
+        assertEquals("", tag.getName().get());
+    }
+
+    @Test
+    public void testInvalid() {
+        String[] invalid = {"", "{", "{a:}", "{a 1}", "{a:1,}", "[1,2b]", "[B;1,200]", "[I;x]", "\"open", "{a:1}}", "'\\q'"};
+        for (String snbt : invalid) {
+            try {
+                SNBTParser.parse(snbt);
+                fail("parsed invalid SNBT: " + snbt);
+            } catch (IllegalStateException expected) {}
+        }
+    }
+
+    private static String nested(String open, int depth, String close) {
+        StringBuilder snbt = new StringBuilder();
+        for (int i = 0; i < depth; i++)
+            snbt.append(open);
+        snbt.append("1");
+        for (int i = 0; i < depth; i++)
+            snbt.append(close);
+        return snbt.toString();
+    }
+
+    @Test
+    public void testDepth() {
+        assertEquals(1, SNBTParser.parse(nested("[", 512, "]")).getAsListTag().size());
+        assertTrue(SNBTParser.parse(nested("{a:", 512, "}")).isCompoundTag());
+        for (String snbt : new String[]{nested("[", 513, "]"), nested("{a:", 513, "}"), nested("[", 100000, "]")}) {
+            try {
+                SNBTParser.parse(snbt);
+                fail("parsed SNBT nested too deeply");
+            } catch (IllegalStateException expected) {
+                assertTrue(expected.getMessage().startsWith("too deeply nested"));
+            }
+        }
+    }
+
+}
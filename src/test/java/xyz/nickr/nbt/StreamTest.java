@@ -0,0 +1,152 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.DoubleTag;
+import xyz.nickr.nbt.tags.FloatTag;
+import xyz.nickr.nbt.tags.IntArrayTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.LongArrayTag;
+import xyz.nickr.nbt.tags.StringTag;
+
+public class StreamTest {
+
+    private CompoundTag sample() {
+        CompoundTag cp = new CompoundTag(
+                new StringTag("Steve").setName("name"),
+                new FloatTag(0.5f).setName("float"),
+                new DoubleTag(-1.25).setName("double"),
+                new IntArrayTag(new int[]{1, -2, 3}).setName("ints"),
+                new ListTag(new DoubleTag(1), new DoubleTag(2)).setName("pos"));
+        cp.setName("root");
+        return cp;
+    }
+
+    private void assertSample(CompoundTag cp) {
+        assertEquals("root", cp.getName().get());
+        assertEquals("Steve", cp.getAsString("name"));
+        assertEquals(0.5f, cp.getAsNumber("float").floatValue(), 0f);
+        assertEquals(-1.25, cp.getAsNumber("double").doubleValue(), 0);
+        assertEquals(-2, cp.getAsIntArray("ints")[1]);
+        assertEquals(2.0, cp.getAsListTag("pos").getAsNumber(1).doubleValue(), 0);
+    }
+
+    @Test
+    public void testStreamDecode() {
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            for (NBTCompression compression : new NBTCompression[]{NBTCompression.UNCOMPRESSED, NBTCompression.GZIP, NBTCompression.ZLIB}) {
+                ByteBuf buf = Unpooled.buffer();
+                codec.encode(buf, sample(), compression);
+                byte[] bytes = new byte[buf.readableBytes()];
+                buf.readBytes(bytes);
+
+                assertSample(codec.decode(new ByteArrayInputStream(bytes), compression).getAsCompoundTag());
+                assertSample(codec.decode(new ByteArrayInputStream(bytes), NBTCompression.DETECTED).getAsCompoundTag());
+                assertSample(codec.decode(Unpooled.wrappedBuffer(bytes), compression).getAsCompoundTag());
+            }
+        }
+    }
+
+    @Test
+    public void testStreamEncode() {
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            for (NBTCompression compression : new NBTCompression[]{NBTCompression.UNCOMPRESSED, NBTCompression.GZIP, NBTCompression.ZLIB}) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                codec.encode(out, sample(), compression);
+                byte[] bytes = out.toByteArray();
+
+                assertEquals(compression, NBTCompression.detect(Unpooled.wrappedBuffer(bytes)));
+                assertSample(codec.decode(new ByteArrayInputStream(bytes), compression).getAsCompoundTag());
+            }
+        }
+    }
+
+    @Test
+    public void testToByteArray() {
+        ByteBuf buf = Unpooled.buffer(64);
+        buf.writeInt(7);
+        byte[] bytes = NBTCodec.toByteArray(buf);
+        assertEquals(4, bytes.length);
+        assertEquals(7, bytes[3]);
+    }
+
+    @Test
+    public void testSourceNotClosed() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        ByteBuf buf = Unpooled.buffer();
+        codec.encode(buf, sample(), NBTCompression.GZIP);
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+
+        boolean[] closed = new boolean[1];
+        InputStream in = new ByteArrayInputStream(bytes) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        assertSample(codec.decode(in, NBTCompression.GZIP).getAsCompoundTag());
+        assertFalse(closed[0]);
+    }
+
+    @Test
+    public void testStreamLargeArrays() {
+        byte[] bytes = new byte[300000];
+        int[] ints = new int[100001];
+        long[] longs = new long[70001];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) (i * 31);
+        for (int i = 0; i < ints.length; i++)
+            ints[i] = i * -7;
+        for (int i = 0; i < longs.length; i++)
+            longs[i] = i * 0x100000001L;
+        CompoundTag tag = new CompoundTag(
+                new ByteArrayTag(bytes).setName("bytes"),
+                new IntArrayTag(ints).setName("ints"),
+                new LongArrayTag(longs).setName("longs"));
+        tag.setName("");
+
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            NBTCodec codec = new NBTCodec(order);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            codec.encode(out, tag, NBTCompression.UNCOMPRESSED);
+            CompoundTag decoded = codec.decode(new ByteArrayInputStream(out.toByteArray()), NBTCompression.UNCOMPRESSED).getAsCompoundTag();
+            assertArrayEquals(bytes, decoded.getAsByteArray("bytes"));
+            assertArrayEquals(ints, decoded.getAsIntArray("ints"));
+            assertArrayEquals(longs, decoded.getAsLongArray("longs"));
+        }
+    }
+
+    @Test
+    public void testStreamBadArrayLengths() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        for (byte type : new byte[]{7, 11, 12}) {
+            for (int length : new int[]{-1, Integer.MAX_VALUE}) {
+                ByteBuf buf = Unpooled.buffer();
+                buf.writeByte(type).writeShort(0).writeInt(length).writeLong(0);
+                try {
+                    codec.decode(new ByteArrayInputStream(NBTCodec.toByteArray(buf)), NBTCompression.UNCOMPRESSED);
+                    fail("decoded array of length " + length);
+                } catch (IllegalStateException | UncheckedIOException expected) {}
+            }
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.IntTag;
+
+public class UncompressedTest {
+
+    private CompoundTag item(int count) {
+        CompoundTag cp = new CompoundTag(new IntTag(count).setName("Count"));
+        cp.setName("item");
+        return cp;
+    }
+
+    @Test
+    public void testBackToBack() {
+        for (NBTCompression compression : new NBTCompression[]{null, NBTCompression.UNCOMPRESSED, NBTCompression.DETECTED}) {
+            NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+            ByteBuf buf = Unpooled.buffer();
+            for (int i = 0; i < 3; i++) {
+                codec.encode(buf, item(i), compression);
+                buf.writeInt(0xCAFE);
+            }
+
+            for (int i = 0; i < 3; i++) {
+                CompoundTag tag = codec.decode(buf, compression).getAsCompoundTag();
+                assertEquals(i, tag.getAsNumber("Count").intValue());
+                assertEquals(0xCAFE, buf.readInt());
+            }
+            assertFalse(buf.isReadable());
+            assertEquals(1, buf.refCnt());
+        }
+    }
+
+    @Test
+    public void testExtractDoesNotCopy() {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(1);
+
+        ByteBuf extracted = NBTCompression.UNCOMPRESSED.extract(buf);
+        assertFalse(buf.isReadable());
+        assertEquals(2, buf.refCnt());
+
+        buf.setInt(0, 2);
+        assertEquals(2, extracted.getInt(0));
+        extracted.release();
+        assertEquals(1, buf.refCnt());
+    }
+
+}
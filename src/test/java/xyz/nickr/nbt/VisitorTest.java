@@ -0,0 +1,184 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.IntArrayTag;
+import xyz.nickr.nbt.tags.NBTTag;
+
+public class VisitorTest {
+
+    /**
+     * Records every event as text, with lists and compounds bracketed.
+     */
+    private static class RecordingVisitor implements NBTVisitor {
+
+        final StringBuilder log = new StringBuilder();
+        final ByteOrder order;
+
+        RecordingVisitor(ByteOrder order) {
+            this.order = order;
+        }
+
+        @Override
+        public boolean visitCompoundStart(String name) {
+            log.append(name).append("={");
+            return true;
+        }
+
+        @Override
+        public void visitCompoundEnd() {
+            log.append("};");
+        }
+
+        @Override
+        public boolean visitListStart(String name, byte elementType, int size) {
+            log.append(name).append("=").append(elementType).append("x").append(size).append("[");
+            return true;
+        }
+
+        @Override
+        public void visitListEnd() {
+            log.append("];");
+        }
+
+        @Override
+        public void visitByte(String name, byte value) {
+            log.append(name).append("=").append(value).append("b;");
+        }
+
+        @Override
+        public void visitShort(String name, short value) {
+            log.append(name).append("=").append(value).append("s;");
+        }
+
+        @Override
+        public void visitInt(String name, int value) {
+            log.append(name).append("=").append(value).append(";");
+        }
+
+        @Override
+        public void visitLong(String name, long value) {
+            log.append(name).append("=").append(value).append("L;");
+        }
+
+        @Override
+        public void visitFloat(String name, float value) {
+            log.append(name).append("=").append(value).append("f;");
+        }
+
+        @Override
+        public void visitDouble(String name, double value) {
+            log.append(name).append("=").append(value).append("d;");
+        }
+
+        @Override
+        public void visitString(String name, String value) {
+            log.append(name).append("=\"").append(value).append("\";");
+        }
+
+        @Override
+        public void visitByteArray(String name, ByteBuf value) {
+            int sum = 0;
+            for (int i = 0; i < value.readableBytes(); i++)
+                sum += value.getByte(value.readerIndex() + i);
+            log.append(name).append("=B").append(value.readableBytes()).append(":").append(sum).append(";");
+        }
+
+        @Override
+        public void visitIntArray(String name, ByteBuf value) {
+            log.append(name).append("=I[");
+            for (int i = 0; i < value.readableBytes(); i += 4) {
+                int index = value.readerIndex() + i;
+                log.append(order == ByteOrder.BIG_ENDIAN ? value.getInt(index) : value.getIntLE(index)).append(",");
+            }
+            log.append("];");
+        }
+
+    }
+
+    private static ByteBuf bigtest() throws IOException {
+        return Unpooled.wrappedBuffer(Files.readAllBytes(Paths.get("nbt/bigtest.nbt")));
+    }
+
+    @Test
+    public void testBigtest() throws IOException {
+        RecordingVisitor visitor = new RecordingVisitor(ByteOrder.BIG_ENDIAN);
+        new NBTCodec(ByteOrder.BIG_ENDIAN).visit(bigtest(), NBTCompression.GZIP, visitor);
+        String log = visitor.log.toString();
+        assertTrue(log.startsWith("Level={"));
+        assertTrue(log.endsWith("};"));
+        assertTrue(log.contains("longTest=9223372036854775807L;"));
+        assertTrue(log.contains("shortTest=32767s;"));
+        assertTrue(log.contains("egg={name=\"Eggbert\";value=0.5f;};"));
+        assertTrue(log.contains("listTest (long)=4x5[null=11L;null=12L;null=13L;null=14L;null=15L;];"));
+        assertTrue(log.contains("stringTest=\"HELLO WORLD THIS IS A TEST STRING ÅÄÖ!\";"));
+        assertTrue(log.contains("=B1000:"));
+    }
+
+    @Test
+    public void testByteOrders() throws IOException {
+        NBTCodec big = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        NBTCodec little = new NBTCodec(ByteOrder.LITTLE_ENDIAN);
+        CompoundTag tag = big.decode(bigtest(), NBTCompression.GZIP).getAsCompoundTag();
+        tag.add(new IntArrayTag(new int[]{1, -2, 300000}).setName("ints"));
+
+        RecordingVisitor bigVisitor = new RecordingVisitor(ByteOrder.BIG_ENDIAN);
+        big.visit(big.encode(tag, NBTCompression.ZLIB), NBTCompression.DETECTED, bigVisitor);
+        RecordingVisitor littleVisitor = new RecordingVisitor(ByteOrder.LITTLE_ENDIAN);
+        little.visit(little.encode(tag, NBTCompression.UNCOMPRESSED), null, littleVisitor);
+
+        assertTrue(bigVisitor.log.toString().contains("ints=I[1,-2,300000,];"));
+        assertEquals(bigVisitor.log.toString(), littleVisitor.log.toString());
+    }
+
+    @Test
+    public void testSkip() throws IOException {
+        StringBuilder names = new StringBuilder();
+        NBTVisitor visitor = new NBTVisitor() {
+            @Override
+            public boolean visitCompoundStart(String name) {
+                names.append(name).append(",");
+                return !"nested compound test".equals(name);
+            }
+
+            @Override
+            public boolean visitListStart(String name, byte elementType, int size) {
+                names.append(name).append(",");
+                return false;
+            }
+
+            @Override
+            public void visitString(String name, String value) {
+                names.append(name).append(",");
+            }
+
+            @Override
+            public void visitTag(String name, NBTTag tag) {
+                throw new AssertionError();
+            }
+        };
+        ByteBuf buf = new NBTCodec(ByteOrder.BIG_ENDIAN).encode(
+                new NBTCodec(ByteOrder.BIG_ENDIAN).decode(bigtest(), NBTCompression.GZIP), NBTCompression.UNCOMPRESSED);
+        buf.writeInt(0xCAFEBABE);
+        new NBTCodec(ByteOrder.BIG_ENDIAN).visit(buf, null, visitor);
+
+        assertEquals(0xCAFEBABE, buf.readInt());
+        assertFalse(names.toString().contains("egg"));
+        assertFalse(names.toString().contains("created-on"));
+        assertTrue(names.toString().contains("stringTest"));
+        assertTrue(names.toString().contains("listTest (compound)"));
+    }
+
+}
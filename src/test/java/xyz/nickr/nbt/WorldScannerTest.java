@@ -0,0 +1,81 @@
+package xyz.nickr.nbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import xyz.nickr.nbt.region.RegionFile;
+import xyz.nickr.nbt.region.WorldScanner;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.IntTag;
+
+public class WorldScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+
+    private static CompoundTag chunk(int x, int z) {
+        CompoundTag level = new CompoundTag(new IntTag(x).setName("xPos"), new IntTag(z).setName("zPos"));
+        level.setName("Level");
+        CompoundTag root = new CompoundTag(level);
+        root.setName("");
+        return root;
+    }
+
+    @Before
+    public void createWorld() throws IOException {
+        dir = folder.newFolder("region").toPath();
+        for (int rx = -1; rx <= 1; rx++) {
+            try (RegionFile region = new RegionFile(dir.resolve("r." + rx + ".0.mca"))) {
+                for (int i = 0; i < 10; i++)
+                    region.writeChunk(i, i * 3, chunk(rx * 32 + i, i * 3));
+            }
+        }
+        Files.createFile(dir.resolve("r.5.5.mca"));
+        Files.createFile(dir.resolve("notes.txt"));
+    }
+
+    @Test
+    public void testVisitor() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Set<String> seen = ConcurrentHashMap.newKeySet();
+            new WorldScanner(pool, () -> new NBTCodec(ByteOrder.BIG_ENDIAN)).scan(dir, (x, z, chunk) -> {
+                CompoundTag level = chunk.getAsCompoundTag().getAsCompoundTag("Level");
+                assertEquals(x, level.getAsNumber("xPos").intValue());
+                assertEquals(z, level.getAsNumber("zPos").intValue());
+                assertTrue(seen.add(x + "," + z));
+            });
+            assertEquals(30, seen.size());
+            assertTrue(seen.contains("-32,0"));
+            assertTrue(seen.contains("41,27"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCollector() {
+        long sum = new WorldScanner().scan(dir, Collectors.summingLong(chunk ->
+                chunk.getAsCompoundTag().getAsCompoundTag("Level").getAsNumber("xPos").intValue()));
+        assertEquals((0 + 32 - 32) * 10 + 3 * 45, sum);
+        assertEquals(4, WorldScanner.listRegions(dir).size());
+        assertEquals(Long.valueOf(0), new WorldScanner().scan(folder.getRoot().toPath(), Collectors.counting()));
+    }
+
+}
@@ -0,0 +1,127 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.LittleEndianDataOutput;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.IntArrayTag;
+
+/**
+ * Measures reading and writing int arrays in bulk, against reading and writing them one int at a time
+ * as the tags used to, both to buffers and to streams, and reading byte arrays, across payload sizes and byte orders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    @Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+    public String endian;
+
+    private ByteOrder order;
+    private NBTCodec codec;
+    private IntArrayTag ints;
+    private ByteBuf intBuf, byteBuf, out;
+    private ByteArrayOutputStream stream;
+    private DataOutput data;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        order = "BIG_ENDIAN".equals(endian) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        codec = new NBTCodec(order);
+        int[] values = new int[size];
+        byte[] bytes = new byte[size * 4];
+        for (int i = 0; i < size; i++)
+            values[i] = i * 31;
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) i;
+        ints = new IntArrayTag(values);
+        intBuf = codec.encode(ints.setName("ints"), null);
+        byteBuf = codec.encode(new ByteArrayTag(bytes).setName("bytes"), null);
+        out = Unpooled.buffer(size * 4 + 64);
+        stream = new ByteArrayOutputStream(size * 4 + 64);
+        data = order == ByteOrder.BIG_ENDIAN ? new DataOutputStream(stream) : new LittleEndianDataOutput(stream);
+    }
+
+    @Benchmark
+    public Object readInts() {
+        return codec.decode(intBuf.duplicate(), null);
+    }
+
+    @Benchmark
+    public int[] readIntsPerElement() {
+        ByteBuf buf = intBuf.duplicate();
+        buf.skipBytes(1 + 2 + 4 + 4);
+        int[] value = new int[size];
+        for (int i = 0; i < size; i++)
+            value[i] = order == ByteOrder.BIG_ENDIAN ? buf.readInt() : buf.readIntLE();
+        return value;
+    }
+
+    @Benchmark
+    public ByteBuf writeInts() {
+        out.clear();
+        ints.write(out, order);
+        return out;
+    }
+
+    @Benchmark
+    public ByteBuf writeIntsPerElement() {
+        out.clear();
+        int[] value = ints.get();
+        for (int i : value) {
+            if (order == ByteOrder.BIG_ENDIAN) {
+                out.writeInt(i);
+            } else {
+                out.writeIntLE(i);
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream writeIntsToStream() throws IOException {
+        stream.reset();
+        ints.write(data);
+        return stream;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream writeIntsToStreamPerElement() throws IOException {
+        stream.reset();
+        for (int i : ints.get())
+            data.writeInt(i);
+        return stream;
+    }
+
+    @Benchmark
+    public Object readBytes() {
+        return codec.decode(byteBuf.duplicate(), null);
+    }
+
+}
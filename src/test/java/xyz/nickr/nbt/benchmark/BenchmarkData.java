@@ -0,0 +1,144 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.tags.ByteArrayTag;
+import xyz.nickr.nbt.tags.ByteTag;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.DoubleTag;
+import xyz.nickr.nbt.tags.FloatTag;
+import xyz.nickr.nbt.tags.IntArrayTag;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.LongTag;
+import xyz.nickr.nbt.tags.ShortTag;
+import xyz.nickr.nbt.tags.StringTag;
+
+/**
+ * Shared inputs for the benchmarks.
+ */
+public final class BenchmarkData {
+
+    private BenchmarkData() {}
+
+    /**
+     * Gets the uncompressed contents of {@code nbt/bigtest.nbt}.
+     *
+     * @return The bytes.
+     */
+    public static byte[] bigtest() {
+        try (InputStream in = new GZIPInputStream(new FileInputStream("nbt/bigtest.nbt"))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] tmp = new byte[4096];
+            int c;
+            while ((c = in.read(tmp)) != -1)
+                out.write(tmp, 0, c);
+            return out.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Builds a compound shaped like an Anvil chunk: sixteen sections with block arrays,
+     * a few hundred tile entities and entities, and the usual level metadata.
+     *
+     * @return The chunk compound.
+     */
+    public static CompoundTag chunk() {
+        CompoundTag level = new CompoundTag();
+        level.setName("Level");
+        level.add(new IntTag(12).setName("xPos"));
+        level.add(new IntTag(-7).setName("zPos"));
+        level.add(new LongTag(1419495308129L).setName("LastUpdate"));
+        level.add(new LongTag(482910L).setName("InhabitedTime"));
+        level.add(new ByteTag(1).setName("TerrainPopulated"));
+        level.add(new ByteTag(1).setName("LightPopulated"));
+        level.add(new ByteArrayTag(fill(new byte[256], 3)).setName("Biomes"));
+
+        int[] heightMap = new int[256];
+        for (int i = 0; i < heightMap.length; i++)
+            heightMap[i] = 60 + (i * 31) % 20;
+        level.add(new IntArrayTag(heightMap).setName("HeightMap"));
+
+        ListTag sections = new ListTag();
+        for (int y = 0; y < 16; y++) {
+            CompoundTag section = new CompoundTag();
+            section.add(new ByteTag(y).setName("Y"));
+            section.add(new ByteArrayTag(fill(new byte[4096], y)).setName("Blocks"));
+            section.add(new ByteArrayTag(fill(new byte[2048], y + 1)).setName("Data"));
+            section.add(new ByteArrayTag(fill(new byte[2048], y + 2)).setName("BlockLight"));
+            section.add(new ByteArrayTag(fill(new byte[2048], y + 3)).setName("SkyLight"));
+            sections.add(section);
+        }
+        level.add(sections.setName("Sections"));
+
+        ListTag tileEntities = new ListTag();
+        for (int i = 0; i < 500; i++) {
+            CompoundTag te = new CompoundTag();
+            te.add(new StringTag("Chest").setName("id"));
+            te.add(new IntTag(i % 16).setName("x"));
+            te.add(new IntTag(i % 256).setName("y"));
+            te.add(new IntTag(i / 16).setName("z"));
+            ListTag items = new ListTag();
+            for (int j = 0; j < 4; j++) {
+                CompoundTag item = new CompoundTag();
+                item.add(new ShortTag(j * 3).setName("id"));
+                item.add(new ShortTag(0).setName("Damage"));
+                item.add(new ByteTag(64).setName("Count"));
+                item.add(new ByteTag(j).setName("Slot"));
+                items.add(item);
+            }
+            te.add(items.setName("Items"));
+            tileEntities.add(te);
+        }
+        level.add(tileEntities.setName("TileEntities"));
+
+        ListTag entities = new ListTag();
+        for (int i = 0; i < 200; i++) {
+            CompoundTag entity = new CompoundTag();
+            entity.add(new StringTag("Zombie").setName("id"));
+            entity.add(new ListTag(new DoubleTag(i + 0.5), new DoubleTag(64), new DoubleTag(i * 0.25)).setName("Pos"));
+            entity.add(new ListTag(new DoubleTag(0), new DoubleTag(-0.0784), new DoubleTag(0)).setName("Motion"));
+            entity.add(new ListTag(new FloatTag(i * 1.5f), new FloatTag(0)).setName("Rotation"));
+            entity.add(new ShortTag(20).setName("Health"));
+            entity.add(new ByteTag(1).setName("OnGround"));
+            entities.add(entity);
+        }
+        level.add(entities.setName("Entities"));
+
+        CompoundTag root = new CompoundTag(level);
+        root.setName("");
+        return root;
+    }
+
+    /**
+     * Encodes a tag, uncompressed, into a new buffer.
+     *
+     * @param codec The codec to encode with.
+     * @param tag The tag.
+     *
+     * @return The bytes.
+     */
+    public static byte[] encode(NBTCodec codec, CompoundTag tag) {
+        ByteBuf buf = Unpooled.buffer();
+        codec.encode(buf, tag, null);
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] fill(byte[] bytes, int seed) {
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) (i * 7 + seed);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,65 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.NBTCompression;
+
+/**
+ * Measures compressing and extracting an encoded chunk held in a pooled buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"GZIP", "ZLIB"})
+    public NBTCompression compression;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private ByteBuf raw;
+    private ByteBuf compressed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] bytes = BenchmarkData.encode(new NBTCodec(ByteOrder.BIG_ENDIAN), BenchmarkData.chunk());
+        raw = Unpooled.wrappedBuffer(bytes);
+        compressed = compression.compress(raw, alloc);
+    }
+
+    @Benchmark
+    public int extract() {
+        ByteBuf out = compression.extract(compressed.duplicate(), alloc);
+        int size = out.readableBytes();
+        out.release();
+        return size;
+    }
+
+    @Benchmark
+    public int compress() {
+        ByteBuf out = compression.compress(raw, alloc);
+        int size = out.readableBytes();
+        out.release();
+        return size;
+    }
+
+}
@@ -0,0 +1,73 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.Unpooled;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.tags.NBTDumper;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Measures printing and stringifying decoded trees, in full and with a dumper's limits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DumpBenchmark {
+
+    @Param({"bigtest", "chunk"})
+    public String input;
+
+    private NBTTag tag;
+    private final NBTDumper limited = new NBTDumper(4, 16, 8, 64);
+    private final StringBuilder builder = new StringBuilder();
+    private final PrintStream stream = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] b, int off, int len) {}
+    });
+
+    @Setup(Level.Trial)
+    public void setup() {
+        NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+        byte[] bytes = "chunk".equals(input) ? BenchmarkData.encode(codec, BenchmarkData.chunk()) : BenchmarkData.bigtest();
+        tag = codec.decode(Unpooled.wrappedBuffer(bytes), null);
+    }
+
+    @Benchmark
+    public void print() {
+        tag.print(stream);
+    }
+
+    @Benchmark
+    public String string() {
+        return tag.toString();
+    }
+
+    @Benchmark
+    public StringBuilder dumpLimited() {
+        builder.setLength(0);
+        limited.dump(tag, builder);
+        return builder;
+    }
+
+}
@@ -0,0 +1,54 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Measures uncompressed encoding of a decoded tree into a reused buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+
+    @Param({"bigtest", "chunk"})
+    public String input;
+
+    private final NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+    private NBTTag tag;
+    private ByteBuf buf;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] bytes = "chunk".equals(input) ? BenchmarkData.encode(codec, BenchmarkData.chunk()) : BenchmarkData.bigtest();
+        tag = codec.decode(Unpooled.wrappedBuffer(bytes), null);
+        buf = Unpooled.buffer(bytes.length);
+    }
+
+    @Benchmark
+    public ByteBuf encode() {
+        buf.clear();
+        tag.write(buf, ByteOrder.BIG_ENDIAN);
+        return buf;
+    }
+
+}
@@ -0,0 +1,72 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.StringReader;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.NBTJsonParser;
+import xyz.nickr.nbt.NBTJsonWriter;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Measures converting encoded NBT to JSON and back, against decoding the same NBT into tags.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"bigtest", "chunk"})
+    public String input;
+
+    private final NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+    private ByteBuf binary, out;
+    private String json;
+    private final StringBuilder builder = new StringBuilder();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] bytes = "chunk".equals(input) ? BenchmarkData.encode(codec, BenchmarkData.chunk()) : BenchmarkData.bigtest();
+        binary = Unpooled.wrappedBuffer(bytes);
+        out = Unpooled.buffer(bytes.length);
+        codec.visit(binary.duplicate(), null, codec.jsonWriter(builder));
+        json = builder.toString();
+    }
+
+    @Benchmark
+    public NBTTag decode() {
+        return codec.decode(binary.duplicate(), null);
+    }
+
+    @Benchmark
+    public StringBuilder toJson() {
+        builder.setLength(0);
+        codec.visit(binary.duplicate(), null, codec.jsonWriter(builder));
+        return builder;
+    }
+
+    @Benchmark
+    public ByteBuf fromJson() {
+        out.clear();
+        NBTJsonParser.parse(new StringReader(json), out, codec.getOrder());
+        return out;
+    }
+
+}
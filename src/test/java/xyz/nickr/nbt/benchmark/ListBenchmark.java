@@ -0,0 +1,59 @@
+package xyz.nickr.nbt.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.tags.IntTag;
+import xyz.nickr.nbt.tags.ListTag;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Measures scanning a list tag by index, with the array backing used by list tags
+ * and with the linked list they used to be backed by.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"array", "linked"})
+    public String backing;
+
+    private final ListTag list = new ListTag();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<NBTTag> elements = "linked".equals(backing) ? new LinkedList<>() : new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            elements.add(new IntTag(i));
+        list.set(elements);
+    }
+
+    @Benchmark
+    public long indexedScan() {
+        long sum = 0;
+        for (int i = 0; i < list.size(); i++)
+            sum += list.getAsNumber(i).longValue();
+        return sum;
+    }
+
+}
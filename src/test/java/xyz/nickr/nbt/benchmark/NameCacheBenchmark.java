@@ -0,0 +1,59 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Measures decoding with tag names looked up in the codec's name cache, and with every name decoded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameCacheBenchmark {
+
+    @Param({"bigtest", "chunk"})
+    public String input;
+
+    private final NBTCodec cached = new NBTCodec(ByteOrder.BIG_ENDIAN);
+    private final NBTCodec uncached = new NBTCodec(ByteOrder.BIG_ENDIAN, PooledByteBufAllocator.DEFAULT,
+            Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY, null);
+    private ByteBuf buf;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] bytes = "chunk".equals(input) ? BenchmarkData.encode(cached, BenchmarkData.chunk()) : BenchmarkData.bigtest();
+        buf = Unpooled.wrappedBuffer(bytes);
+    }
+
+    @Benchmark
+    public NBTTag cached() {
+        return cached.decode(buf.duplicate(), null);
+    }
+
+    @Benchmark
+    public NBTTag uncached() {
+        return uncached.decode(buf.duplicate(), null);
+    }
+
+}
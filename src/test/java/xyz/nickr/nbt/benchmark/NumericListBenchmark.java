@@ -0,0 +1,67 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.tags.DoubleTag;
+import xyz.nickr.nbt.tags.ListTag;
+
+/**
+ * Measures decoding a list of doubles and summing it, with the list kept packed
+ * and with it turned into tags, as every list used to be.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumericListBenchmark {
+
+    @Param({"3", "1000", "100000"})
+    public int size;
+
+    private final NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+    private ByteBuf buf;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ListTag list = new ListTag();
+        for (int i = 0; i < size; i++)
+            list.add(new DoubleTag(i * 0.25));
+        buf = codec.encode(list.setName("list"), null);
+    }
+
+    @Benchmark
+    public double packed() {
+        ListTag list = codec.decode(buf.duplicate(), null).getAsListTag();
+        double sum = 0;
+        for (int i = 0; i < list.size(); i++)
+            sum += list.getDouble(i);
+        return sum;
+    }
+
+    @Benchmark
+    public double tags() {
+        ListTag list = codec.decode(buf.duplicate(), null).getAsListTag();
+        double sum = 0;
+        for (int i = 0; i < list.size(); i++)
+            sum += ((DoubleTag) list.get(i)).get();
+        return sum;
+    }
+
+}
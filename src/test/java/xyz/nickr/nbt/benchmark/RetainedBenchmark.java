@@ -0,0 +1,62 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Measures decoding a chunk and reading a byte from each section's block array,
+ * with the arrays copied and with them holding slices of the decoded buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetainedBenchmark {
+
+    private final NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+    private ByteBuf buf;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        buf = Unpooled.wrappedBuffer(BenchmarkData.encode(codec, BenchmarkData.chunk()));
+    }
+
+    @Benchmark
+    public int copied() {
+        CompoundTag level = codec.decode(buf.duplicate(), null).getAsCompoundTag().getAsCompoundTag("Level");
+        int sum = 0;
+        for (NBTTag section : level.getAsListTag("Sections"))
+            sum += section.getAsCompoundTag().getAsByteArray("Blocks")[100];
+        return sum;
+    }
+
+    @Benchmark
+    public int retained() {
+        NBTTag root = codec.decodeRetained(buf.duplicate(), null);
+        CompoundTag level = root.getAsCompoundTag().getAsCompoundTag("Level");
+        int sum = 0;
+        for (NBTTag section : level.getAsListTag("Sections"))
+            sum += section.getAsCompoundTag().getAsByteArrayTag("Blocks").getBuffer().getByte(100);
+        root.release();
+        return sum;
+    }
+
+}
@@ -0,0 +1,81 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.tags.CompoundTag;
+import xyz.nickr.nbt.tags.LongTag;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Measures loading a tree, changing two of its fields and saving it again,
+ * with a full decode and with a lazy one. The lazy tree is also measured after reading a large list,
+ * which is copied on writing as it is not dirty.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    @Param({"bigtest", "chunk"})
+    public String input;
+
+    private final NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+    private ByteBuf in, out;
+    private String parent, list;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] bytes = "chunk".equals(input) ? BenchmarkData.encode(codec, BenchmarkData.chunk()) : BenchmarkData.bigtest();
+        in = Unpooled.wrappedBuffer(bytes);
+        out = Unpooled.buffer(bytes.length + 64);
+        parent = "chunk".equals(input) ? "Level" : null;
+        list = "chunk".equals(input) ? "TileEntities" : "listTest (compound)";
+    }
+
+    @Benchmark
+    public ByteBuf decode() {
+        return modify(codec.decode(in.duplicate(), null).getAsCompoundTag());
+    }
+
+    @Benchmark
+    public ByteBuf decodeLazy() {
+        return modify(codec.decodeLazy(in.duplicate(), null));
+    }
+
+    @Benchmark
+    public ByteBuf decodeLazyRead() {
+        CompoundTag root = codec.decodeLazy(in.duplicate(), null);
+        CompoundTag tag = parent != null ? root.getAsCompoundTag(parent) : root;
+        for (NBTTag element : tag.getAsListTag(list))
+            element.getAsCompoundTag().size();
+        return modify(root);
+    }
+
+    private ByteBuf modify(CompoundTag root) {
+        CompoundTag tag = parent != null ? root.getAsCompoundTag(parent) : root;
+        tag.add(new LongTag(1L).setName("LastUpdate"));
+        tag.add(new LongTag(2L).setName("InhabitedTime"));
+        out.clear();
+        root.write(out, ByteOrder.BIG_ENDIAN);
+        return out;
+    }
+
+}
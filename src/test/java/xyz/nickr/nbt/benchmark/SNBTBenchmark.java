@@ -0,0 +1,84 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.SNBTParser;
+import xyz.nickr.nbt.SNBTWriter;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Measures parsing and writing SNBT against decoding and encoding the same tree with the binary codec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SNBTBenchmark {
+
+    @Param({"bigtest", "chunk"})
+    public String input;
+
+    private final NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+    private ByteBuf binary, out;
+    private NBTTag tag;
+    private String snbt;
+    private final StringBuilder builder = new StringBuilder();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] bytes = "chunk".equals(input) ? BenchmarkData.encode(codec, BenchmarkData.chunk()) : BenchmarkData.bigtest();
+        binary = Unpooled.wrappedBuffer(bytes);
+        out = Unpooled.buffer(bytes.length);
+        tag = codec.decode(binary.duplicate(), null);
+        snbt = SNBTWriter.toString(tag);
+    }
+
+    @Benchmark
+    public NBTTag decodeBinary() {
+        return codec.decode(binary.duplicate(), null);
+    }
+
+    @Benchmark
+    public NBTTag parseSnbt() {
+        return SNBTParser.parse(snbt);
+    }
+
+    @Benchmark
+    public ByteBuf encodeBinary() {
+        out.clear();
+        codec.encode(out, tag, null);
+        return out;
+    }
+
+    @Benchmark
+    public StringBuilder writeSnbt() {
+        builder.setLength(0);
+        new SNBTWriter(builder, false).write(tag);
+        return builder;
+    }
+
+    @Benchmark
+    public StringBuilder writeSnbtPretty() {
+        builder.setLength(0);
+        new SNBTWriter(builder, true).write(tag);
+        return builder;
+    }
+
+}
@@ -0,0 +1,88 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Measures writing and reading a batch of names with the Modified UTF-8 codec,
+ * against going through a temporary array and the JDK's UTF-8 charset as strings used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringBenchmark {
+
+    @Param({"ascii", "accented"})
+    public String kind;
+
+    private final String[] names = new String[64];
+    private ByteBuf buf;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] base = {"id", "Count", "Damage", "Slot", "Pos", "Motion", "Rotation", "TileEntities"};
+        for (int i = 0; i < names.length; i++)
+            names[i] = base[i % base.length] + ("ascii".equals(kind) ? "" : "é") + i;
+        buf = Unpooled.buffer(4096);
+    }
+
+    @Benchmark
+    public ByteBuf write() {
+        buf.clear();
+        for (String name : names)
+            NBTTag.writeString(buf, ByteOrder.BIG_ENDIAN, name);
+        return buf;
+    }
+
+    @Benchmark
+    public ByteBuf writeCharset() {
+        buf.clear();
+        for (String name : names) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            buf.writeShort(bytes.length);
+            buf.writeBytes(bytes);
+        }
+        return buf;
+    }
+
+    @Benchmark
+    public int read() {
+        ByteBuf in = write().duplicate();
+        int total = 0;
+        while (in.isReadable())
+            total += NBTTag.readString(in, ByteOrder.BIG_ENDIAN).length();
+        return total;
+    }
+
+    @Benchmark
+    public int readCharset() {
+        ByteBuf in = write().duplicate();
+        int total = 0;
+        while (in.isReadable()) {
+            byte[] bytes = new byte[in.readUnsignedShort()];
+            in.readBytes(bytes);
+            total += new String(bytes, StandardCharsets.UTF_8).length();
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,88 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.lang.reflect.Constructor;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.tags.NBTTag;
+import xyz.nickr.nbt.tags.NBTTagRegistry;
+
+/**
+ * Compares decoding through the {@link NBTTagRegistry} factory table against
+ * the reflective per-tag construction NBTCodec used previously.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagFactoryBenchmark {
+
+    private static final byte MAX_BUILTIN_ID = 11;
+
+    @Param({"table", "reflective"})
+    public String factory;
+
+    @Param({"bigtest", "chunk"})
+    public String input;
+
+    private final NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+    private ByteBuf buf;
+
+    /**
+     * Each parameter combination runs in its own fork, so the reflective factories
+     * registered here never leak into the table measurements.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("reflective".equals(factory)) {
+            Map<Byte, Class<? extends NBTTag>> types = new HashMap<>();
+            for (byte id = 0; id <= MAX_BUILTIN_ID; id++)
+                types.put(id, NBTTagRegistry.create(id).getClass());
+            for (byte id = 0; id <= MAX_BUILTIN_ID; id++) {
+                byte typeId = id;
+                NBTTagRegistry.register(id, () -> reflectiveCreate(types, typeId));
+            }
+        }
+        byte[] bytes = "chunk".equals(input) ? BenchmarkData.encode(codec, BenchmarkData.chunk()) : BenchmarkData.bigtest();
+        buf = Unpooled.wrappedBuffer(bytes);
+    }
+
+    @Benchmark
+    public NBTTag decode() {
+        return codec.decode(buf.duplicate(), null);
+    }
+
+    /**
+     * The lookup NBTCodec.createTag performed before the factory table: a boxed map lookup
+     * followed by a reflective constructor call, for every tag decoded.
+     */
+    private static NBTTag reflectiveCreate(Map<Byte, Class<? extends NBTTag>> types, byte id) {
+        Class<? extends NBTTag> cls = types.get(id);
+        try {
+            Constructor<? extends NBTTag> constr = cls.getDeclaredConstructor();
+            constr.setAccessible(true);
+            return constr.newInstance();
+        } catch (Exception ex) {
+            throw new IllegalStateException("no valid tag found for id=" + id, ex);
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package xyz.nickr.nbt.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.nickr.nbt.NBTCodec;
+import xyz.nickr.nbt.NBTVisitor;
+import xyz.nickr.nbt.tags.NBTTag;
+
+/**
+ * Compares decoding a tree with visiting the same data to sum its ints,
+ * and with decoding only a few small paths of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitBenchmark {
+
+    @Param({"bigtest", "chunk"})
+    public String input;
+
+    private final NBTCodec codec = new NBTCodec(ByteOrder.BIG_ENDIAN);
+    private ByteBuf buf;
+    private String[] paths;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] bytes = "chunk".equals(input) ? BenchmarkData.encode(codec, BenchmarkData.chunk()) : BenchmarkData.bigtest();
+        buf = Unpooled.wrappedBuffer(bytes);
+        paths = "chunk".equals(input)
+                ? new String[]{"Level.xPos", "Level.zPos", "Level.Sections.Y"}
+                : new String[]{"intTest", "nested compound test.egg.name"};
+    }
+
+    @Benchmark
+    public NBTTag decode() {
+        return codec.decode(buf.duplicate(), null);
+    }
+
+    @Benchmark
+    public NBTTag decodePaths() {
+        return codec.decodePaths(buf.duplicate(), paths);
+    }
+
+    @Benchmark
+    public long visit() {
+        long[] sum = new long[1];
+        codec.visit(buf.duplicate(), null, new NBTVisitor() {
+            @Override
+            public void visitInt(String name, int value) {
+                sum[0] += value;
+            }
+        });
+        return sum[0];
+    }
+
+}